@@ -5,6 +5,7 @@ public final class AgentMemoryType {
     public static final String WORK_TREND = "WORK_TREND";
     public static final String EMOTION_TREND = "EMOTION_TREND";
     public static final String TASK_TREND = "TASK_TREND";
+    public static final String CHAT_SUMMARY = "CHAT_SUMMARY";
 
     private AgentMemoryType() {
     }
@@ -1,83 +1,267 @@
 package com.pandora.backend.agent.service;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pandora.backend.agent.constants.AgentMemoryType;
 import com.pandora.backend.agent.model.AgentChatSession;
 import com.pandora.backend.dto.ChatMessageDTO;
+import com.pandora.backend.service.AgentMemoryService;
+import com.pandora.backend.service.GlmService;
 import com.pandora.backend.util.RedisUtil;
-import lombok.RequiredArgsConstructor;
+import com.pandora.backend.util.TokenEstimator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
 
+/**
+ * Agent 多轮对话会话存储
+ * 消息以紧凑字符串（"角色首字母|内容"）存入 Redis 列表，每轮只 RPUSH 新消息；
+ * token 总数记录在旁路 hash 中，超出条数或 token 预算时从列表头部淘汰，被淘汰的轮次摘要后写入 AgentMemory
+ */
+@Slf4j
 @Service
-@RequiredArgsConstructor
 public class AgentChatSessionService {
 
-    private static final String SESSION_KEY_PREFIX = "agent_chat:session:";
+    private static final String LEGACY_SESSION_KEY_PREFIX = "agent_chat:session:";
+    private static final String MESSAGES_KEY_PREFIX = "agent_chat:msgs:";
+    private static final String META_KEY_PREFIX = "agent_chat:meta:";
+    private static final String META_FIELD_TOKENS = "tokens";
+    private static final String META_FIELD_UPDATED_AT = "updatedAt";
     private static final long SESSION_TTL_DAYS = 7;
-    private static final int MAX_HISTORY_MESSAGES = 20;
+    private static final int SUMMARY_SNIPPET_CHARS = 120;
 
     private final RedisUtil redisUtil;
     private final ObjectMapper objectMapper;
+    private final AgentMemoryService agentMemoryService;
+    private final GlmService glmService;
+    private final Executor asyncExecutor;
 
-    public AgentChatSession loadOrCreateSession(final Integer userId, final String sessionId) {
-        final String key = buildSessionKey(userId, sessionId);
-        final Object raw = redisUtil.get(key);
-        if (raw == null) {
-            final AgentChatSession created = new AgentChatSession(sessionId, userId, List.of(),
-                    System.currentTimeMillis());
-            redisUtil.set(key, created, SESSION_TTL_DAYS, TimeUnit.DAYS);
-            return created;
-        }
+    @Value("${agent.chat.session.max-messages:20}")
+    private int maxMessages;
 
-        if (raw instanceof AgentChatSession) {
-            return (AgentChatSession) raw;
-        }
+    @Value("${agent.chat.session.max-tokens:4000}")
+    private int maxTokens;
 
-        if (raw instanceof Map) {
-            return objectMapper.convertValue(raw, AgentChatSession.class);
-        }
+    @Value("${agent.chat.session.summarize-evicted:true}")
+    private boolean summarizeEvicted;
 
-        return new AgentChatSession(sessionId, userId, List.of(), System.currentTimeMillis());
+    public AgentChatSessionService(
+            final RedisUtil redisUtil,
+            final ObjectMapper objectMapper,
+            final AgentMemoryService agentMemoryService,
+            final GlmService glmService,
+            @Qualifier("asyncExecutor") final Executor asyncExecutor) {
+        this.redisUtil = redisUtil;
+        this.objectMapper = objectMapper;
+        this.agentMemoryService = agentMemoryService;
+        this.glmService = glmService;
+        this.asyncExecutor = asyncExecutor;
     }
 
+    public AgentChatSession loadOrCreateSession(final Integer userId, final String sessionId) {
+        final List<ChatMessageDTO> history = getHistory(userId, sessionId);
+        final Object updatedAt = redisUtil.hashGet(buildMetaKey(userId, sessionId), META_FIELD_UPDATED_AT);
+        final long updatedAtEpochMs = updatedAt instanceof Number ? ((Number) updatedAt).longValue()
+                : System.currentTimeMillis();
+        return new AgentChatSession(sessionId, userId, history, updatedAtEpochMs);
+    }
+
+    /**
+     * 追加一轮对话：只写入本轮两条消息并增量维护 token 计数，不再整体读写历史
+     */
     public void appendTurn(
             final Integer userId,
             final String sessionId,
             final ChatMessageDTO userMessage,
             final ChatMessageDTO assistantMessage) {
 
-        final AgentChatSession session = loadOrCreateSession(userId, sessionId);
-        final List<ChatMessageDTO> nextHistory = new ArrayList<>();
-        if (session.history() != null) {
-            nextHistory.addAll(session.history());
-        }
+        migrateLegacySession(userId, sessionId);
 
-        nextHistory.add(userMessage);
-        nextHistory.add(assistantMessage);
+        final String messagesKey = buildMessagesKey(userId, sessionId);
+        final String metaKey = buildMetaKey(userId, sessionId);
 
-        final List<ChatMessageDTO> trimmed = trimToLast(nextHistory, MAX_HISTORY_MESSAGES);
+        final long size = redisUtil.rightPushAll(messagesKey, encode(userMessage), encode(assistantMessage));
+        final long tokens = redisUtil.hashIncrement(metaKey, META_FIELD_TOKENS,
+                TokenEstimator.estimate(userMessage.getContent())
+                        + TokenEstimator.estimate(assistantMessage.getContent()));
+        redisUtil.hashPut(metaKey, META_FIELD_UPDATED_AT, System.currentTimeMillis());
 
-        final AgentChatSession updated = new AgentChatSession(sessionId, userId, trimmed, System.currentTimeMillis());
-        redisUtil.set(buildSessionKey(userId, sessionId), updated, SESSION_TTL_DAYS, TimeUnit.DAYS);
+        if (size > maxMessages || tokens > maxTokens) {
+            evictOverflow(userId, sessionId, size, tokens);
+        }
+
+        redisUtil.expire(messagesKey, SESSION_TTL_DAYS, TimeUnit.DAYS);
+        redisUtil.expire(metaKey, SESSION_TTL_DAYS, TimeUnit.DAYS);
     }
 
     public List<ChatMessageDTO> getHistory(final Integer userId, final String sessionId) {
-        final AgentChatSession session = loadOrCreateSession(userId, sessionId);
-        return session.history() == null ? List.of() : session.history();
+        migrateLegacySession(userId, sessionId);
+
+        final List<Object> raw = redisUtil.listRange(buildMessagesKey(userId, sessionId), 0, -1);
+        if (raw == null || raw.isEmpty()) {
+            return List.of();
+        }
+        final List<ChatMessageDTO> history = new ArrayList<>(raw.size());
+        for (Object item : raw) {
+            final ChatMessageDTO message = decode(item);
+            if (message != null) {
+                history.add(message);
+            }
+        }
+        return history;
+    }
+
+    /**
+     * 按整轮（用户 + 助手两条）从头部淘汰，直到同时满足条数与 token 预算；最近一轮始终保留
+     */
+    private void evictOverflow(final Integer userId, final String sessionId, final long size, final long tokens) {
+        final String messagesKey = buildMessagesKey(userId, sessionId);
+        final List<Object> raw = redisUtil.listRange(messagesKey, 0, size - 3);
+        if (raw == null || raw.isEmpty()) {
+            return;
+        }
+
+        int evictCount = 0;
+        long remainingSize = size;
+        long remainingTokens = tokens;
+        long evictedTokens = 0;
+        final List<ChatMessageDTO> evicted = new ArrayList<>();
+        while (evictCount + 1 < raw.size() && (remainingSize > maxMessages || remainingTokens > maxTokens)) {
+            for (int i = 0; i < 2; i++) {
+                final ChatMessageDTO message = decode(raw.get(evictCount++));
+                if (message != null) {
+                    final int messageTokens = TokenEstimator.estimate(message.getContent());
+                    evictedTokens += messageTokens;
+                    remainingTokens -= messageTokens;
+                    evicted.add(message);
+                }
+                remainingSize--;
+            }
+        }
+        if (evictCount == 0) {
+            return;
+        }
+
+        redisUtil.listTrim(messagesKey, evictCount, -1);
+        redisUtil.hashIncrement(buildMetaKey(userId, sessionId), META_FIELD_TOKENS, -evictedTokens);
+        log.info("[agent-chat] evicted messages userId={} sessionId={} count={} tokens={}", userId, sessionId,
+                evictCount, evictedTokens);
+
+        if (summarizeEvicted && !evicted.isEmpty()) {
+            asyncExecutor.execute(() -> summarizeToMemory(userId, sessionId, evicted));
+        }
+    }
+
+    private void summarizeToMemory(final Integer userId, final String sessionId, final List<ChatMessageDTO> evicted) {
+        String summary;
+        try {
+            final List<ChatMessageDTO> messages = new ArrayList<>();
+            messages.add(new ChatMessageDTO("system",
+                    "请用中文将以下对话压缩为不超过150字的要点摘要，只保留用户关心的问题、结论和待办，不要编造内容。"));
+            messages.add(new ChatMessageDTO("user", formatTranscript(evicted)));
+            summary = glmService.chat(messages).getContent();
+        } catch (Exception e) {
+            log.warn("[agent-chat] summarize evicted turns failed, fallback to snippets userId={} sessionId={}",
+                    userId, sessionId, e);
+            summary = null;
+        }
+
+        if (summary == null || summary.isBlank()) {
+            summary = formatTranscript(evicted);
+        }
+
+        try {
+            agentMemoryService.appendMemory(userId, AgentMemoryType.CHAT_SUMMARY, summary.trim());
+        } catch (Exception e) {
+            log.warn("[agent-chat] save chat summary failed userId={} sessionId={}", userId, sessionId, e);
+        }
     }
 
-    private String buildSessionKey(final Integer userId, final String sessionId) {
-        return SESSION_KEY_PREFIX + userId + ":" + sessionId;
+    private String formatTranscript(final List<ChatMessageDTO> messages) {
+        final StringBuilder sb = new StringBuilder();
+        for (ChatMessageDTO message : messages) {
+            final String content = message.getContent() == null ? "" : message.getContent().trim();
+            sb.append("user".equals(message.getRole()) ? "用户：" : "助手：")
+                    .append(content.length() > SUMMARY_SNIPPET_CHARS
+                            ? content.substring(0, SUMMARY_SNIPPET_CHARS) + "..."
+                            : content)
+                    .append('\n');
+        }
+        return sb.toString().trim();
     }
 
-    private List<ChatMessageDTO> trimToLast(final List<ChatMessageDTO> messages, final int limit) {
-        if (messages.size() <= limit) {
-            return messages;
+    /**
+     * 旧版会话以整个 AgentChatSession 对象存储，首次访问时迁移为列表结构
+     */
+    private void migrateLegacySession(final Integer userId, final String sessionId) {
+        final String legacyKey = LEGACY_SESSION_KEY_PREFIX + userId + ":" + sessionId;
+        final Object raw = redisUtil.get(legacyKey);
+        if (raw == null) {
+            return;
+        }
+
+        AgentChatSession legacy = null;
+        if (raw instanceof AgentChatSession) {
+            legacy = (AgentChatSession) raw;
+        } else if (raw instanceof Map) {
+            legacy = objectMapper.convertValue(raw, AgentChatSession.class);
+        }
+        redisUtil.delete(legacyKey);
+
+        if (legacy == null || legacy.history() == null || legacy.history().isEmpty()) {
+            return;
         }
-        return new ArrayList<>(messages.subList(messages.size() - limit, messages.size()));
+
+        final String messagesKey = buildMessagesKey(userId, sessionId);
+        final String metaKey = buildMetaKey(userId, sessionId);
+        long tokens = 0;
+        final Object[] encoded = new Object[legacy.history().size()];
+        for (int i = 0; i < encoded.length; i++) {
+            final ChatMessageDTO message = legacy.history().get(i);
+            encoded[i] = encode(message);
+            tokens += TokenEstimator.estimate(message.getContent());
+        }
+        redisUtil.rightPushAll(messagesKey, encoded);
+        redisUtil.hashIncrement(metaKey, META_FIELD_TOKENS, tokens);
+        redisUtil.hashPut(metaKey, META_FIELD_UPDATED_AT,
+                legacy.updatedAtEpochMs() == null ? System.currentTimeMillis() : legacy.updatedAtEpochMs());
+        redisUtil.expire(messagesKey, SESSION_TTL_DAYS, TimeUnit.DAYS);
+        redisUtil.expire(metaKey, SESSION_TTL_DAYS, TimeUnit.DAYS);
+    }
+
+    static String encode(final ChatMessageDTO message) {
+        final String role = message.getRole() == null ? "user" : message.getRole();
+        final String content = message.getContent() == null ? "" : message.getContent();
+        return role.charAt(0) + "|" + content;
+    }
+
+    static ChatMessageDTO decode(final Object raw) {
+        if (!(raw instanceof String)) {
+            return null;
+        }
+        final String value = (String) raw;
+        if (value.length() < 2 || value.charAt(1) != '|') {
+            return null;
+        }
+        final String role = switch (value.charAt(0)) {
+            case 'a' -> "assistant";
+            case 's' -> "system";
+            default -> "user";
+        };
+        return new ChatMessageDTO(role, value.substring(2));
+    }
+
+    private String buildMessagesKey(final Integer userId, final String sessionId) {
+        return MESSAGES_KEY_PREFIX + userId + ":" + sessionId;
+    }
+
+    private String buildMetaKey(final Integer userId, final String sessionId) {
+        return META_KEY_PREFIX + userId + ":" + sessionId;
     }
 }
@@ -0,0 +1,204 @@
+package com.pandora.backend.agent.service;
+
+import com.pandora.backend.entity.AiAnalysis;
+import com.pandora.backend.entity.AiAnalysisBatch;
+import com.pandora.backend.repository.AiAnalysisBatchRepository;
+import com.pandora.backend.repository.AiAnalysisRepository;
+import com.pandora.backend.repository.LogRepository;
+import com.pandora.backend.util.RedisUtil;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 离线批量生成 AI 工作分析
+ * 在低峰时段为近三周活跃的员工预先生成分析，交互路径直接读取最新一条记录
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class AiAnalysisBatchService {
+
+    private static final String LOCK_KEY = "ai:analysis:batch:lock";
+    private static final long LOCK_TIMEOUT_HOURS = 4;
+
+    private final WorkReportAgentService workReportAgentService;
+    private final LogRepository logRepository;
+    private final AiAnalysisRepository aiAnalysisRepository;
+    private final AiAnalysisBatchRepository aiAnalysisBatchRepository;
+    private final RedisUtil redisUtil;
+
+    @Autowired
+    @Qualifier("aiBatchExecutor")
+    private ThreadPoolTaskExecutor aiBatchExecutor;
+
+    @Value("${ai.analysis.batch.enabled:true}")
+    private boolean enabled;
+
+    @Value("${ai.analysis.batch.concurrency:2}")
+    private int concurrency;
+
+    @Value("${ai.analysis.batch.min-interval-ms:1500}")
+    private long minIntervalMs;
+
+    private final AtomicBoolean running = new AtomicBoolean(false);
+    private final Object rateLock = new Object();
+    private final Object progressLock = new Object();
+    private long nextPermitAtMs;
+
+    /**
+     * 低峰时段内定时触发，只把批次交给 aiBatchExecutor 后立即返回；
+     * 当天批次已完成时直接返回，未完成时从中断处续跑，本节点上一轮未结束时不重复提交
+     */
+    @Scheduled(cron = "${ai.analysis.batch.cron:0 */30 1-5 * * ?}")
+    public void scheduledRun() {
+        if (!enabled || !running.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            aiBatchExecutor.execute(() -> {
+                try {
+                    runDailyBatch();
+                } finally {
+                    running.set(false);
+                }
+            });
+        } catch (RuntimeException e) {
+            running.set(false);
+            log.warn("[ai-batch] submit batch failed", e);
+        }
+    }
+
+    public void runDailyBatch() {
+        final String lockValue = UUID.randomUUID().toString();
+        if (!Boolean.TRUE.equals(redisUtil.tryLock(LOCK_KEY, lockValue, LOCK_TIMEOUT_HOURS, TimeUnit.HOURS))) {
+            log.info("[ai-batch] another node is running the batch, skip");
+            return;
+        }
+
+        try {
+            final AiAnalysisBatch batch = loadOrCreateBatch(LocalDate.now());
+            if (AiAnalysisBatch.STATUS_COMPLETED.equals(batch.getStatus())) {
+                return;
+            }
+            processBatch(batch);
+        } catch (Exception e) {
+            log.error("[ai-batch] batch run failed", e);
+        } finally {
+            redisUtil.releaseLock(LOCK_KEY, lockValue);
+        }
+    }
+
+    private AiAnalysisBatch loadOrCreateBatch(final LocalDate batchDate) {
+        return aiAnalysisBatchRepository.findByBatchDate(batchDate).orElseGet(() -> {
+            final AiAnalysisBatch batch = new AiAnalysisBatch();
+            batch.setBatchDate(batchDate);
+            batch.setStatus(AiAnalysisBatch.STATUS_RUNNING);
+            batch.setStartedTime(LocalDateTime.now());
+            return aiAnalysisBatchRepository.save(batch);
+        });
+    }
+
+    private void processBatch(final AiAnalysisBatch batch) {
+        final List<Integer> employeeIds = logRepository
+                .findActiveEmployeeIdsSince(batch.getStartedTime().minusWeeks(3));
+
+        // 续跑时计数从头统计，已完成的员工记为跳过
+        batch.setTotalCount(employeeIds.size());
+        batch.setSuccessCount(0);
+        batch.setSkippedCount(0);
+        batch.setFailedCount(0);
+        aiAnalysisBatchRepository.save(batch);
+        log.info("[ai-batch] start batchDate={} employees={} concurrency={}", batch.getBatchDate(),
+                employeeIds.size(), concurrency);
+
+        // 调度线程本身占用 aiBatchExecutor 的一个线程，其余 concurrency 个线程处理员工
+        final List<Future<?>> futures = new ArrayList<>();
+        for (Integer employeeId : employeeIds) {
+            futures.add(aiBatchExecutor.submit(() -> processEmployee(batch, employeeId)));
+        }
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                futures.forEach(f -> f.cancel(true));
+                return;
+            } catch (Exception e) {
+                log.warn("[ai-batch] worker failed", e);
+            }
+        }
+
+        // 有失败时保持 RUNNING，低峰窗口内的下一次调度只重试失败的员工
+        if (batch.getFailedCount() == 0) {
+            batch.setStatus(AiAnalysisBatch.STATUS_COMPLETED);
+            batch.setFinishedTime(LocalDateTime.now());
+        }
+        aiAnalysisBatchRepository.save(batch);
+        log.info("[ai-batch] done batchDate={} total={} success={} skipped={} failed={}", batch.getBatchDate(),
+                batch.getTotalCount(), batch.getSuccessCount(), batch.getSkippedCount(), batch.getFailedCount());
+    }
+
+    private void processEmployee(final AiAnalysisBatch batch, final Integer employeeId) {
+        if (aiAnalysisRepository.existsByEmployeeIdAndCreatedTimeAfter(employeeId, batch.getStartedTime())) {
+            recordProgress(batch, 0, 1, 0);
+            return;
+        }
+
+        try {
+            awaitRatePermit();
+            final AiAnalysis saved = workReportAgentService.generateAndSaveWorkReport(employeeId);
+            if (saved != null) {
+                recordProgress(batch, 1, 0, 0);
+            } else {
+                recordProgress(batch, 0, 0, 1);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.warn("[ai-batch] generate failed employeeId={}", employeeId, e);
+            recordProgress(batch, 0, 0, 1);
+        }
+    }
+
+    /**
+     * 相邻两次模型调用之间至少间隔 minIntervalMs，避免批处理打满上游配额
+     */
+    private void awaitRatePermit() throws InterruptedException {
+        synchronized (rateLock) {
+            final long now = System.currentTimeMillis();
+            final long waitMs = nextPermitAtMs - now;
+            if (waitMs > 0) {
+                Thread.sleep(waitMs);
+            }
+            nextPermitAtMs = Math.max(now, nextPermitAtMs) + minIntervalMs;
+        }
+    }
+
+    private void recordProgress(
+            final AiAnalysisBatch batch,
+            final int success,
+            final int skipped,
+            final int failed) {
+        synchronized (progressLock) {
+            batch.setSuccessCount(batch.getSuccessCount() + success);
+            batch.setSkippedCount(batch.getSkippedCount() + skipped);
+            batch.setFailedCount(batch.getFailedCount() + failed);
+            aiAnalysisBatchRepository.save(batch);
+        }
+    }
+}
@@ -2,40 +2,71 @@ package com.pandora.backend.agent.service;
 
 import com.pandora.backend.agent.model.AttachmentInsight;
 import com.pandora.backend.agent.model.AttachmentMeta;
+import com.pandora.backend.entity.AttachmentInsightCache;
 import com.pandora.backend.entity.Log;
 import com.pandora.backend.entity.LogAttachment;
 import com.pandora.backend.entity.Task;
 import com.pandora.backend.entity.TaskAttachment;
+import com.pandora.backend.repository.AttachmentInsightCacheRepository;
 import com.pandora.backend.repository.LogAttachmentRepository;
 import com.pandora.backend.repository.LogRepository;
 import com.pandora.backend.repository.TaskAttachmentRepository;
 import com.pandora.backend.repository.TaskRepository;
 import com.pandora.backend.service.GlmVisionClient;
 import com.pandora.backend.service.OssService;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 @Service
 @Slf4j
-@RequiredArgsConstructor
 public class AttachmentInsightService {
 
     private static final int MAX_READ_ATTACHMENTS = 2;
     private static final int PRESIGNED_URL_EXPIRE_SECONDS = 300;
+    private static final String ANALYZE_PROMPT =
+            "Please summarize this attachment. Focus on tasks, progress, and potential risks. "
+                    + "Return Chinese text within 150 characters.";
 
     private final LogRepository logRepository;
     private final TaskRepository taskRepository;
     private final LogAttachmentRepository logAttachmentRepository;
     private final TaskAttachmentRepository taskAttachmentRepository;
+    private final AttachmentInsightCacheRepository attachmentInsightCacheRepository;
     private final OssService ossService;
     private final GlmVisionClient glmVisionClient;
+    private final Executor visionExecutor;
+
+    public AttachmentInsightService(
+            final LogRepository logRepository,
+            final TaskRepository taskRepository,
+            final LogAttachmentRepository logAttachmentRepository,
+            final TaskAttachmentRepository taskAttachmentRepository,
+            final AttachmentInsightCacheRepository attachmentInsightCacheRepository,
+            final OssService ossService,
+            final GlmVisionClient glmVisionClient,
+            @Qualifier("visionExecutor") final Executor visionExecutor) {
+        this.logRepository = logRepository;
+        this.taskRepository = taskRepository;
+        this.logAttachmentRepository = logAttachmentRepository;
+        this.taskAttachmentRepository = taskAttachmentRepository;
+        this.attachmentInsightCacheRepository = attachmentInsightCacheRepository;
+        this.ossService = ossService;
+        this.glmVisionClient = glmVisionClient;
+        this.visionExecutor = visionExecutor;
+    }
 
     public List<AttachmentMeta> listLogAttachments(final Integer userId, final Integer logId) {
         final Optional<Log> logOpt = logRepository.findByIdWithDetails(logId);
@@ -81,15 +112,130 @@ public class AttachmentInsightService {
         return result;
     }
 
+    /**
+     * 读取附件摘要：先批量查缓存，未命中的在 visionExecutor 上并行解析
+     */
     public List<AttachmentInsight> maybeAnalyzeAttachments(final List<AttachmentMeta> metas) {
         final List<AttachmentMeta> targets = selectTargets(metas);
-        final List<AttachmentInsight> insights = new ArrayList<>();
+        if (targets.isEmpty()) {
+            return List.of();
+        }
+
+        final Map<String, AttachmentInsightCache> cached = loadCached(targets);
+        final List<CompletableFuture<AttachmentInsight>> futures = new ArrayList<>();
         for (AttachmentMeta meta : targets) {
-            insights.add(analyze(meta));
+            final AttachmentInsightCache hit = cached.get(meta.storedFilename());
+            if (hit != null) {
+                futures.add(CompletableFuture.completedFuture(toInsight(meta, hit)));
+            } else {
+                futures.add(CompletableFuture.supplyAsync(() -> resolveInsight(meta), visionExecutor));
+            }
+        }
+
+        final List<AttachmentInsight> insights = new ArrayList<>();
+        for (CompletableFuture<AttachmentInsight> future : futures) {
+            insights.add(future.join());
         }
+        log.info("[attachment-insight] resolved targets={} cacheHits={}", targets.size(), cached.size());
         return insights;
     }
 
+    /**
+     * 附件上传后在后台预先生成摘要，后续报告直接命中缓存
+     */
+    @Async("visionExecutor")
+    public void precomputeInsight(final Long attachmentId, final String storedFilename, final String fileType,
+            final String originalFilename) {
+        if (!isAnalyzable(fileType)) {
+            return;
+        }
+        if (attachmentInsightCacheRepository.findByStoredFilename(storedFilename).isPresent()) {
+            return;
+        }
+        final AttachmentMeta meta = new AttachmentMeta(attachmentId, originalFilename, storedFilename, fileType,
+                null, null);
+        final AttachmentInsight insight = resolveInsight(meta);
+        log.info("[attachment-insight] precomputed attachmentId={} storedFilename={} ok={}", attachmentId,
+                storedFilename, insight.error() == null);
+    }
+
+    private Map<String, AttachmentInsightCache> loadCached(final List<AttachmentMeta> targets) {
+        final List<String> keys = new ArrayList<>();
+        for (AttachmentMeta meta : targets) {
+            keys.add(meta.storedFilename());
+        }
+
+        final Map<String, AttachmentInsightCache> result = new HashMap<>();
+        try {
+            for (AttachmentInsightCache entry : attachmentInsightCacheRepository.findByStoredFilenameIn(keys)) {
+                result.put(entry.getStoredFilename(), entry);
+            }
+        } catch (Exception e) {
+            log.warn("[attachment-insight] cache lookup failed keys={}", keys, e);
+        }
+        return result;
+    }
+
+    /**
+     * 未命中存储名时，按内容哈希复用其它附件的摘要；仍未命中才调用视觉模型
+     */
+    private AttachmentInsight resolveInsight(final AttachmentMeta meta) {
+        final String contentHash = safeContentHash(meta);
+        if (contentHash != null) {
+            final Optional<AttachmentInsightCache> sameContent = attachmentInsightCacheRepository
+                    .findFirstByContentHash(contentHash);
+            if (sameContent.isPresent()) {
+                saveCache(meta, contentHash, sameContent.get().getSummary());
+                return toInsight(meta, sameContent.get());
+            }
+        }
+
+        final AttachmentInsight insight = analyze(meta);
+        if (insight.error() == null && insight.summary() != null) {
+            saveCache(meta, contentHash, insight.summary());
+        }
+        return insight;
+    }
+
+    private String safeContentHash(final AttachmentMeta meta) {
+        try {
+            return ossService.getObjectETag(meta.storedFilename());
+        } catch (Exception e) {
+            log.warn("[attachment-insight] content hash unavailable attachmentId={} storedFilename={}",
+                    meta.attachmentId(), meta.storedFilename());
+            return null;
+        }
+    }
+
+    private void saveCache(final AttachmentMeta meta, final String contentHash, final String summary) {
+        try {
+            final AttachmentInsightCache entry = new AttachmentInsightCache();
+            entry.setAttachmentId(meta.attachmentId());
+            entry.setStoredFilename(meta.storedFilename());
+            entry.setContentHash(contentHash);
+            entry.setFileType(meta.fileType());
+            entry.setSummary(summary);
+            attachmentInsightCacheRepository.save(entry);
+        } catch (DataIntegrityViolationException e) {
+            // 并发的预计算与报告可能同时写入同一附件，保留先写入的一条即可
+            log.debug("[attachment-insight] cache entry already exists storedFilename={}", meta.storedFilename());
+        } catch (Exception e) {
+            log.warn("[attachment-insight] cache save failed attachmentId={}", meta.attachmentId(), e);
+        }
+    }
+
+    private AttachmentInsight toInsight(final AttachmentMeta meta, final AttachmentInsightCache entry) {
+        return new AttachmentInsight(meta.attachmentId(), meta.originalFilename(), meta.fileType(), null,
+                entry.getSummary(), null);
+    }
+
+    private boolean isAnalyzable(final String fileType) {
+        if (fileType == null) {
+            return false;
+        }
+        return fileType.startsWith("image/") || fileType.equalsIgnoreCase("application/pdf");
+    }
+
     private List<AttachmentMeta> selectTargets(final List<AttachmentMeta> metas) {
         if (metas.isEmpty()) {
             return List.of();
@@ -104,10 +250,7 @@ public class AttachmentInsightService {
             if (result.size() >= MAX_READ_ATTACHMENTS) {
                 break;
             }
-            if (meta.fileType() == null) {
-                continue;
-            }
-            if (meta.fileType().startsWith("image/") || meta.fileType().equalsIgnoreCase("application/pdf")) {
+            if (isAnalyzable(meta.fileType())) {
                 result.add(meta);
             }
         }
@@ -125,11 +268,8 @@ public class AttachmentInsightService {
                     "OSS presign failed: " + e.getMessage());
         }
 
-        final String prompt = "Please summarize this attachment. Focus on tasks, progress, and potential risks. "
-                + "Return Chinese text within 150 characters.";
-
         try {
-            final String summary = glmVisionClient.analyzeAttachmentUrl(url, meta.fileType(), prompt);
+            final String summary = glmVisionClient.analyzeAttachmentUrl(url, meta.fileType(), ANALYZE_PROMPT);
             return new AttachmentInsight(meta.attachmentId(), meta.originalFilename(), meta.fileType(), url, summary,
                     null);
         } catch (Exception e) {
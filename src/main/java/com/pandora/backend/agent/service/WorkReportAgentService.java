@@ -15,12 +15,15 @@ import com.pandora.backend.entity.Employee;
 import com.pandora.backend.entity.Log;
 import com.pandora.backend.entity.Project;
 import com.pandora.backend.entity.Task;
+import com.pandora.backend.enums.Status;
 import com.pandora.backend.repository.AiAnalysisRepository;
 import com.pandora.backend.repository.EmployeeRepository;
 import com.pandora.backend.repository.LogRepository;
 import com.pandora.backend.repository.ProjectRepository;
 import com.pandora.backend.repository.TaskRepository;
 import com.pandora.backend.service.AgentMemoryService;
+import com.pandora.backend.service.GlmService;
+import com.pandora.backend.service.PromptBudgetService;
 import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -34,11 +37,13 @@ import java.net.HttpURLConnection;
 import java.net.URI;
 import java.net.URL;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
-import java.util.Objects;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -61,6 +66,8 @@ public class WorkReportAgentService {
 
     private final AttachmentInsightService attachmentInsightService;
     private final AgentMemoryService agentMemoryService;
+    private final GlmService glmService;
+    private final PromptBudgetService promptBudgetService;
     private final EntityManager entityManager;
 
     private record ChatContextData(
@@ -74,7 +81,58 @@ public class WorkReportAgentService {
             WorkReportTrendSummary trendSummary) {
     }
 
+    private record WorkReportPlan(
+            List<ChatMessageDTO> messages,
+            LocalDateTime periodStart,
+            LocalDateTime periodEnd,
+            int logCount,
+            int taskCount) {
+    }
+
     public void generateWorkReport(final Integer userId, final SseEmitter emitter) {
+        final WorkReportPlan plan = prepareWorkReport(userId);
+        chatStreamAndSave(plan.messages(), emitter, userId, plan.periodStart(), plan.periodEnd(), plan.logCount(),
+                plan.taskCount());
+        log.info("[agent-plan] chatStream started userId={}", userId);
+    }
+
+    /**
+     * 非流式生成并保存工作分析，供离线批处理使用
+     *
+     * @return 保存后的分析记录，失败时返回 null
+     */
+    public AiAnalysis generateAndSaveWorkReport(final Integer userId) {
+        final WorkReportPlan plan = prepareWorkReport(userId);
+        final String content = glmService.chat(plan.messages()).getContent();
+        return saveAiAnalysis(userId, content, plan.periodStart(), plan.periodEnd(), plan.logCount(),
+                plan.taskCount());
+    }
+
+    /**
+     * 若存在足够新的已保存分析，直接通过 SSE 回放，避免实时调用模型
+     *
+     * @return 是否已回放
+     */
+    public boolean replayLatestReport(final Integer userId, final SseEmitter emitter, final Duration maxAge) {
+        final Optional<AiAnalysis> latest = aiAnalysisRepository.findLatestByEmployeeId(userId);
+        if (latest.isEmpty() || latest.get().getFullContent() == null
+                || latest.get().getCreatedTime().isBefore(LocalDateTime.now().minus(maxAge))) {
+            return false;
+        }
+
+        try {
+            emitter.send(SseEmitter.event().name("message").data(latest.get().getFullContent()));
+            emitter.send(SseEmitter.event().name("done").data("[DONE]"));
+            emitter.complete();
+            log.info("[agent-plan] replayed stored report userId={} analysisId={}", userId,
+                    latest.get().getAnalysisId());
+        } catch (Exception e) {
+            emitter.completeWithError(e);
+        }
+        return true;
+    }
+
+    private WorkReportPlan prepareWorkReport(final Integer userId) {
         log.info("[agent-plan] start generateWorkReport userId={}", userId);
         final LocalDateTime now = LocalDateTime.now();
         final LocalDateTime periodStart = now.minusWeeks(3);
@@ -123,8 +181,7 @@ public class WorkReportAgentService {
         final List<ChatMessageDTO> messages = buildPrompt(employee, logs, tasks, attachmentMetas, attachmentInsights,
                 projects, memories, trendSummary);
         log.info("[agent-plan] prompt built userId={} messages={}", userId, messages.size());
-        chatStreamAndSave(messages, emitter, userId, periodStart, now, logs.size(), tasks.size());
-        log.info("[agent-plan] chatStream started userId={}", userId);
+        return new WorkReportPlan(messages, periodStart, now, logs.size(), tasks.size());
     }
 
     public List<ChatMessageDTO> buildChatContextMessages(
@@ -164,40 +221,39 @@ public class WorkReportAgentService {
     }
 
     private List<ChatMessageDTO> buildChatContextPrompt(final ChatContextData data) {
-        final List<ChatMessageDTO> messages = new ArrayList<>();
+        final List<ChatMessageDTO> leading = new ArrayList<>();
 
-        messages.add(new ChatMessageDTO("system", "Context for user work history. Use it to answer questions."));
+        leading.add(new ChatMessageDTO("system", "Context for user work history. Use it to answer questions."));
 
         if (data.employee() != null
                 && data.employee().getMbti() != null
                 && !data.employee().getMbti().isEmpty()) {
-            messages.add(new ChatMessageDTO("system", "User MBTI: " + data.employee().getMbti()));
+            leading.add(new ChatMessageDTO("system", "User MBTI: " + data.employee().getMbti()));
         }
 
-        messages.add(new ChatMessageDTO("system", "Trend summary:\n"
+        leading.add(new ChatMessageDTO("system", "Trend summary:\n"
                 + "WORK: " + data.trendSummary().workTrend() + "\n"
                 + "EMOTION: " + data.trendSummary().emotionTrend() + "\n"
                 + "TASK: " + data.trendSummary().taskTrend()));
 
+        final List<PromptBudgetService.Section> sections = new ArrayList<>();
         if (!data.memories().isEmpty()) {
-            messages.add(new ChatMessageDTO("system", "Agent memory (latest):\n" + formatMemories(data.memories())));
+            sections.add(new PromptBudgetService.Section("memories", 3, "Agent memory (latest):",
+                    memoryLines(data.memories())));
         }
-
-        messages.add(new ChatMessageDTO("system", "Logs (last 3 weeks):\n" + formatLogsAsText(data.logs())));
-        messages.add(new ChatMessageDTO("system", "Tasks (last 3 weeks):\n" + formatTasksAsText(data.tasks())));
-        messages.add(new ChatMessageDTO("system", "Projects:\n" + formatProjectsAsText(data.projects())));
-
+        sections.add(new PromptBudgetService.Section("logs", 1, "Logs (last 3 weeks):", logLines(data.logs())));
+        sections.add(new PromptBudgetService.Section("tasks", 2, "Tasks (last 3 weeks):", taskLines(data.tasks())));
+        sections.add(new PromptBudgetService.Section("projects", 5, "Projects:", projectLines(data.projects())));
         if (!data.attachmentMetas().isEmpty()) {
-            messages.add(new ChatMessageDTO("system",
-                    "Attachment metas:\n" + formatAttachmentMetas(data.attachmentMetas())));
+            sections.add(new PromptBudgetService.Section("attachment_metas", 6, "Attachment metas:",
+                    attachmentMetaLines(data.attachmentMetas())));
         }
-
         if (!data.attachmentInsights().isEmpty()) {
-            messages.add(new ChatMessageDTO("system",
-                    "Attachment insights:\n" + formatAttachmentInsights(data.attachmentInsights())));
+            sections.add(new PromptBudgetService.Section("attachment_insights", 4, "Attachment insights:",
+                    attachmentInsightLines(data.attachmentInsights())));
         }
 
-        return messages.stream().filter(Objects::nonNull).collect(Collectors.toList());
+        return promptBudgetService.assemble("agent_chat_context", leading, sections, List.of());
     }
 
     private List<Log> safeLoadLogs(final Integer userId, final LocalDateTime start, final LocalDateTime end) {
@@ -346,13 +402,13 @@ public class WorkReportAgentService {
             final List<Project> projects,
             final List<AgentMemory> memories,
             final WorkReportTrendSummary trendSummary) {
-        final List<ChatMessageDTO> messages = new ArrayList<>();
+        final List<ChatMessageDTO> leading = new ArrayList<>();
 
-        messages.add(new ChatMessageDTO(
+        leading.add(new ChatMessageDTO(
                 "system",
                 "你是一个智能工作助手，专门帮助用户分析工作日志和任务数据，提供个性化的工作建议。你必须使用中文回复。"));
 
-        messages.add(new ChatMessageDTO(
+        leading.add(new ChatMessageDTO(
                 "system",
                 "你的回答必须严格按照以下三个主题结构组织，每个主题用纯文本标题开头（不使用emoji）：\n\n"
                         + "【工作节奏建议】\n"
@@ -367,44 +423,44 @@ public class WorkReportAgentService {
                         + "不要输出或猜测任何敏感信息（如密码、验证码、密钥、完整手机号等）。"));
 
         if (employee != null && employee.getMbti() != null && !employee.getMbti().isEmpty()) {
-            messages.add(new ChatMessageDTO("system", "用户的MBTI性格类型是：" + employee.getMbti()));
+            leading.add(new ChatMessageDTO("system", "用户的MBTI性格类型是：" + employee.getMbti()));
         }
 
-        messages.add(new ChatMessageDTO("system", "Long-term memory (trend summary):\n"
+        leading.add(new ChatMessageDTO("system", "Long-term memory (trend summary):\n"
                 + "WORK: " + trendSummary.workTrend() + "\n"
                 + "EMOTION: " + trendSummary.emotionTrend() + "\n"
                 + "TASK: " + trendSummary.taskTrend()));
 
+        final List<PromptBudgetService.Section> sections = new ArrayList<>();
         if (!memories.isEmpty()) {
-            messages.add(
-                    new ChatMessageDTO("system", "Long-term memory (latest entries):\n" + formatMemories(memories)));
+            sections.add(new PromptBudgetService.Section("memories", 3, "Long-term memory (latest entries):",
+                    memoryLines(memories)));
         }
-
-        messages.add(new ChatMessageDTO("system", "以下是用户近三周的工作日志（共 " + logs.size() + " 条）：\n"
-                + formatLogsAsText(logs)));
-
-        messages.add(new ChatMessageDTO("system", "以下是用户近三周相关的任务（共 " + tasks.size() + " 个）：\n"
-                + formatTasksAsText(tasks)));
-
-        messages.add(new ChatMessageDTO("system", "以下是用户相关的项目（共 " + projects.size() + " 个）：\n"
-                + formatProjectsAsText(projects)));
-
-        messages.add(new ChatMessageDTO("system", "附件元信息（共 " + attachmentMetas.size() + " 个）：\n"
-                + formatAttachmentMetas(attachmentMetas)));
-
+        sections.add(new PromptBudgetService.Section("logs", 1,
+                "以下是用户近三周的工作日志（共 " + logs.size() + " 条）：", logLines(logs)));
+        sections.add(new PromptBudgetService.Section("tasks", 2,
+                "以下是用户近三周相关的任务（共 " + tasks.size() + " 个）：", taskLines(tasks)));
+        sections.add(new PromptBudgetService.Section("projects", 5,
+                "以下是用户相关的项目（共 " + projects.size() + " 个）：", projectLines(projects)));
+        sections.add(new PromptBudgetService.Section("attachment_metas", 6,
+                "附件元信息（共 " + attachmentMetas.size() + " 个）：", attachmentMetaLines(attachmentMetas)));
         if (!attachmentInsights.isEmpty()) {
-            messages.add(new ChatMessageDTO("system", "已解析附件摘要（共 " + attachmentInsights.size() + " 个）：\n"
-                    + formatAttachmentInsights(attachmentInsights)));
+            sections.add(new PromptBudgetService.Section("attachment_insights", 4,
+                    "已解析附件摘要（共 " + attachmentInsights.size() + " 个）：",
+                    attachmentInsightLines(attachmentInsights)));
         }
 
-        messages.add(new ChatMessageDTO(
+        final List<ChatMessageDTO> trailing = List.of(new ChatMessageDTO(
                 "user",
                 "请基于我近三周的工作日志、任务、以及可用的附件摘要，生成工作分析报告。"));
 
-        return messages;
+        return promptBudgetService.assemble("work_report", leading, sections, trailing);
     }
 
-    private String formatLogsAsText(final List<Log> logs) {
+    /**
+     * 日志按时间倒序，越新越先进入预算
+     */
+    private List<String> logLines(final List<Log> logs) {
         return logs.stream()
                 .sorted((l1, l2) -> l2.getCreatedTime().compareTo(l1.getCreatedTime()))
                 .limit(LOG_LIMIT)
@@ -412,24 +468,28 @@ public class WorkReportAgentService {
                         + " " + (log.getEmoji() == null ? "平静" : log.getEmoji().getDesc())
                         + " " + log.getContent()
                         + (log.getTask() != null ? " [关联任务: " + log.getTask().getTitle() + "]" : ""))
-                .collect(Collectors.joining("\n"));
+                .collect(Collectors.toList());
     }
 
-    private String formatTasksAsText(final List<Task> tasks) {
+    /**
+     * 任务按未完成优先、优先级降序、截止时间升序排列
+     */
+    private List<String> taskLines(final List<Task> tasks) {
         return tasks.stream()
+                .sorted(Comparator
+                        .comparing((Task task) -> task.getTaskStatus() != null
+                                && task.getTaskStatus() == Status.COMPLETED.getCode())
+                        .thenComparing(Task::getTaskPriority, Comparator.nullsLast(Comparator.reverseOrder()))
+                        .thenComparing(Task::getEndTime, Comparator.nullsLast(Comparator.naturalOrder())))
                 .limit(TASK_LIMIT)
                 .map(task -> "- [status=" + task.getTaskStatus() + "] [priority=" + task.getTaskPriority() + "] "
                         + task.getTitle()
                         + (task.getEndTime() != null ? " (截止: " + task.getEndTime().format(DATE_FORMATTER) + ")" : "")
                         + (task.getContent() != null && !task.getContent().isEmpty() ? " - " + task.getContent() : ""))
-                .collect(Collectors.joining("\n"));
+                .collect(Collectors.toList());
     }
 
-    private String formatProjectsAsText(final List<Project> projects) {
-        if (projects.isEmpty()) {
-            return "(none)";
-        }
-
+    private List<String> projectLines(final List<Project> projects) {
         return projects.stream()
                 .limit(10)
                 .map(project -> "- [status=" + project.getProjectStatus() + "] "
@@ -439,33 +499,30 @@ public class WorkReportAgentService {
                                 : "")
                         + (project.getEndTime() != null ? " (end: " + project.getEndTime().format(DATE_FORMATTER) + ")"
                                 : ""))
-                .collect(Collectors.joining("\n"));
+                .collect(Collectors.toList());
     }
 
-    private String formatMemories(final List<AgentMemory> memories) {
-        if (memories.isEmpty()) {
-            return "(none)";
-        }
-
+    private List<String> memoryLines(final List<AgentMemory> memories) {
         return memories.stream()
                 .limit(10)
                 .map(memory -> "- [" + memory.getMemoryType() + "] " + memory.getContent())
-                .collect(Collectors.joining("\n"));
+                .collect(Collectors.toList());
     }
 
-    private String formatAttachmentMetas(final List<AttachmentMeta> metas) {
-        if (metas.isEmpty()) {
-            return "(none)";
-        }
+    private List<String> attachmentMetaLines(final List<AttachmentMeta> metas) {
         return metas.stream()
                 .limit(20)
                 .map(meta -> "- [id=" + meta.attachmentId() + "] " + meta.originalFilename()
                         + " type=" + meta.fileType() + " size=" + meta.fileSize())
-                .collect(Collectors.joining("\n"));
+                .collect(Collectors.toList());
     }
 
-    private String formatAttachmentInsights(final List<AttachmentInsight> insights) {
+    /**
+     * 解析成功的附件摘要优先
+     */
+    private List<String> attachmentInsightLines(final List<AttachmentInsight> insights) {
         return insights.stream()
+                .sorted(Comparator.comparing((AttachmentInsight insight) -> insight.error() != null))
                 .limit(5)
                 .map(insight -> {
                     final String status = insight.error() == null ? "OK" : "FAILED";
@@ -474,7 +531,7 @@ public class WorkReportAgentService {
                     return "- [" + status + "] " + insight.originalFilename() + ": " + summary
                             + (error.isEmpty() ? "" : " (" + error + ")");
                 })
-                .collect(Collectors.joining("\n"));
+                .collect(Collectors.toList());
     }
 
     private void chatStreamAndSave(
@@ -555,7 +612,7 @@ public class WorkReportAgentService {
         }).start();
     }
 
-    private void saveAiAnalysis(
+    private AiAnalysis saveAiAnalysis(
             final Integer userId,
             final String fullContent,
             final LocalDateTime periodStart,
@@ -577,9 +634,10 @@ public class WorkReportAgentService {
             analysis.setTaskCount(taskCount);
 
             parseAndSetThemes(analysis, fullContent);
-            aiAnalysisRepository.save(analysis);
+            return aiAnalysisRepository.save(analysis);
         } catch (Exception e) {
             log.warn("Save ai_analysis failed", e);
+            return null;
         }
     }
 
@@ -1,11 +1,13 @@
 package com.pandora.backend.config;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
 import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
 
 @Configuration
 @EnableAsync
@@ -21,4 +23,124 @@ public class AsyncExecutorConfig {
         executor.initialize();
         return executor;
     }
+
+    @Bean(name = "visionExecutor")
+    public Executor visionExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(2);
+        executor.setMaxPoolSize(4);
+        executor.setQueueCapacity(100);
+        executor.setThreadNamePrefix("vision-exec-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.initialize();
+        return executor;
+    }
+
+    @Bean(name = "uploadPartExecutor")
+    public Executor uploadPartExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(4);
+        executor.setMaxPoolSize(16);
+        executor.setQueueCapacity(64);
+        executor.setThreadNamePrefix("upload-part-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * 缩略图后台生成线程池；队列满时拒绝，之后查看时再补生成
+     */
+    @Bean(name = "thumbnailExecutor")
+    public Executor thumbnailExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(2);
+        executor.setQueueCapacity(100);
+        executor.setThreadNamePrefix("thumbnail-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * 附件磁盘缓存的后台拉取线程池；队列满时拒绝，该次请求不缓存
+     */
+    @Bean(name = "diskCacheExecutor")
+    public Executor diskCacheExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(2);
+        executor.setMaxPoolSize(4);
+        executor.setQueueCapacity(100);
+        executor.setThreadNamePrefix("disk-cache-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * 本地附件迁移 OSS 的上传线程池，线程数即同时上传的文件数
+     */
+    @Bean(name = "migrationExecutor")
+    public Executor migrationExecutor(@Value("${migration.parallelism:4}") final int parallelism) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(parallelism);
+        executor.setMaxPoolSize(parallelism);
+        executor.setQueueCapacity(200);
+        executor.setThreadNamePrefix("oss-migration-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * BCrypt 专用的 CPU 线程池，线程数默认等于 CPU 核数；队列满时直接拒绝（登录返回 429），
+     * 不占用更多 Tomcat 线程排队等待
+     */
+    @Bean(name = "passwordHashExecutor")
+    public ThreadPoolTaskExecutor passwordHashExecutor(
+            @Value("${auth.password-hash.threads:0}") final int threads,
+            @Value("${auth.password-hash.queue-capacity:64}") final int queueCapacity) {
+        final int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("password-hash-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * AI 分析离线批处理线程池：一个线程负责调度整批，其余 concurrency 个线程逐个员工调用模型；
+     * 定时任务只负责把批次交给这里，不占用 @Scheduled 的单线程
+     */
+    @Bean(name = "aiBatchExecutor")
+    public ThreadPoolTaskExecutor aiBatchExecutor(
+            @Value("${ai.analysis.batch.concurrency:2}") final int concurrency) {
+        final int poolSize = Math.max(1, concurrency) + 1;
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setThreadNamePrefix("ai-batch-");
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * 员工批量导入线程池，同一时间只执行一个导入任务，其余排队；队列满时拒绝
+     */
+    @Bean(name = "employeeImportExecutor")
+    public ThreadPoolTaskExecutor employeeImportExecutor(
+            @Value("${employee-import.queue-capacity:2}") final int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("employee-import-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.initialize();
+        return executor;
+    }
 }
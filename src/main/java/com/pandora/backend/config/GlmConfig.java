@@ -32,6 +32,11 @@ public class GlmConfig {
      */
     private String visionModel = "glm-4.5v";
 
+    /**
+     * 向量模型名称（响应缓存的语义层使用）
+     */
+    private String embeddingModel = "embedding-3";
+
     /**
      * 请求超时时间(秒)
      */
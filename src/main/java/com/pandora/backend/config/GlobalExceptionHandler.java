@@ -1,7 +1,9 @@
 package com.pandora.backend.config;
 
+import com.pandora.backend.security.PasswordHashBusyException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authorization.AuthorizationDeniedException;
@@ -78,6 +80,20 @@ public class GlobalExceptionHandler {
                 .body(Map.of("error", "参数格式错误: " + paramName + "=" + paramValue));
     }
 
+    /**
+     * 密码哈希线程池已满（登录、创建员工、修改密码、批量导入共用），返回 429 让客户端稍后重试
+     */
+    @ExceptionHandler(PasswordHashBusyException.class)
+    public ResponseEntity<Map<String, String>> handlePasswordHashBusy(
+            PasswordHashBusyException ex,
+            HttpServletRequest request) {
+
+        logger.warn("密码哈希繁忙: {}", request.getRequestURI());
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(Map.of("error", "服务器繁忙，请稍后重试"));
+    }
+
     @ExceptionHandler(NoResourceFoundException.class)
     public ResponseEntity<String> handleNoResourceFoundException(
             NoResourceFoundException ex,
@@ -1,27 +1,40 @@
 package com.pandora.backend.config;
 
+import com.pandora.backend.security.AdminWebSession;
+import com.pandora.backend.security.AdminWebSessionService;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import jakarta.servlet.http.HttpSession;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.lang.NonNull;
 import org.springframework.stereotype.Component;
 import org.springframework.web.servlet.HandlerInterceptor;
 
+/**
+ * 管理后台登录拦截
+ * 从 Cookie 中的签名 Token 恢复管理员身份并放入请求属性（adminId/adminName/adminEmail），
+ * 不使用 HttpSession，请求可以落到任意节点
+ */
 @Component
 public class LoginInterceptor implements HandlerInterceptor {
 
+    @Autowired
+    private AdminWebSessionService adminWebSessionService;
+
     @Override
     public boolean preHandle(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response,
             @NonNull Object handler) throws Exception {
-        HttpSession session = request.getSession();
-        Object adminId = session.getAttribute("adminId");
+        AdminWebSession session = adminWebSessionService.resolve(request);
 
         // 如果未登录，重定向到登录页
-        if (adminId == null) {
+        if (session == null) {
             response.sendRedirect("/admin/login");
             return false;
         }
 
+        request.setAttribute("adminId", session.adminId());
+        request.setAttribute("adminName", session.adminName());
+        request.setAttribute("adminEmail", session.adminEmail());
+        adminWebSessionService.renewIfNeeded(response, session);
         return true;
     }
 }
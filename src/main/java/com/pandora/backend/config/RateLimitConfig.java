@@ -0,0 +1,82 @@
+package com.pandora.backend.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 接口限流配置（令牌桶）
+ * 每个用户（未登录时按 IP）有一个全局桶；命中 rules 中第一条匹配路径的规则时再叠加一个路由桶，两个桶都有令牌才放行
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "rate-limit")
+public class RateLimitConfig {
+
+    /**
+     * 是否启用限流
+     */
+    private boolean enabled = true;
+
+    /**
+     * 单用户全局桶
+     */
+    private Rule global = new Rule("global", "/**", 120, 2);
+
+    /**
+     * 路由规则，按顺序匹配第一条
+     */
+    private List<Rule> rules = new ArrayList<>(List.of(
+            new Rule("login", "/auth/login", 30, 1),
+            new Rule("admin-login", "/admin/login", 10, 0.2),
+            new Rule("search", "/*/search", 20, 0.5),
+            new Rule("ai-stream", "/agent/**", 10, 0.2),
+            new Rule("glm", "/glm/**", 10, 0.2)));
+
+    /**
+     * 不限流的路径
+     */
+    private List<String> excludePaths = new ArrayList<>(List.of(
+            "/ping", "/actuator/**", "/error", "/css/**", "/js/**", "/images/**"));
+
+    /**
+     * Redis 不可用时本地兜底桶的最大数量
+     */
+    private int localMaxBuckets = 10000;
+
+    @Data
+    public static class Rule {
+        /**
+         * 规则名（用于 Redis key 和监控标签）
+         */
+        private String name;
+
+        /**
+         * Ant 风格路径
+         */
+        private String pattern;
+
+        /**
+         * 桶容量（允许的突发请求数）
+         */
+        private int capacity;
+
+        /**
+         * 每秒补充的令牌数
+         */
+        private double refillPerSecond;
+
+        public Rule() {
+        }
+
+        public Rule(String name, String pattern, int capacity, double refillPerSecond) {
+            this.name = name;
+            this.pattern = pattern;
+            this.capacity = capacity;
+            this.refillPerSecond = refillPerSecond;
+        }
+    }
+}
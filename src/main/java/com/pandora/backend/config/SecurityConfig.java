@@ -1,7 +1,9 @@
 package com.pandora.backend.config;
 
 import com.pandora.backend.filter.JwtAuthFilter;
+import com.pandora.backend.filter.RateLimitFilter;
 import com.pandora.backend.security.CustomAccessDeniedHandler;
+import com.pandora.backend.service.RateLimitService;
 import jakarta.servlet.DispatcherType;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
@@ -24,6 +26,12 @@ public class SecurityConfig {
     @Autowired
     private CustomAccessDeniedHandler customAccessDeniedHandler;
 
+    @Autowired
+    private RateLimitService rateLimitService;
+
+    @Autowired
+    private RateLimitConfig rateLimitConfig;
+
     // 定义 Spring Security 的核心认证管理器
     @Bean
     public AuthenticationManager authenticationManager(AuthenticationConfiguration config) throws Exception {
@@ -61,6 +69,8 @@ public class SecurityConfig {
                         .accessDeniedHandler(customAccessDeniedHandler));
 
         http.addFilterBefore(jwtAuthFilter, UsernamePasswordAuthenticationFilter.class);
+        // 限流放在认证之后，已登录请求按 userId 计数
+        http.addFilterAfter(new RateLimitFilter(rateLimitService, rateLimitConfig), JwtAuthFilter.class);
 
         return http.build();
     }
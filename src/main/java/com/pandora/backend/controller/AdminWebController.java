@@ -6,7 +6,8 @@ import com.pandora.backend.dto.TeamDTO;
 import com.pandora.backend.dto.ImportantMatterDTO;
 import com.pandora.backend.dto.ImportantTaskDTO;
 import com.pandora.backend.service.AdminService;
-import jakarta.servlet.http.HttpSession;
+import com.pandora.backend.security.AdminWebSessionService;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
@@ -22,13 +23,16 @@ public class AdminWebController {
     @Autowired
     private AdminService adminService;
 
+    @Autowired
+    private AdminWebSessionService adminWebSessionService;
+
     @GetMapping
     public String index() {
         return "redirect:/admin/web/dashboard";
     }
 
     @GetMapping("/dashboard")
-    public String dashboard(Model model) {
+    public String dashboard(Model model, @RequestAttribute(value = "adminId", required = false) Integer adminId) {
         List<ImportantMatterDTO> matters = adminService.getAllImportantMatters();
         List<ImportantTaskDTO> tasks = adminService.getAllImportantTasks();
         List<EmployeeDTO> employees = adminService.getAllEmployees();
@@ -44,12 +48,15 @@ public class AdminWebController {
         model.addAttribute("stats", adminService.getSystemStats());
         model.addAttribute("activities", adminService.getRecentActivities());
         model.addAttribute("teamForm", new TeamDTO());
+        if (adminId != null) {
+            // 手机号不放进 Cookie Token，个人资料表单按需查询
+            model.addAttribute("adminPhone", adminService.getAdminById(adminId).getPhone());
+        }
         return "admin/dashboard";
     }
 
     @GetMapping("/profile")
-    public String profile(Model model, HttpSession session) {
-        Integer adminId = (Integer) session.getAttribute("adminId");
+    public String profile(Model model, @RequestAttribute(value = "adminId", required = false) Integer adminId) {
         if (adminId != null) {
             var admin = adminService.getAdminById(adminId);
             model.addAttribute("profileForm", admin);
@@ -64,9 +71,9 @@ public class AdminWebController {
             @RequestParam(required = false) String newPassword,
             @RequestParam(required = false) String confirmPassword,
             @RequestParam(required = false) MultipartFile avatar,
-            HttpSession session,
+            @RequestAttribute(value = "adminId", required = false) Integer adminId,
+            HttpServletResponse response,
             Model model) {
-        Integer adminId = (Integer) session.getAttribute("adminId");
         if (adminId == null) {
             return "redirect:/admin/login";
         }
@@ -79,9 +86,8 @@ public class AdminWebController {
         try {
             adminService.updateAdminProfile(adminId, adminName, adminEmail, adminPhone, newPassword, avatar);
             EmployeeDTO updatedDto = adminService.getAdminById(adminId);
-            session.setAttribute("adminName", updatedDto.getEmployeeName());
-            session.setAttribute("adminEmail", updatedDto.getEmail());
-            session.setAttribute("adminPhone", updatedDto.getPhone());
+            // 姓名和邮箱保存在会话 Token 中，资料变更后重新签发 Cookie
+            adminWebSessionService.issue(response, adminId, updatedDto.getEmployeeName(), updatedDto.getEmail());
             model.addAttribute("profileMessage", "个人信息已更新");
         } catch (IllegalArgumentException ex) {
             model.addAttribute("profileError", ex.getMessage());
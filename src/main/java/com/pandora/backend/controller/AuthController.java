@@ -63,23 +63,12 @@ public class AuthController {
                     .body(Map.of("error", "密码错误"));
         }
 
-        boolean shouldUpgradePassword = employee.getPassword() != null
-                && !(employee.getPassword().startsWith("$2a$")
-                        || employee.getPassword().startsWith("$2b$")
-                        || employee.getPassword().startsWith("$2y$"));
-
+        // 明文历史密码由 LegacyPasswordMigrationService 在后台批量升级，登录路径不再额外做一次 BCrypt
         boolean shouldUpgradePhone = employee.getPhoneHash() == null
                 || phoneSecurityService.isLegacyPlainPhoneEnc(employee.getPhoneEnc());
 
-        if (shouldUpgradePassword) {
-            employee.setPassword(passwordHashService.hashPassword(dto.getPassword()));
-        }
-
         if (shouldUpgradePhone) {
             employeeSecurityMapper.setPhone(employee, dto.getPhone());
-        }
-
-        if (shouldUpgradePassword || shouldUpgradePhone) {
             employeeRepository.save(employee);
         }
 
@@ -0,0 +1,84 @@
+package com.pandora.backend.controller;
+
+import com.pandora.backend.service.EmployeeBulkService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.Map;
+
+/**
+ * 员工批量导入/导出
+ * 放在 /admin/web 下，由 LoginInterceptor 校验管理员登录
+ */
+@RestController
+@RequestMapping("/admin/web/employees")
+public class EmployeeBulkController {
+
+    @Autowired
+    private EmployeeBulkService employeeBulkService;
+
+    /**
+     * 上传 CSV 开始导入，立即返回任务ID
+     * 列：姓名,性别,手机号,邮箱,职位,部门ID（部门ID可选，职位可填代码或名称）
+     */
+    @PostMapping("/import")
+    public ResponseEntity<?> importEmployees(@RequestParam("file") MultipartFile file) {
+        try {
+            String jobId = employeeBulkService.submitImport(file);
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(Map.of("jobId", jobId));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).body(Map.of("error", e.getMessage()));
+        } catch (IOException e) {
+            return ResponseEntity.internalServerError().body(Map.of("error", "保存上传文件失败"));
+        }
+    }
+
+    /**
+     * 查询导入进度和行级错误
+     */
+    @GetMapping("/import/{jobId}")
+    public ResponseEntity<Map<String, Object>> getImportStatus(@PathVariable String jobId) {
+        Map<String, Object> status = employeeBulkService.getStatus(jobId);
+        return status == null ? ResponseEntity.notFound().build() : ResponseEntity.ok(status);
+    }
+
+    /**
+     * 导入进度 SSE：progress 事件为每块处理后的状态，done 事件后连接关闭
+     */
+    @GetMapping(value = "/import/{jobId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamImportProgress(@PathVariable String jobId) {
+        SseEmitter emitter = employeeBulkService.subscribe(jobId);
+        return emitter == null ? ResponseEntity.notFound().build() : ResponseEntity.ok(emitter);
+    }
+
+    /**
+     * 导出全部员工（CSV，边查边写）
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportEmployees() {
+        String filename = "employees-" + LocalDate.now().format(DateTimeFormatter.BASIC_ISO_DATE) + ".csv";
+        StreamingResponseBody body = employeeBulkService::exportCsv;
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
+                .contentType(new MediaType("text", "csv", StandardCharsets.UTF_8))
+                .body(body);
+    }
+}
@@ -76,6 +76,7 @@ public class EmployeeController {
 
         // 获取所有员工（排除自己）
         List<Employee> allEmployees = employeeService.getAllEmployees();
+        Map<Integer, String> phones = employeeSecurityMapper.getPhonePlainMap(allEmployees);
         List<Map<String, Object>> assignableEmployees = allEmployees.stream()
                 .filter(emp -> !emp.getEmployeeId().equals(currentUserId)) // 排除自己
                 .map(emp -> {
@@ -84,7 +85,7 @@ public class EmployeeController {
                     empMap.put("employeeName", emp.getEmployeeName());
                     empMap.put("position", emp.getPosition());
                     empMap.put("positionName", Position.getDescriptionByCode(emp.getPosition()));
-                    empMap.put("phone", employeeSecurityMapper.getPhonePlain(emp));
+                    empMap.put("phone", phones.get(emp.getEmployeeId()));
                     empMap.put("email", emp.getEmail());
                     return empMap;
                 })
@@ -9,12 +9,14 @@ import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import jakarta.servlet.http.HttpServletRequest;
+import java.time.Duration;
 import java.util.List;
 
 /**
@@ -30,6 +32,9 @@ public class GlmController {
     private final GlmService glmService;
     private final WorkReportAgentService workReportAgentService;
 
+    @Value("${ai.analysis.max-age-hours:24}")
+    private long analysisMaxAgeHours;
+
     /**
      * 非流式聊天接口
      *
@@ -38,11 +43,13 @@ public class GlmController {
      */
     @PostMapping("/chat")
     @Operation(summary = "非流式聊天", description = "发送聊天请求并获取完整响应")
-    public ResponseEntity<ChatResponseDTO> chat(@RequestBody ChatRequestDTO request) {
+    public ResponseEntity<ChatResponseDTO> chat(
+            @RequestAttribute(value = "userId", required = false) Integer userId,
+            @RequestBody ChatRequestDTO request) {
         log.info("收到非流式聊天请求,包含 {} 条消息",
                 request.getMessages().size());
 
-        ChatResponseDTO response = glmService.chat(request.getMessages());
+        ChatResponseDTO response = glmService.chat(request.getMessages(), userId);
         return ResponseEntity.ok(response);
     }
 
@@ -54,7 +61,9 @@ public class GlmController {
      */
     @PostMapping(value = "/chat/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
     @Operation(summary = "流式聊天", description = "发送聊天请求并通过 SSE 获取流式响应")
-    public SseEmitter chatStream(@RequestBody ChatRequestDTO request) {
+    public SseEmitter chatStream(
+            @RequestAttribute(value = "userId", required = false) Integer userId,
+            @RequestBody ChatRequestDTO request) {
         log.info("收到流式聊天请求,包含 {} 条消息",
                 request.getMessages().size());
 
@@ -70,7 +79,7 @@ public class GlmController {
             emitter.completeWithError(ex);
         });
 
-        glmService.chatStream(request.getMessages(), emitter);
+        glmService.chatStream(request.getMessages(), emitter, userId);
 
         return emitter;
     }
@@ -174,14 +183,17 @@ public class GlmController {
 
     /**
      * AI 工作分析接口（从 token 获取员工 ID）
-     * 实时生成员工的任务完成趋势、工作节奏建议和情绪健康提醒
+     * 默认回放离线批处理预先生成的分析；refresh=true 或无可用记录时实时生成
      *
      * @param request HTTP 请求（从中获取 token 解析的员工 ID）
+     * @param refresh 是否强制重新生成
      * @return 用于流式响应的 SSE 发射器
      */
     @GetMapping(value = "/analysis/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
-    @Operation(summary = "AI 工作分析", description = "基于员工近三周的日志和任务数据，实时生成任务完成趋势、工作节奏建议和情绪健康提醒")
-    public ResponseEntity<SseEmitter> getAiAnalysis(HttpServletRequest request) {
+    @Operation(summary = "AI 工作分析", description = "基于员工近三周的日志和任务数据，生成任务完成趋势、工作节奏建议和情绪健康提醒；默认返回已保存的分析，refresh=true 时实时生成")
+    public ResponseEntity<SseEmitter> getAiAnalysis(
+            HttpServletRequest request,
+            @RequestParam(defaultValue = "false") boolean refresh) {
         // 从 token 中获取员工 ID
         Object userIdObj = request.getAttribute("userId");
         if (userIdObj == null) {
@@ -203,7 +215,11 @@ public class GlmController {
             emitter.completeWithError(ex);
         });
 
-        // 调用 Service 生成 AI 分析
+        // 优先回放已保存的分析（单行读取），否则实时生成
+        if (!refresh && workReportAgentService.replayLatestReport(userId, emitter,
+                Duration.ofHours(analysisMaxAgeHours))) {
+            return ResponseEntity.ok(emitter);
+        }
         workReportAgentService.generateWorkReport(userId, emitter);
 
         return ResponseEntity.ok(emitter);
@@ -226,4 +226,16 @@ public class LogController {
             HttpServletRequest request) {
         return attachmentService.previewLogAttachment(attachmentId, tokenParam, request);
     }
-}
\ No newline at end of file
+
+    /**
+     * API 接口：日志附件缩略图（png/jpg/pdf）
+     * 使用通用的 AttachmentService
+     */
+    @GetMapping("/attachments/{id}/thumbnail")
+    public ResponseEntity<Resource> thumbnailAttachment(
+            @PathVariable("id") Long attachmentId,
+            @RequestParam(value = "token", required = false) String tokenParam,
+            HttpServletRequest request) {
+        return attachmentService.thumbnailLogAttachment(attachmentId, tokenParam, request);
+    }
+}
@@ -2,8 +2,10 @@ package com.pandora.backend.controller;
 
 import com.pandora.backend.entity.Employee;
 import com.pandora.backend.repository.EmployeeRepository;
+import com.pandora.backend.security.AdminWebSessionService;
+import com.pandora.backend.security.PasswordHashBusyException;
 import com.pandora.backend.security.PasswordHashService;
-import jakarta.servlet.http.HttpSession;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
@@ -22,6 +24,9 @@ public class LoginController {
     @Autowired
     private PasswordHashService passwordHashService;
 
+    @Autowired
+    private AdminWebSessionService adminWebSessionService;
+
     /**
      * 显示登录页面
      */
@@ -37,7 +42,7 @@ public class LoginController {
     public String login(
             @RequestParam String email,
             @RequestParam String password,
-            HttpSession session,
+            HttpServletResponse response,
             Model model) {
 
         // 查找用户
@@ -51,7 +56,14 @@ public class LoginController {
         Employee employee = employeeOpt.get();
 
         // 验证密码
-        if (!passwordHashService.matches(password, employee.getPassword())) {
+        boolean matched;
+        try {
+            matched = passwordHashService.matches(password, employee.getPassword());
+        } catch (PasswordHashBusyException e) {
+            model.addAttribute("error", "登录人数过多，请稍后重试");
+            return "admin/login";
+        }
+        if (!matched) {
             model.addAttribute("error", "邮箱或密码错误");
             return "admin/login";
         }
@@ -62,10 +74,9 @@ public class LoginController {
             return "admin/login";
         }
 
-        // 登录成功，存储session
-        session.setAttribute("adminId", employee.getEmployeeId());
-        session.setAttribute("adminName", employee.getEmployeeName());
-        session.setAttribute("adminEmail", employee.getEmail());
+        // 登录成功，签发会话 Cookie（无状态，任意节点可验证）
+        adminWebSessionService.issue(response, employee.getEmployeeId(), employee.getEmployeeName(),
+                employee.getEmail());
 
         return "redirect:/admin/web/dashboard";
     }
@@ -74,8 +85,8 @@ public class LoginController {
      * 登出
      */
     @GetMapping("/admin/logout")
-    public String logout(HttpSession session) {
-        session.invalidate();
+    public String logout(HttpServletResponse response) {
+        adminWebSessionService.clear(response);
         return "redirect:/admin/login";
     }
 }
@@ -0,0 +1,43 @@
+package com.pandora.backend.controller;
+
+import com.pandora.backend.service.OssMigrationService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+/**
+ * 本地附件迁移 OSS
+ * 放在 /admin/web 下，由 LoginInterceptor 校验管理员登录
+ */
+@RestController
+@RequestMapping("/admin/web/oss-migration")
+public class OssMigrationController {
+
+    @Autowired
+    private OssMigrationService ossMigrationService;
+
+    /**
+     * 查询迁移进度
+     */
+    @GetMapping
+    public ResponseEntity<Map<String, Object>> getStatus() {
+        return ResponseEntity.ok(ossMigrationService.getStatus());
+    }
+
+    /**
+     * 手动启动迁移（后台执行，从断点继续）；本节点或其它节点已在运行时返回 409
+     */
+    @PostMapping("/start")
+    public ResponseEntity<Map<String, Object>> start() {
+        if (!ossMigrationService.start()) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(ossMigrationService.getStatus());
+        }
+        return ResponseEntity.accepted().body(ossMigrationService.getStatus());
+    }
+}
@@ -483,4 +483,16 @@ public class TaskController {
             HttpServletRequest request) {
         return attachmentService.previewTaskAttachment(attachmentId, tokenParam, request);
     }
+
+    /**
+     * 任务附件缩略图（png/jpg/pdf）
+     * GET /tasks/attachments/{id}/thumbnail
+     */
+    @GetMapping("/attachments/{id}/thumbnail")
+    public ResponseEntity<Resource> thumbnailTaskAttachment(
+            @PathVariable("id") Long attachmentId,
+            @RequestParam(value = "token", required = false) String tokenParam,
+            HttpServletRequest request) {
+        return attachmentService.thumbnailTaskAttachment(attachmentId, tokenParam, request);
+    }
 }
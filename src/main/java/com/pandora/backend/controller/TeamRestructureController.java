@@ -0,0 +1,38 @@
+package com.pandora.backend.controller;
+
+import com.pandora.backend.dto.TeamDTO;
+import com.pandora.backend.dto.TeamRestructureDTO;
+import com.pandora.backend.service.AdminService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * 团队批量调整
+ * 放在 /admin/web 下，由 LoginInterceptor 校验管理员登录
+ */
+@RestController
+@RequestMapping("/admin/web/teams")
+public class TeamRestructureController {
+
+    @Autowired
+    private AdminService adminService;
+
+    /**
+     * 批量调整团队成员和团队长（同一事务，失败整体回滚）
+     */
+    @PutMapping("/restructure")
+    public ResponseEntity<?> restructureTeams(@RequestBody TeamRestructureDTO dto) {
+        try {
+            List<TeamDTO> teams = adminService.restructureTeams(dto);
+            return ResponseEntity.ok(teams);
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.pandora.backend.controller;
+
+import com.pandora.backend.upload.entity.UploadJob;
+import com.pandora.backend.upload.service.ChunkedUploadService;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PatchMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestAttribute;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * 断点续传上传接口（tus 1.0 核心协议子集）
+ * POST /uploads 创建，HEAD /uploads/{id} 查询偏移量，PATCH /uploads/{id} 按偏移量追加数据
+ */
+@Slf4j
+@RestController
+@RequestMapping("/uploads")
+@RequiredArgsConstructor
+public class UploadController {
+
+    private static final String TUS_RESUMABLE = "Tus-Resumable";
+    private static final String TUS_VERSION = "1.0.0";
+    private static final String UPLOAD_OFFSET = "Upload-Offset";
+    private static final String UPLOAD_LENGTH = "Upload-Length";
+    private static final String OFFSET_CONTENT_TYPE = "application/offset+octet-stream";
+
+    private final ChunkedUploadService chunkedUploadService;
+
+    /**
+     * 创建上传任务
+     * Upload-Metadata 格式为 "filename base64,filetype base64"
+     */
+    @PostMapping
+    public ResponseEntity<Void> create(
+            @RequestAttribute("userId") final Integer userId,
+            @RequestHeader(UPLOAD_LENGTH) final long uploadLength,
+            @RequestHeader(value = "Upload-Metadata", required = false) final String uploadMetadata) {
+        final Map<String, String> metadata = parseMetadata(uploadMetadata);
+        try {
+            final UploadJob job = chunkedUploadService.create(userId, metadata.get("filename"),
+                    metadata.get("filetype"), uploadLength);
+            return ResponseEntity.status(HttpStatus.CREATED)
+                    .header(HttpHeaders.LOCATION, "/uploads/" + job.getId())
+                    .header(TUS_RESUMABLE, TUS_VERSION)
+                    .header(UPLOAD_OFFSET, "0")
+                    .build();
+        } catch (IllegalArgumentException e) {
+            log.warn("[upload] create rejected userId={} reason={}", userId, e.getMessage());
+            return ResponseEntity.badRequest().header(TUS_RESUMABLE, TUS_VERSION).build();
+        } catch (Exception e) {
+            log.error("[upload] create failed userId={}", userId, e);
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    @RequestMapping(value = "/{id}", method = RequestMethod.HEAD)
+    public ResponseEntity<Void> status(
+            @RequestAttribute("userId") final Integer userId,
+            @PathVariable("id") final Long id) {
+        try {
+            final UploadJob job = chunkedUploadService.getOwnedJob(userId, id);
+            return ResponseEntity.ok()
+                    .header(TUS_RESUMABLE, TUS_VERSION)
+                    .header(UPLOAD_OFFSET, String.valueOf(chunkedUploadService.currentOffset(job)))
+                    .header(UPLOAD_LENGTH, String.valueOf(job.getFileSize()))
+                    .header("Upload-Status", job.getStatus().name())
+                    .header(HttpHeaders.CACHE_CONTROL, "no-store")
+                    .build();
+        } catch (NoSuchElementException e) {
+            return ResponseEntity.notFound().build();
+        } catch (Exception e) {
+            log.error("[upload] status failed uploadJobId={}", id, e);
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    @PatchMapping("/{id}")
+    public ResponseEntity<Void> appendChunk(
+            @RequestAttribute("userId") final Integer userId,
+            @PathVariable("id") final Long id,
+            @RequestHeader(UPLOAD_OFFSET) final long offset,
+            @RequestHeader(value = HttpHeaders.CONTENT_TYPE, required = false) final String contentType,
+            final HttpServletRequest request) {
+        if (!OFFSET_CONTENT_TYPE.equals(contentType)) {
+            return ResponseEntity.status(HttpStatus.UNSUPPORTED_MEDIA_TYPE).header(TUS_RESUMABLE, TUS_VERSION)
+                    .build();
+        }
+
+        try {
+            final UploadJob job = chunkedUploadService.appendChunk(userId, id, offset, request.getInputStream());
+            return ResponseEntity.noContent()
+                    .header(TUS_RESUMABLE, TUS_VERSION)
+                    .header(UPLOAD_OFFSET, String.valueOf(chunkedUploadService.currentOffset(job)))
+                    .build();
+        } catch (NoSuchElementException e) {
+            return ResponseEntity.notFound().build();
+        } catch (IllegalStateException e) {
+            log.warn("[upload] chunk conflict uploadJobId={} offset={} reason={}", id, offset, e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).header(TUS_RESUMABLE, TUS_VERSION).build();
+        } catch (IllegalArgumentException e) {
+            log.warn("[upload] chunk rejected uploadJobId={} reason={}", id, e.getMessage());
+            return ResponseEntity.badRequest().header(TUS_RESUMABLE, TUS_VERSION).build();
+        } catch (Exception e) {
+            // 连接中断等情况，客户端通过 HEAD 获取已落盘的偏移量后续传
+            log.warn("[upload] chunk interrupted uploadJobId={} offset={}", id, offset, e);
+            return ResponseEntity.internalServerError().header(TUS_RESUMABLE, TUS_VERSION).build();
+        }
+    }
+
+    private Map<String, String> parseMetadata(final String uploadMetadata) {
+        final Map<String, String> metadata = new HashMap<>();
+        if (uploadMetadata == null || uploadMetadata.isBlank()) {
+            return metadata;
+        }
+        for (String pair : uploadMetadata.split(",")) {
+            final String[] parts = pair.trim().split(" ", 2);
+            if (parts.length == 2) {
+                try {
+                    metadata.put(parts[0], new String(Base64.getDecoder().decode(parts[1]), StandardCharsets.UTF_8));
+                } catch (IllegalArgumentException ignore) {
+                    // 非法的 base64 值忽略
+                }
+            }
+        }
+        return metadata;
+    }
+}
@@ -0,0 +1,47 @@
+package com.pandora.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * GLM 响应缓存条目
+ * 同时保存完整内容和流式分片，命中时可按原分片回放 SSE
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class GlmCachedResponseDTO {
+
+    /**
+     * 完整响应内容
+     */
+    private String content;
+
+    /**
+     * 生成该响应的模型
+     */
+    private String model;
+
+    /**
+     * 结束原因（流式响应为 null）
+     */
+    private String finishReason;
+
+    /**
+     * 消耗的 token 数（流式响应为 null）
+     */
+    private Integer totalTokens;
+
+    /**
+     * 流式分片（非流式响应为 null）
+     */
+    private List<String> chunks;
+
+    /**
+     * 写入时间戳
+     */
+    private Long createdAtEpochMs;
+}
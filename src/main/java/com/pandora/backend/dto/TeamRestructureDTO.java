@@ -0,0 +1,27 @@
+package com.pandora.backend.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+/**
+ * 团队调整：一次提交多个团队的成员增减和团队长变更，在同一事务中执行
+ */
+@Getter
+@Setter
+public class TeamRestructureDTO {
+    private List<TeamChange> changes;
+
+    @Getter
+    @Setter
+    public static class TeamChange {
+        private Integer teamId;
+        private List<Integer> addMemberIds;
+        private List<Integer> removeMemberIds;
+        /**
+         * 新团队长（须是调整后的成员），为空表示不变
+         */
+        private Integer leaderId;
+    }
+}
@@ -0,0 +1,63 @@
+package com.pandora.backend.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * AI 分析离线批处理进度
+ * 每天一条记录，中断后下一次调度从未完成的员工继续
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "ai_analysis_batch")
+public class AiAnalysisBatch {
+
+    public static final String STATUS_RUNNING = "RUNNING";
+    public static final String STATUS_COMPLETED = "COMPLETED";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "batch_id")
+    private Long batchId;
+
+    @Column(name = "batch_date", nullable = false, unique = true)
+    private LocalDate batchDate;
+
+    @Column(name = "status", nullable = false, length = 20)
+    private String status;
+
+    @Column(name = "total_count", nullable = false)
+    private Integer totalCount = 0;
+
+    @Column(name = "success_count", nullable = false)
+    private Integer successCount = 0;
+
+    @Column(name = "skipped_count", nullable = false)
+    private Integer skippedCount = 0;
+
+    @Column(name = "failed_count", nullable = false)
+    private Integer failedCount = 0;
+
+    /**
+     * 首次启动时间；该时间之后已生成分析的员工在续跑时跳过
+     */
+    @Column(name = "started_time", nullable = false)
+    private LocalDateTime startedTime;
+
+    @Column(name = "updated_time", nullable = false)
+    private LocalDateTime updatedTime;
+
+    @Column(name = "finished_time")
+    private LocalDateTime finishedTime;
+
+    @PrePersist
+    @PreUpdate
+    protected void onSave() {
+        updatedTime = LocalDateTime.now();
+    }
+}
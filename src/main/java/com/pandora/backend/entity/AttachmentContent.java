@@ -0,0 +1,48 @@
+package com.pandora.backend.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * 附件内容去重索引
+ * 相同 SHA-256 的文件只在 OSS 存一份，refCount 记录引用该对象的附件数
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "attachment_content")
+public class AttachmentContent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "content_id")
+    private Long contentId;
+
+    @Column(name = "content_hash", nullable = false, unique = true, length = 64)
+    private String contentHash;
+
+    @Column(name = "object_key", nullable = false, length = 1024)
+    private String objectKey;
+
+    @Column(name = "file_size", nullable = false)
+    private Long fileSize;
+
+    @Column(name = "ref_count", nullable = false)
+    private Integer refCount;
+
+    @Column(name = "created_time", nullable = false)
+    private LocalDateTime createdTime;
+
+    @Column(name = "updated_time", nullable = false)
+    private LocalDateTime updatedTime;
+
+    @PrePersist
+    protected void onCreate() {
+        LocalDateTime now = LocalDateTime.now();
+        createdTime = now;
+        updatedTime = now;
+    }
+}
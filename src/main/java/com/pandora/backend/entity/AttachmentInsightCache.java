@@ -0,0 +1,48 @@
+package com.pandora.backend.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * 附件视觉摘要缓存
+ * 以 OSS 存储名和内容哈希（OSS ETag）为键，避免同一附件被重复送入视觉模型
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "attachment_insight")
+public class AttachmentInsightCache {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "insight_id")
+    private Long insightId;
+
+    @Column(name = "attachment_id", nullable = false)
+    private Long attachmentId;
+
+    @Column(name = "stored_filename", nullable = false, unique = true)
+    private String storedFilename;
+
+    @Column(name = "content_hash", length = 128)
+    private String contentHash;
+
+    @Column(name = "file_type", length = 100)
+    private String fileType;
+
+    @Column(name = "summary", nullable = false, columnDefinition = "TEXT")
+    private String summary;
+
+    @Column(name = "created_time", nullable = false)
+    private LocalDateTime createdTime;
+
+    @PrePersist
+    protected void onCreate() {
+        if (createdTime == null) {
+            createdTime = LocalDateTime.now();
+        }
+    }
+}
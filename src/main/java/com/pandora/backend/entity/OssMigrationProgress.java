@@ -0,0 +1,65 @@
+package com.pandora.backend.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * 本地附件迁移 OSS 的进度
+ * 每种附件一条记录，按附件 ID 升序分页迁移，lastAttachmentId 为断点，重启后从断点继续；
+ * failedCount 为断点之前仍未迁移成功的条数，大于 0 时状态为 FAILED，下次运行会重试
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "oss_migration_progress")
+public class OssMigrationProgress {
+
+    public static final String TYPE_LOG = "LOG";
+    public static final String TYPE_TASK = "TASK";
+    public static final String STATUS_RUNNING = "RUNNING";
+    public static final String STATUS_COMPLETED = "COMPLETED";
+    public static final String STATUS_FAILED = "FAILED";
+
+    @Id
+    @Column(name = "attachment_type", length = 16)
+    private String attachmentType;
+
+    @Column(name = "status", nullable = false, length = 20)
+    private String status;
+
+    @Column(name = "last_attachment_id", nullable = false)
+    private Long lastAttachmentId = 0L;
+
+    @Column(name = "migrated_count", nullable = false)
+    private Integer migratedCount = 0;
+
+    @Column(name = "skipped_count", nullable = false)
+    private Integer skippedCount = 0;
+
+    @Column(name = "failed_count", nullable = false)
+    private Integer failedCount = 0;
+
+    @Column(name = "migrated_bytes", nullable = false)
+    private Long migratedBytes = 0L;
+
+    @Column(name = "last_error", length = 1000)
+    private String lastError;
+
+    @Column(name = "started_time", nullable = false)
+    private LocalDateTime startedTime;
+
+    @Column(name = "updated_time", nullable = false)
+    private LocalDateTime updatedTime;
+
+    @Column(name = "finished_time")
+    private LocalDateTime finishedTime;
+
+    @PrePersist
+    @PreUpdate
+    protected void onSave() {
+        updatedTime = LocalDateTime.now();
+    }
+}
@@ -1,5 +1,6 @@
 package com.pandora.backend.filter;
 
+import com.pandora.backend.security.JwtPrincipal;
 import com.pandora.backend.util.JwtUtil;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
@@ -54,8 +55,9 @@ public class JwtAuthFilter extends OncePerRequestFilter {
                 return;
             }
 
-            // 4. 验证 token
-            if (!jwtUtil.validateToken(token)) {
+            // 4. 一次验签并解析出 userId 和 position（有效期内命中缓存则不再验签）
+            JwtPrincipal principal = jwtUtil.verify(token);
+            if (principal == null) {
                 log.warn("请求路径: {} - JWT Token 无效或已过期", request.getRequestURI());
                 response.setContentType("application/json;charset=UTF-8");
                 response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
@@ -63,17 +65,8 @@ public class JwtAuthFilter extends OncePerRequestFilter {
                 return;
             }
 
-            // token 有效，解析出 userId 和 position
-            Integer userId = jwtUtil.extractUserId(token);
-            Byte position = jwtUtil.extractPosition(token);
-
-            if (userId == null) {
-                log.error("请求路径: {} - 无法从 Token 中提取 userId", request.getRequestURI());
-                response.setContentType("application/json;charset=UTF-8");
-                response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
-                response.getWriter().write("{\"error\":\"Token 格式错误\"}");
-                return;
-            }
+            Integer userId = principal.userId();
+            Byte position = principal.position();
 
             log.debug("请求路径: {} - 用户 {} 认证成功", request.getRequestURI(), userId);
 
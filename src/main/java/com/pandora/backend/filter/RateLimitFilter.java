@@ -0,0 +1,90 @@
+package com.pandora.backend.filter;
+
+import com.pandora.backend.config.RateLimitConfig;
+import com.pandora.backend.service.RateLimitService;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.lang.NonNull;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 接口限流过滤器，放在 JwtAuthFilter 之后（需要 userId）
+ * 已登录按用户、未登录按 IP 计数；不注册为 Bean，由 SecurityConfig 加入安全过滤链，避免被容器重复注册为 Servlet Filter
+ */
+@Slf4j
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private static final String HEADER_LIMIT = "X-RateLimit-Limit";
+    private static final String HEADER_REMAINING = "X-RateLimit-Remaining";
+
+    private final RateLimitService rateLimitService;
+    private final RateLimitConfig rateLimitConfig;
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+
+    public RateLimitFilter(final RateLimitService rateLimitService, final RateLimitConfig rateLimitConfig) {
+        this.rateLimitService = rateLimitService;
+        this.rateLimitConfig = rateLimitConfig;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        if (!rateLimitConfig.isEnabled() || "OPTIONS".equalsIgnoreCase(request.getMethod())) {
+            return true;
+        }
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        return rateLimitConfig.getExcludePaths().stream().anyMatch(pattern -> pathMatcher.match(pattern, path));
+    }
+
+    @Override
+    protected void doFilterInternal(
+            @NonNull HttpServletRequest request,
+            @NonNull HttpServletResponse response,
+            @NonNull FilterChain filterChain)
+            throws ServletException, IOException {
+
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        List<RateLimitConfig.Rule> rules = new ArrayList<>(2);
+        if (isValid(rateLimitConfig.getGlobal())) {
+            rules.add(rateLimitConfig.getGlobal());
+        }
+        rateLimitConfig.getRules().stream()
+                .filter(rule -> isValid(rule) && pathMatcher.match(rule.getPattern(), path))
+                .findFirst()
+                .ifPresent(rules::add);
+        if (rules.isEmpty()) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        Object userId = request.getAttribute("userId");
+        String subject = userId != null ? "u" + userId : "ip" + request.getRemoteAddr();
+        RateLimitService.Decision decision = rateLimitService.tryAcquire(subject, rules);
+
+        response.setHeader(HEADER_LIMIT, String.valueOf(decision.limit()));
+        response.setHeader(HEADER_REMAINING, String.valueOf(decision.remaining()));
+        if (decision.allowed()) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        long retryAfterSeconds = Math.max(1, (decision.retryAfterMillis() + 999) / 1000);
+        log.warn("请求路径: {} - 触发限流, subject={}", path, subject);
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        response.setContentType("application/json;charset=UTF-8");
+        response.setStatus(429);
+        response.getWriter().write("{\"error\":\"请求过于频繁，请稍后重试\"}");
+    }
+
+    private static boolean isValid(final RateLimitConfig.Rule rule) {
+        return rule != null && rule.getCapacity() > 0 && rule.getRefillPerSecond() > 0;
+    }
+}
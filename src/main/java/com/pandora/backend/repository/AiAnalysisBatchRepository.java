@@ -0,0 +1,14 @@
+package com.pandora.backend.repository;
+
+import com.pandora.backend.entity.AiAnalysisBatch;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.Optional;
+
+@Repository
+public interface AiAnalysisBatchRepository extends JpaRepository<AiAnalysisBatch, Long> {
+
+    Optional<AiAnalysisBatch> findByBatchDate(LocalDate batchDate);
+}
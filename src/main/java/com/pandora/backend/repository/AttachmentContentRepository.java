@@ -0,0 +1,62 @@
+package com.pandora.backend.repository;
+
+import com.pandora.backend.entity.AttachmentContent;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface AttachmentContentRepository extends JpaRepository<AttachmentContent, Long> {
+
+    Optional<AttachmentContent> findByContentHash(String contentHash);
+
+    Optional<AttachmentContent> findByObjectKey(String objectKey);
+
+    /**
+     * 锁定内容行（SELECT ... FOR UPDATE），释放引用时与并发的引用/释放串行
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM AttachmentContent c WHERE c.objectKey = :objectKey")
+    Optional<AttachmentContent> findByObjectKeyForUpdate(@Param("objectKey") String objectKey);
+
+    /**
+     * 登记一次引用：哈希不存在时插入，已存在时引用计数加一（原子操作，避免并发插入冲突）
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO attachment_content "
+            + "(content_hash, object_key, file_size, ref_count, created_time, updated_time) "
+            + "VALUES (:contentHash, :objectKey, :fileSize, 1, :now, :now) "
+            + "ON DUPLICATE KEY UPDATE ref_count = ref_count + 1, updated_time = :now", nativeQuery = true)
+    int upsertReference(@Param("contentHash") String contentHash, @Param("objectKey") String objectKey,
+            @Param("fileSize") long fileSize, @Param("now") LocalDateTime now);
+
+    /**
+     * 引用已有内容：仅当内容行仍存在且引用数大于 0 时加一，返回 0 表示需要重新上传
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE AttachmentContent c SET c.refCount = c.refCount + 1, c.updatedTime = :now "
+            + "WHERE c.contentHash = :contentHash AND c.refCount > 0")
+    int acquireReference(@Param("contentHash") String contentHash, @Param("now") LocalDateTime now);
+
+    /**
+     * 仍有其它引用时减一，返回 0 表示当前是最后一个引用
+     */
+    @Modifying
+    @Query("UPDATE AttachmentContent c SET c.refCount = c.refCount - 1, c.updatedTime = :now "
+            + "WHERE c.contentId = :contentId AND c.refCount > 1")
+    int decrementIfShared(@Param("contentId") Long contentId, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("DELETE FROM AttachmentContent c WHERE c.contentId = :contentId AND c.refCount <= 1")
+    int deleteIfLastReference(@Param("contentId") Long contentId);
+}
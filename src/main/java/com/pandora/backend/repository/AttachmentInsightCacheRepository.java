@@ -0,0 +1,19 @@
+package com.pandora.backend.repository;
+
+import com.pandora.backend.entity.AttachmentInsightCache;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface AttachmentInsightCacheRepository extends JpaRepository<AttachmentInsightCache, Long> {
+
+    Optional<AttachmentInsightCache> findByStoredFilename(String storedFilename);
+
+    List<AttachmentInsightCache> findByStoredFilenameIn(Collection<String> storedFilenames);
+
+    Optional<AttachmentInsightCache> findFirstByContentHash(String contentHash);
+}
@@ -2,13 +2,21 @@ package com.pandora.backend.repository;
 
 import com.pandora.backend.entity.Employee;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 import com.pandora.backend.entity.Department;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface DepartmentRepository extends JpaRepository<Department, Integer> {
     Optional<Department> findByManager(Employee manager);
+
+    /**
+     * 组织关系图加载：[orgId, orgName]
+     */
+    @Query("select d.orgId, d.orgName from Department d")
+    List<Object[]> findOrgGraphRows();
 }
 
 
@@ -1,9 +1,15 @@
 package com.pandora.backend.repository;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import com.pandora.backend.entity.Department;
 import com.pandora.backend.entity.Employee;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -29,4 +35,40 @@ public interface EmployeeRepository extends JpaRepository<Employee, Integer> {
      * 根据部门和职位查询员工
      */
     List<Employee> findByDepartmentAndPosition(Department department, Byte position);
+
+    /**
+     * 按 ID 游标查询仍为明文（非 BCrypt）密码的员工
+     */
+    @Query("select e from Employee e where e.employeeId > :afterId and e.password is not null "
+            + "and e.password not like '$2a$%' and e.password not like '$2b$%' and e.password not like '$2y$%' "
+            + "order by e.employeeId")
+    List<Employee> findLegacyPasswordAfter(@Param("afterId") Integer afterId, Pageable pageable);
+
+    /**
+     * 仅当密码仍是旧值时替换，避免覆盖迁移期间用户自己改的新密码
+     */
+    @Modifying
+    @Transactional
+    @Query("update Employee e set e.password = :newPassword where e.employeeId = :id and e.password = :oldPassword")
+    int replacePassword(@Param("id") Integer id, @Param("oldPassword") String oldPassword,
+            @Param("newPassword") String newPassword);
+
+    /**
+     * 组织关系图加载：[employeeId, position, orgId, employeeName, email]
+     */
+    @Query("select e.employeeId, e.position, d.orgId, e.employeeName, e.email "
+            + "from Employee e left join e.department d order by e.employeeId")
+    List<Object[]> findOrgGraphRows();
+
+    /**
+     * 过滤出实际存在的员工ID，用于批量操作前一次性校验
+     */
+    @Query("select e.employeeId from Employee e where e.employeeId in :ids")
+    List<Integer> findExistingIds(@Param("ids") Collection<Integer> ids);
+
+    @Query("select e.email from Employee e where e.email in :emails")
+    List<String> findExistingEmails(@Param("emails") Collection<String> emails);
+
+    @Query("select e.phoneHash from Employee e where e.phoneHash in :phoneHashes")
+    List<String> findExistingPhoneHashes(@Param("phoneHashes") Collection<String> phoneHashes);
 }
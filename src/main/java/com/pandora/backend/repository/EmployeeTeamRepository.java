@@ -5,10 +5,13 @@ import com.pandora.backend.entity.EmployeeTeamId;
 import com.pandora.backend.entity.Employee_Team;
 import com.pandora.backend.entity.Team;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -109,4 +112,73 @@ public interface EmployeeTeamRepository extends JpaRepository<Employee_Team, Emp
                      "AND et.isLeader = :isLeader")
        Employee findTeamLeader(@Param("teamId") Integer teamId,
                      @Param("isLeader") Byte isLeader);
-}
\ No newline at end of file
+
+       /**
+        * 组织关系图加载：[teamId, employeeId, isLeader]
+        */
+       @Query("SELECT et.id.teamId, et.id.employeeId, et.isLeader FROM Employee_Team et "
+                     + "ORDER BY et.id.teamId, et.id.employeeId")
+       List<Object[]> findOrgGraphRows();
+
+       /**
+        * 查询团队成员关系并一次性加载员工，避免逐个懒加载
+        */
+       @Query("SELECT et FROM Employee_Team et JOIN FETCH et.employee "
+                     + "WHERE et.team.teamId = :teamId ORDER BY et.id.employeeId")
+       List<Employee_Team> findWithEmployeeByTeamId(@Param("teamId") Integer teamId);
+
+       /**
+        * 团队当前成员ID
+        */
+       @Query("SELECT et.id.employeeId FROM Employee_Team et WHERE et.id.teamId = :teamId")
+       List<Integer> findMemberIds(@Param("teamId") Integer teamId);
+
+       /**
+        * 批量加入团队（普通成员），已在团队中的员工跳过
+        *
+        * @return 实际插入的行数
+        */
+       @Modifying
+       @Transactional
+       @Query(value = "INSERT INTO employee_team (employee_id, team_id, is_leader) "
+                     + "SELECT e.employee_id, :teamId, 0 FROM employee e "
+                     + "WHERE e.employee_id IN (:employeeIds) AND NOT EXISTS ("
+                     + "SELECT 1 FROM employee_team et WHERE et.team_id = :teamId AND et.employee_id = e.employee_id)",
+                     nativeQuery = true)
+       int insertMembers(@Param("teamId") Integer teamId, @Param("employeeIds") Collection<Integer> employeeIds);
+
+       /**
+        * 批量移出团队
+        */
+       @Modifying
+       @Transactional
+       @Query(value = "DELETE FROM employee_team WHERE team_id = :teamId AND employee_id IN (:employeeIds)",
+                     nativeQuery = true)
+       int deleteMembers(@Param("teamId") Integer teamId, @Param("employeeIds") Collection<Integer> employeeIds);
+
+       /**
+        * 解散团队时删除全部成员关系
+        */
+       @Modifying
+       @Transactional
+       @Query(value = "DELETE FROM employee_team WHERE team_id = :teamId", nativeQuery = true)
+       int deleteByTeamId(@Param("teamId") Integer teamId);
+
+       /**
+        * 一条语句设置团队长：指定员工置 1，其余成员置 0；leaderId 为 null 时清空团队长
+        */
+       @Modifying
+       @Transactional
+       @Query(value = "UPDATE employee_team SET is_leader = CASE WHEN employee_id = :leaderId THEN 1 ELSE 0 END "
+                     + "WHERE team_id = :teamId", nativeQuery = true)
+       int assignLeader(@Param("teamId") Integer teamId, @Param("leaderId") Integer leaderId);
+
+       /**
+        * 清除员工在所有团队中的团队长标记
+        */
+       @Modifying
+       @Transactional
+       @Query(value = "UPDATE employee_team SET is_leader = 0 WHERE employee_id = :employeeId AND is_leader = 1",
+                     nativeQuery = true)
+       int clearLeaderFlags(@Param("employeeId") Integer employeeId);
+}
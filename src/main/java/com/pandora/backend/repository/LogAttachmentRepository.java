@@ -1,7 +1,12 @@
 package com.pandora.backend.repository;
 
 import com.pandora.backend.entity.LogAttachment;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 
@@ -11,4 +16,22 @@ public interface LogAttachmentRepository extends JpaRepository<LogAttachment, Lo
     java.util.Optional<LogAttachment> findByStoredFilename(String storedFilename);
 
     List<LogAttachment> findByLogLogId(Integer logId);
-}
\ No newline at end of file
+
+    /**
+     * 按 ID 升序分页读取断点之后的附件（迁移用）
+     */
+    List<LogAttachment> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
+    /**
+     * 按 ID 升序分页读取区间内仍未迁移（存储名不含 "/"）的附件（重试迁移失败的条目）
+     */
+    @Query("SELECT a FROM LogAttachment a WHERE a.id > :afterId AND a.id <= :upToId "
+            + "AND a.storedFilename NOT LIKE '%/%' ORDER BY a.id")
+    List<LogAttachment> findUnmigratedBetween(@Param("afterId") Long afterId, @Param("upToId") Long upToId,
+            Pageable pageable);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE LogAttachment a SET a.storedFilename = :storedFilename WHERE a.id = :id")
+    int updateStoredFilename(@Param("id") Long id, @Param("storedFilename") String storedFilename);
+}
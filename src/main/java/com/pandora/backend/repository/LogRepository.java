@@ -42,4 +42,10 @@ public interface LogRepository extends JpaRepository<Log, Integer> {
         List<Log> findTodayLogsByEmployeeId(@Param("employeeId") Integer employeeId,
                         @Param("startTime") LocalDateTime startTime, @Param("endTime") LocalDateTime endTime);
 
+        /**
+         * 查询指定时间后写过日志的员工ID（离线 AI 分析的活跃员工范围）
+         */
+        @Query("SELECT DISTINCT l.employee.employeeId FROM Log l WHERE l.createdTime >= :since ORDER BY l.employee.employeeId")
+        List<Integer> findActiveEmployeeIdsSince(@Param("since") LocalDateTime since);
+
 }
@@ -0,0 +1,9 @@
+package com.pandora.backend.repository;
+
+import com.pandora.backend.entity.OssMigrationProgress;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface OssMigrationProgressRepository extends JpaRepository<OssMigrationProgress, String> {
+}
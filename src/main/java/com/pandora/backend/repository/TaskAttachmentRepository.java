@@ -1,7 +1,12 @@
 package com.pandora.backend.repository;
 
 import com.pandora.backend.entity.TaskAttachment;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -19,4 +24,22 @@ public interface TaskAttachmentRepository extends JpaRepository<TaskAttachment,
      * 根据任务ID查找所有附件
      */
     List<TaskAttachment> findByTaskTaskId(Integer taskId);
+
+    /**
+     * 按 ID 升序分页读取断点之后的附件（迁移用）
+     */
+    List<TaskAttachment> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
+    /**
+     * 按 ID 升序分页读取区间内仍未迁移（存储名不含 "/"）的附件（重试迁移失败的条目）
+     */
+    @Query("SELECT a FROM TaskAttachment a WHERE a.id > :afterId AND a.id <= :upToId "
+            + "AND a.storedFilename NOT LIKE '%/%' ORDER BY a.id")
+    List<TaskAttachment> findUnmigratedBetween(@Param("afterId") Long afterId, @Param("upToId") Long upToId,
+            Pageable pageable);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE TaskAttachment a SET a.storedFilename = :storedFilename WHERE a.id = :id")
+    int updateStoredFilename(@Param("id") Long id, @Param("storedFilename") String storedFilename);
 }
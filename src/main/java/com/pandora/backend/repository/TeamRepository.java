@@ -2,9 +2,18 @@ package com.pandora.backend.repository;
 
 import com.pandora.backend.entity.Team;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+
 @Repository
 public interface TeamRepository extends JpaRepository<Team, Integer> {
     boolean existsByTeamNameAndDepartmentOrgId(String teamName, Integer orgId);
+
+    /**
+     * 组织关系图加载：[teamId, orgId, teamName]
+     */
+    @Query("select t.teamId, d.orgId, t.teamName from Team t left join t.department d order by t.teamId")
+    List<Object[]> findOrgGraphRows();
 }
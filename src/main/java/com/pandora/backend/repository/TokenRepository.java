@@ -2,11 +2,23 @@ package com.pandora.backend.repository;
 
 import com.pandora.backend.entity.RefreshToken;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.transaction.annotation.Transactional;
+
 import java.time.LocalDateTime;
 
 public interface TokenRepository extends JpaRepository<RefreshToken, Integer> {
 
     @Transactional
     int deleteByExpiresAtBefore(LocalDateTime now);
+
+    /**
+     * 分批删除过期 Token，单条 DELETE 只锁少量行
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM refresh_token WHERE expires_at < :now LIMIT :limit", nativeQuery = true)
+    int deleteExpiredBatch(@Param("now") LocalDateTime now, @Param("limit") int limit);
 }
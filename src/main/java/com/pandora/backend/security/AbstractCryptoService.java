@@ -5,12 +5,19 @@ import java.util.Base64;
 
 abstract class AbstractCryptoService {
 
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    /**
+     * 查表转十六进制（小写），避免逐字节 String.format
+     */
     protected static String toHex(final byte[] bytes) {
-        StringBuilder sb = new StringBuilder(bytes.length * 2);
-        for (byte b : bytes) {
-            sb.append(String.format("%02x", b));
+        char[] chars = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            int v = bytes[i] & 0xff;
+            chars[i * 2] = HEX_DIGITS[v >>> 4];
+            chars[i * 2 + 1] = HEX_DIGITS[v & 0x0f];
         }
-        return sb.toString();
+        return new String(chars);
     }
 
     protected static byte[] utf8(final String value) {
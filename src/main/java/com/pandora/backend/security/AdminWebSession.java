@@ -0,0 +1,9 @@
+package com.pandora.backend.security;
+
+import java.time.Instant;
+
+/**
+ * 管理后台 Web 会话（由 Cookie 中的签名 Token 解析得到，不在服务端保存状态）
+ */
+public record AdminWebSession(Integer adminId, String adminName, String adminEmail, Instant expiresAt) {
+}
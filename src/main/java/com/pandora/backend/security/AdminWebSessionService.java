@@ -0,0 +1,97 @@
+package com.pandora.backend.security;
+
+import com.pandora.backend.util.JwtUtil;
+import io.jsonwebtoken.Claims;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseCookie;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * 管理后台无状态会话
+ * 登录后签发 HttpOnly Cookie 携带 JWT，任意节点都能独立验签，不依赖 HttpSession 和粘性会话；
+ * 剩余有效期不足一半时自动续签
+ */
+@Service
+public class AdminWebSessionService {
+
+    public static final String COOKIE_NAME = "ADMIN_SESSION";
+    private static final String COOKIE_PATH = "/admin";
+
+    private final JwtUtil jwtUtil;
+
+    @Value("${admin.session.ttl-minutes:480}")
+    private long ttlMinutes;
+
+    @Value("${admin.session.cookie-secure:false}")
+    private boolean cookieSecure;
+
+    public AdminWebSessionService(final JwtUtil jwtUtil) {
+        this.jwtUtil = jwtUtil;
+    }
+
+    /**
+     * 签发（或在资料变更后重新签发）会话 Cookie
+     */
+    public void issue(final HttpServletResponse response, final Integer adminId, final String adminName,
+            final String adminEmail) {
+        final Duration ttl = Duration.ofMinutes(ttlMinutes);
+        final String token = jwtUtil.generateAdminWebToken(adminId, adminName, adminEmail, ttl.toMillis());
+        response.addHeader(HttpHeaders.SET_COOKIE, buildCookie(token, ttl).toString());
+    }
+
+    /**
+     * 从请求 Cookie 解析会话；未登录或 Token 无效时返回 null
+     */
+    public AdminWebSession resolve(final HttpServletRequest request) {
+        final Cookie[] cookies = request.getCookies();
+        if (cookies == null) {
+            return null;
+        }
+        for (Cookie cookie : cookies) {
+            if (!COOKIE_NAME.equals(cookie.getName())) {
+                continue;
+            }
+            final Claims claims = jwtUtil.verifyAdminWebToken(cookie.getValue());
+            if (claims == null) {
+                return null;
+            }
+            return new AdminWebSession(Integer.valueOf(claims.getSubject()), claims.get("name", String.class),
+                    claims.get("email", String.class), claims.getExpiration().toInstant());
+        }
+        return null;
+    }
+
+    /**
+     * 滑动续期：剩余有效期不足一半时重新签发
+     */
+    public void renewIfNeeded(final HttpServletResponse response, final AdminWebSession session) {
+        final Duration remaining = Duration.between(Instant.now(), session.expiresAt());
+        if (remaining.compareTo(Duration.ofMinutes(ttlMinutes).dividedBy(2)) < 0) {
+            issue(response, session.adminId(), session.adminName(), session.adminEmail());
+        }
+    }
+
+    /**
+     * 登出：清除 Cookie（Token 本身无状态，到期前仍有效，因此有效期不宜过长）
+     */
+    public void clear(final HttpServletResponse response) {
+        response.addHeader(HttpHeaders.SET_COOKIE, buildCookie("", Duration.ZERO).toString());
+    }
+
+    private ResponseCookie buildCookie(final String value, final Duration maxAge) {
+        return ResponseCookie.from(COOKIE_NAME, value)
+                .httpOnly(true)
+                .secure(cookieSecure)
+                .sameSite("Lax")
+                .path(COOKIE_PATH)
+                .maxAge(maxAge)
+                .build();
+    }
+}
@@ -3,6 +3,10 @@ package com.pandora.backend.security;
 import com.pandora.backend.entity.Employee;
 import org.springframework.stereotype.Component;
 
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
 @Component
 public class EmployeeSecurityMapper {
 
@@ -31,4 +35,17 @@ public class EmployeeSecurityMapper {
         }
         return phoneSecurityService.decryptPhone(employee.getPhoneEnc());
     }
+
+    /**
+     * 批量解密手机号，key 为 employeeId（列表接口使用）
+     */
+    public Map<Integer, String> getPhonePlainMap(final List<Employee> employees) {
+        List<String> plains = phoneSecurityService.decryptPhones(
+                employees.stream().map(Employee::getPhoneEnc).toList());
+        Map<Integer, String> result = new HashMap<>(employees.size() * 2);
+        for (int i = 0; i < employees.size(); i++) {
+            result.put(employees.get(i).getEmployeeId(), plains.get(i));
+        }
+        return result;
+    }
 }
@@ -0,0 +1,13 @@
+package com.pandora.backend.security;
+
+import java.time.Instant;
+
+/**
+ * 验签通过的 Token 中携带的身份信息（不可变）
+ */
+public record JwtPrincipal(Integer userId, Byte position, Instant expiresAt) {
+
+    public boolean isExpired() {
+        return expiresAt != null && !expiresAt.isAfter(Instant.now());
+    }
+}
@@ -0,0 +1,18 @@
+package com.pandora.backend.security;
+
+/**
+ * 密码哈希线程池已满，调用方应稍后重试（对外返回 429）
+ */
+public class PasswordHashBusyException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public PasswordHashBusyException(final long retryAfterSeconds) {
+        super("Password hashing is busy, retry after " + retryAfterSeconds + "s");
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
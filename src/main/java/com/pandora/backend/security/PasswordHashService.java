@@ -1,22 +1,63 @@
 package com.pandora.backend.security;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * 密码哈希与校验
+ * BCrypt 计算放到有界的 passwordHashExecutor 上执行，登录高峰时最多占用与线程池+队列相当的请求线程，
+ * 队列满或等待超时抛出 PasswordHashBusyException
+ */
 @Service
 public class PasswordHashService {
 
+    private static final String METRIC_HASH = "auth.password.hash";
+    private static final String METRIC_REJECTED = "auth.password.rejected";
+    private static final String METRIC_QUEUE = "auth.password.queue";
+
     private final PasswordEncoder passwordEncoder;
+    private final ThreadPoolTaskExecutor passwordHashExecutor;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${auth.password-hash.wait-timeout-ms:5000}")
+    private long waitTimeoutMs;
+
+    @Value("${auth.password-hash.retry-after-seconds:2}")
+    private long retryAfterSeconds;
 
-    public PasswordHashService(final PasswordEncoder passwordEncoder) {
+    public PasswordHashService(
+            final PasswordEncoder passwordEncoder,
+            @Qualifier("passwordHashExecutor") final ThreadPoolTaskExecutor passwordHashExecutor,
+            final MeterRegistry meterRegistry) {
         this.passwordEncoder = passwordEncoder;
+        this.passwordHashExecutor = passwordHashExecutor;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    public void registerMetrics() {
+        meterRegistry.gauge(METRIC_QUEUE, passwordHashExecutor,
+                executor -> executor.getThreadPoolExecutor().getQueue().size());
     }
 
     public String hashPassword(final String rawPassword) {
         if (rawPassword == null || rawPassword.isBlank()) {
             throw new IllegalArgumentException("Password is blank");
         }
-        return passwordEncoder.encode(rawPassword);
+        return runBounded("encode", () -> passwordEncoder.encode(rawPassword));
     }
 
     public boolean matches(final String rawPassword, final String storedPassword) {
@@ -25,7 +66,7 @@ public class PasswordHashService {
         }
 
         if (isBcryptHash(storedPassword)) {
-            return passwordEncoder.matches(rawPassword, storedPassword);
+            return runBounded("verify", () -> passwordEncoder.matches(rawPassword, storedPassword));
         }
 
         return storedPassword.equals(rawPassword);
@@ -34,4 +75,36 @@ public class PasswordHashService {
     private static boolean isBcryptHash(final String value) {
         return value.startsWith("$2a$") || value.startsWith("$2b$") || value.startsWith("$2y$");
     }
+
+    private <T> T runBounded(final String operation, final Supplier<T> task) {
+        final Timer timer = meterRegistry.timer(METRIC_HASH, "operation", operation);
+        final Future<T> future;
+        try {
+            future = passwordHashExecutor.submit(() -> timer.record(task));
+        } catch (TaskRejectedException e) {
+            throw rejected(operation);
+        }
+
+        try {
+            return future.get(waitTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw rejected(operation);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(true);
+            throw new IllegalStateException("Interrupted while hashing password", e);
+        } catch (ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException("Password hashing failed", cause);
+        }
+    }
+
+    private PasswordHashBusyException rejected(final String operation) {
+        meterRegistry.counter(METRIC_REJECTED, "operation", operation).increment();
+        return new PasswordHashBusyException(retryAfterSeconds);
+    }
 }
@@ -8,7 +8,10 @@ import javax.crypto.Mac;
 import javax.crypto.SecretKey;
 import javax.crypto.spec.GCMParameterSpec;
 import javax.crypto.spec.SecretKeySpec;
+import java.security.GeneralSecurityException;
 import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.List;
 
 @Service
 public class PhoneSecurityService extends AbstractCryptoService {
@@ -16,11 +19,17 @@ public class PhoneSecurityService extends AbstractCryptoService {
     private static final String CIPHER_TRANSFORMATION = "AES/GCM/NoPadding";
     private static final int GCM_TAG_LENGTH_BITS = 128;
     private static final int GCM_IV_LENGTH_BYTES = 12;
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
 
     private final SecureRandom secureRandom;
     private final SecretKey encryptionKey;
     private final String hashPepper;
 
+    // Mac/Cipher 非线程安全但可以复用：每个线程持有一份，省去每次 getInstance 的 Provider 查找
+    // Mac 初始化一次后 doFinal 自动重置；GCM 每次加解密的 IV 不同，Cipher 仍需每次 init
+    private final ThreadLocal<Mac> hmac = ThreadLocal.withInitial(this::newHmac);
+    private final ThreadLocal<Cipher> cipher = ThreadLocal.withInitial(PhoneSecurityService::newCipher);
+
     public PhoneSecurityService(
             @Value("${app.security.phone.encryption-key-base64}") final String encryptionKeyBase64,
             @Value("${app.security.phone.hash-pepper:}") final String hashPepper) {
@@ -35,7 +44,7 @@ public class PhoneSecurityService extends AbstractCryptoService {
         secureRandom.nextBytes(iv);
 
         try {
-            Cipher cipher = Cipher.getInstance(CIPHER_TRANSFORMATION);
+            Cipher cipher = this.cipher.get();
             cipher.init(Cipher.ENCRYPT_MODE, encryptionKey, new GCMParameterSpec(GCM_TAG_LENGTH_BITS, iv));
             byte[] ciphertext = cipher.doFinal(utf8(normalized));
 
@@ -49,6 +58,22 @@ public class PhoneSecurityService extends AbstractCryptoService {
     }
 
     public String decryptPhone(final String phoneEnc) {
+        return decryptPhone(cipher.get(), phoneEnc);
+    }
+
+    /**
+     * 批量解密（列表接口使用），整批复用同一个 Cipher；返回顺序与入参一致
+     */
+    public List<String> decryptPhones(final List<String> phoneEncs) {
+        Cipher reused = cipher.get();
+        List<String> result = new ArrayList<>(phoneEncs.size());
+        for (String phoneEnc : phoneEncs) {
+            result.add(decryptPhone(reused, phoneEnc));
+        }
+        return result;
+    }
+
+    private String decryptPhone(final Cipher cipher, final String phoneEnc) {
         if (phoneEnc == null || phoneEnc.isBlank()) {
             return null;
         }
@@ -68,15 +93,11 @@ public class PhoneSecurityService extends AbstractCryptoService {
             return normalizePhone(phoneEnc);
         }
 
-        byte[] iv = new byte[GCM_IV_LENGTH_BYTES];
-        byte[] ciphertext = new byte[combined.length - GCM_IV_LENGTH_BYTES];
-        System.arraycopy(combined, 0, iv, 0, GCM_IV_LENGTH_BYTES);
-        System.arraycopy(combined, GCM_IV_LENGTH_BYTES, ciphertext, 0, ciphertext.length);
-
         try {
-            Cipher cipher = Cipher.getInstance(CIPHER_TRANSFORMATION);
-            cipher.init(Cipher.DECRYPT_MODE, encryptionKey, new GCMParameterSpec(GCM_TAG_LENGTH_BITS, iv));
-            byte[] plainBytes = cipher.doFinal(ciphertext);
+            // IV 和密文直接按偏移量读取，不再拷贝到单独的数组
+            cipher.init(Cipher.DECRYPT_MODE, encryptionKey,
+                    new GCMParameterSpec(GCM_TAG_LENGTH_BITS, combined, 0, GCM_IV_LENGTH_BYTES));
+            byte[] plainBytes = cipher.doFinal(combined, GCM_IV_LENGTH_BYTES, combined.length - GCM_IV_LENGTH_BYTES);
             return normalizePhone(new String(plainBytes));
         } catch (Exception e) {
             throw new IllegalStateException("Phone decryption failed", e);
@@ -86,10 +107,7 @@ public class PhoneSecurityService extends AbstractCryptoService {
     public String hashPhone(final String plainPhone) {
         String normalized = normalizePhone(plainPhone);
         try {
-            Mac mac = Mac.getInstance("HmacSHA256");
-            SecretKeySpec secretKey = new SecretKeySpec(utf8(hashPepper), "HmacSHA256");
-            mac.init(secretKey);
-            return toHex(mac.doFinal(utf8(normalized)));
+            return toHex(hmac.get().doFinal(utf8(normalized)));
         } catch (Exception e) {
             throw new IllegalStateException("Phone hash failed", e);
         }
@@ -102,6 +120,24 @@ public class PhoneSecurityService extends AbstractCryptoService {
         return isLikelyPlainPhone(phoneEnc);
     }
 
+    private Mac newHmac() {
+        try {
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(new SecretKeySpec(utf8(hashPepper), HMAC_ALGORITHM));
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HMAC init failed", e);
+        }
+    }
+
+    private static Cipher newCipher() {
+        try {
+            return Cipher.getInstance(CIPHER_TRANSFORMATION);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Cipher init failed", e);
+        }
+    }
+
     private static String normalizePhone(final String value) {
         if (value == null) {
             return "";
@@ -2,6 +2,7 @@ package com.pandora.backend.service;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -19,8 +20,12 @@ import com.pandora.backend.security.EmployeeSecurityMapper;
 import com.pandora.backend.security.PasswordHashService;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 import java.util.stream.Collectors;
 import java.io.IOException;
@@ -55,6 +60,9 @@ public class AdminService {
     @Autowired
     private PasswordHashService passwordHashService;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     @Value("${app.upload.dir:uploads}")
     private String uploadDir;
 
@@ -65,13 +73,14 @@ public class AdminService {
      */
     public List<EmployeeDTO> getAllEmployees() {
         List<Employee> employees = employeeRepository.findAll();
+        Map<Integer, String> phones = employeeSecurityMapper.getPhonePlainMap(employees);
         return employees.stream()
                 .map(emp -> {
                     EmployeeDTO dto = new EmployeeDTO();
                     dto.setEmployeeId(emp.getEmployeeId());
                     dto.setEmployeeName(emp.getEmployeeName());
                     dto.setGender(emp.getGender().getDesc());
-                    dto.setPhone(employeeSecurityMapper.getPhonePlain(emp));
+                    dto.setPhone(phones.get(emp.getEmployeeId()));
                     dto.setEmail(emp.getEmail());
                     dto.setPosition(emp.getPosition());
                     if (emp.getDepartment() != null) {
@@ -156,6 +165,7 @@ public class AdminService {
         }
 
         Employee saved = employeeRepository.save(emp);
+        publishOrgGraphChanged("employee-saved");
 
         EmployeeDTO result = new EmployeeDTO();
         result.setEmployeeId(saved.getEmployeeId());
@@ -197,6 +207,7 @@ public class AdminService {
 
         Team saved = teamRepository.save(team);
         syncTeamMembers(saved, dto.getMemberIds(), dto.getLeaderId());
+        publishOrgGraphChanged("team-saved");
         return convertToTeamDto(saved);
     }
 
@@ -242,6 +253,7 @@ public class AdminService {
         }
 
         Employee saved = employeeRepository.save(emp);
+        publishOrgGraphChanged("employee-saved");
 
         EmployeeDTO result = new EmployeeDTO();
         result.setEmployeeId(saved.getEmployeeId());
@@ -289,6 +301,7 @@ public class AdminService {
 
         Team saved = teamRepository.save(team);
         syncTeamMembers(saved, dto.getMemberIds(), dto.getLeaderId());
+        publishOrgGraphChanged("team-saved");
         return convertToTeamDto(saved);
     }
 
@@ -308,6 +321,7 @@ public class AdminService {
 
         emp.setDepartment(department);
         employeeRepository.save(emp);
+        publishOrgGraphChanged("department-transfer");
     }
 
     /**
@@ -316,6 +330,7 @@ public class AdminService {
     @Transactional
     public void deleteEmployee(Integer id) {
         employeeRepository.deleteById(id);
+        publishOrgGraphChanged("employee-deleted");
     }
 
     /**
@@ -326,12 +341,17 @@ public class AdminService {
         Team team = teamRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Team not found with id: " + id));
 
-        List<Employee_Team> relations = employeeTeamRepository.findByTeamTeamId(id);
-        if (!relations.isEmpty()) {
-            employeeTeamRepository.deleteAll(relations);
-        }
+        employeeTeamRepository.deleteByTeamId(id);
 
         teamRepository.delete(team);
+        publishOrgGraphChanged("team-deleted");
+    }
+
+    /**
+     * 组织关系变更后通知权限缓存，事务提交后才生效
+     */
+    private void publishOrgGraphChanged(String reason) {
+        eventPublisher.publishEvent(new OrgGraphChangedEvent(reason));
     }
 
     private TeamDTO convertToTeamDto(Team team) {
@@ -343,7 +363,7 @@ public class AdminService {
             dto.setOrgName(team.getDepartment().getOrgName());
         }
 
-        List<Employee_Team> relations = employeeTeamRepository.findByTeamTeamId(team.getTeamId());
+        List<Employee_Team> relations = employeeTeamRepository.findWithEmployeeByTeamId(team.getTeamId());
         dto.setMemberCount(relations.size());
 
         List<String> memberNames = new ArrayList<>();
@@ -366,42 +386,107 @@ public class AdminService {
         return dto;
     }
 
+    /**
+     * 按差异同步团队成员：只删除多出的、插入缺少的，再用一条语句设置团队长
+     */
     private void syncTeamMembers(Team team, List<Integer> memberIds, Integer leaderId) {
-        List<Employee_Team> existing = employeeTeamRepository.findByTeamTeamId(team.getTeamId());
-        if (!existing.isEmpty()) {
-            employeeTeamRepository.deleteAll(existing);
+        Set<Integer> desired = toIdSet(memberIds);
+        if (leaderId != null) {
+            desired.add(leaderId);
         }
 
-        if ((memberIds == null || memberIds.isEmpty()) && leaderId == null) {
-            return;
+        Set<Integer> current = new HashSet<>(employeeTeamRepository.findMemberIds(team.getTeamId()));
+        Set<Integer> toRemove = new HashSet<>(current);
+        toRemove.removeAll(desired);
+        Set<Integer> toAdd = new LinkedHashSet<>(desired);
+        toAdd.removeAll(current);
+
+        applyMemberDiff(team.getTeamId(), toAdd, toRemove);
+        employeeTeamRepository.assignLeader(team.getTeamId(), leaderId);
+    }
+
+    private void applyMemberDiff(Integer teamId, Set<Integer> toAdd, Set<Integer> toRemove) {
+        if (!toRemove.isEmpty()) {
+            employeeTeamRepository.deleteMembers(teamId, toRemove);
+        }
+        if (!toAdd.isEmpty()) {
+            requireEmployeesExist(toAdd);
+            employeeTeamRepository.insertMembers(teamId, toAdd);
         }
+    }
 
-        Set<Integer> uniqueMemberIds = new LinkedHashSet<>();
-        if (memberIds != null) {
-            uniqueMemberIds.addAll(memberIds);
+    private void requireEmployeesExist(Set<Integer> employeeIds) {
+        Set<Integer> missing = new LinkedHashSet<>(employeeIds);
+        missing.removeAll(employeeRepository.findExistingIds(employeeIds));
+        if (!missing.isEmpty()) {
+            throw new RuntimeException("Employee not found with id: " + missing.iterator().next());
         }
-        if (leaderId != null) {
-            uniqueMemberIds.add(leaderId);
+    }
+
+    /**
+     * 批量调整团队（部门重组）
+     * 所有团队的成员增减和团队长变更在同一事务中执行，每个团队只需几条集合语句，任一项校验失败整体回滚
+     */
+    @Transactional
+    public List<TeamDTO> restructureTeams(TeamRestructureDTO dto) {
+        if (dto == null || dto.getChanges() == null || dto.getChanges().isEmpty()) {
+            throw new IllegalArgumentException("调整内容不能为空");
         }
 
-        for (Integer memberId : uniqueMemberIds) {
-            if (memberId == null) {
-                continue;
+        Set<Integer> teamIds = new LinkedHashSet<>();
+        Set<Integer> addedIds = new HashSet<>();
+        for (TeamRestructureDTO.TeamChange change : dto.getChanges()) {
+            if (change.getTeamId() == null || !teamIds.add(change.getTeamId())) {
+                throw new IllegalArgumentException("团队ID为空或重复");
             }
-            Employee employee = employeeRepository.findById(memberId)
-                    .orElseThrow(() -> new RuntimeException("Employee not found with id: " + memberId));
-
-            Employee_Team relation = new Employee_Team();
-            EmployeeTeamId relationId = new EmployeeTeamId();
-            relationId.setEmployeeId(employee.getEmployeeId());
-            relationId.setTeamId(team.getTeamId());
-            relation.setId(relationId);
-            relation.setEmployee(employee);
-            relation.setTeam(team);
-            relation.setIsLeader((byte) ((leaderId != null && leaderId.equals(memberId)) ? 1 : 0));
-
-            employeeTeamRepository.save(relation);
+            addedIds.addAll(toIdSet(change.getAddMemberIds()));
         }
+
+        Map<Integer, Team> teams = teamRepository.findAllById(teamIds).stream()
+                .collect(Collectors.toMap(Team::getTeamId, t -> t));
+        for (Integer teamId : teamIds) {
+            if (!teams.containsKey(teamId)) {
+                throw new RuntimeException("Team not found with id: " + teamId);
+            }
+        }
+        if (!addedIds.isEmpty()) {
+            requireEmployeesExist(addedIds);
+        }
+
+        for (TeamRestructureDTO.TeamChange change : dto.getChanges()) {
+            Set<Integer> toAdd = toIdSet(change.getAddMemberIds());
+            Set<Integer> toRemove = toIdSet(change.getRemoveMemberIds());
+            if (!Collections.disjoint(toAdd, toRemove)) {
+                throw new IllegalArgumentException("同一员工不能同时加入和移出团队");
+            }
+
+            if (!toRemove.isEmpty()) {
+                employeeTeamRepository.deleteMembers(change.getTeamId(), toRemove);
+            }
+            if (!toAdd.isEmpty()) {
+                employeeTeamRepository.insertMembers(change.getTeamId(), toAdd);
+            }
+            if (change.getLeaderId() != null) {
+                if (!employeeTeamRepository.existsByTeamTeamIdAndEmployeeEmployeeId(
+                        change.getTeamId(), change.getLeaderId())) {
+                    throw new IllegalArgumentException("团队长必须是该团队成员");
+                }
+                employeeTeamRepository.assignLeader(change.getTeamId(), change.getLeaderId());
+            }
+        }
+
+        publishOrgGraphChanged("team-restructure");
+        return teamIds.stream()
+                .map(teamId -> convertToTeamDto(teams.get(teamId)))
+                .collect(Collectors.toList());
+    }
+
+    private static Set<Integer> toIdSet(List<Integer> ids) {
+        Set<Integer> result = new LinkedHashSet<>();
+        if (ids != null) {
+            ids.stream().filter(Objects::nonNull).forEach(result::add);
+        }
+        return result;
     }
 
     /**
@@ -526,6 +611,7 @@ public class AdminService {
         // 4. 最后，更新 employee 表中的 position 字段
         employee.setPosition(newPosition.getCode());
         Employee savedEmployee = employeeRepository.save(employee);
+        publishOrgGraphChanged("position-updated");
 
         // 5. 返回更新后的员工信息（复用您已有的转换逻辑）
         return convertToEmployeeDto(savedEmployee);
@@ -544,12 +630,7 @@ public class AdminService {
         });
 
         // 如果该员工之前是某个团队的队长，则将他的 is_leader 标志位移除
-        employeeTeamRepository.findAll().forEach(relation -> {
-            if (relation.getEmployee().equals(employee) && relation.getIsLeader() == 1) {
-                relation.setIsLeader((byte) 0);
-                employeeTeamRepository.save(relation);
-            }
-        });
+        employeeTeamRepository.clearLeaderFlags(employee.getEmployeeId());
     }
 
     /**
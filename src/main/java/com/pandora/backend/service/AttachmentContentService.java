@@ -0,0 +1,184 @@
+package com.pandora.backend.service;
+
+import com.pandora.backend.entity.AttachmentContent;
+import com.pandora.backend.repository.AttachmentContentRepository;
+import com.pandora.backend.upload.service.LocalTempFileService;
+import com.pandora.backend.upload.service.StagedTempFile;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.StringUtils;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * 附件内容去重
+ * 文件先落到本地暂存并顺带计算 SHA-256，命中内容索引时直接复用已有 OSS 对象并增加引用计数，
+ * 未命中才上传；每次上传使用独立的对象 key，回滚或重复登记时只清理本次上传的对象。
+ * OSS 删除统一放到事务提交之后执行，外层事务回滚时不会误删仍被引用的对象
+ */
+@Slf4j
+@Service
+public class AttachmentContentService {
+
+    private final AttachmentContentRepository attachmentContentRepository;
+    private final LocalTempFileService localTempFileService;
+    private final OssService ossService;
+    private final AttachmentThumbnailService attachmentThumbnailService;
+
+    @Value("${aliyun.oss.dir-prefix:attachments/}")
+    private String dirPrefix;
+
+    public AttachmentContentService(
+            final AttachmentContentRepository attachmentContentRepository,
+            final LocalTempFileService localTempFileService,
+            final OssService ossService,
+            final AttachmentThumbnailService attachmentThumbnailService) {
+        this.attachmentContentRepository = attachmentContentRepository;
+        this.localTempFileService = localTempFileService;
+        this.ossService = ossService;
+        this.attachmentThumbnailService = attachmentThumbnailService;
+    }
+
+    /**
+     * 存储上传的附件，返回 OSS 对象 key；相同内容只上传一次
+     */
+    public String store(final Integer userId, final MultipartFile file) throws IOException {
+        final String extension = StringUtils.getFilenameExtension(file.getOriginalFilename());
+        final StagedTempFile staged;
+        try (InputStream is = file.getInputStream()) {
+            staged = localTempFileService.saveToTempFile(userId, is, extension == null ? "bin" : extension);
+        }
+
+        boolean handedOff = false;
+        try {
+            final Optional<String> existing = acquire(staged.sha256());
+            if (existing.isPresent()) {
+                log.info("附件内容命中去重索引，跳过上传: hash={}, key={}", staged.sha256(), existing.get());
+                return existing.get();
+            }
+
+            final String objectKey = buildContentKey(staged.sha256(), extension);
+            ossService.uploadLocalFile(staged.path(), objectKey);
+            final String registeredKey = register(staged.sha256(), objectKey, staged.size());
+            if (registeredKey.equals(objectKey)) {
+                handOffFreshUpload(objectKey, staged.path());
+                handedOff = true;
+            }
+            return registeredKey;
+        } finally {
+            if (!handedOff) {
+                Files.deleteIfExists(staged.path());
+            }
+        }
+    }
+
+    /**
+     * 按内容哈希引用已有对象：条件更新成功（引用数仍大于 0）才算命中，
+     * 此后引用数至少为 2，并发的释放不会再删除该对象；未命中时由调用方上传并登记
+     */
+    public Optional<String> acquire(final String contentHash) {
+        if (contentHash == null) {
+            return Optional.empty();
+        }
+        if (attachmentContentRepository.acquireReference(contentHash, LocalDateTime.now()) == 0) {
+            return Optional.empty();
+        }
+        return attachmentContentRepository.findByContentHash(contentHash).map(AttachmentContent::getObjectKey);
+    }
+
+    /**
+     * 登记新上传的对象；并发场景下若同一哈希已被他人登记，则引用已登记的对象并删除本次上传的重复对象
+     *
+     * @return 最终引用的对象 key
+     */
+    public String register(final String contentHash, final String objectKey, final long fileSize) {
+        attachmentContentRepository.upsertReference(contentHash, objectKey, fileSize, LocalDateTime.now());
+        final String registeredKey = attachmentContentRepository.findByContentHash(contentHash)
+                .map(AttachmentContent::getObjectKey)
+                .orElse(objectKey);
+        if (!registeredKey.equals(objectKey)) {
+            ossService.deleteFile(objectKey);
+        }
+        return registeredKey;
+    }
+
+    /**
+     * 释放一次引用：锁定内容行后条件减一，已是最后一个引用时删除内容行，
+     * OSS 对象在事务提交后删除；未登记在索引中的历史对象不做处理
+     */
+    @Transactional
+    public void release(final String objectKey) {
+        attachmentContentRepository.findByObjectKeyForUpdate(objectKey).ifPresent(content -> {
+            if (attachmentContentRepository.decrementIfShared(content.getContentId(), LocalDateTime.now()) > 0) {
+                return;
+            }
+            if (attachmentContentRepository.deleteIfLastReference(content.getContentId()) > 0) {
+                afterCommit(() -> {
+                    ossService.deleteFile(objectKey);
+                    attachmentThumbnailService.deleteThumbnail(objectKey);
+                    log.info("附件内容引用归零，已删除 OSS 对象: {}", objectKey);
+                });
+            }
+        });
+    }
+
+    /**
+     * 本次新上传的对象：事务提交后把暂存文件交给缩略图线程池生成缩略图（由其负责删除暂存文件），
+     * 请求线程不做解码；外层事务回滚时删除本次上传的对象和暂存文件，避免留下无人引用的对象
+     */
+    private void handOffFreshUpload(final String objectKey, final Path localFile) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            attachmentThumbnailService.generateFromFileAsync(objectKey, localFile);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(final int status) {
+                if (status == STATUS_COMMITTED) {
+                    attachmentThumbnailService.generateFromFileAsync(objectKey, localFile);
+                    return;
+                }
+                if (status == STATUS_ROLLED_BACK) {
+                    ossService.deleteFile(objectKey);
+                    log.info("附件事务回滚，已删除本次上传的 OSS 对象: {}", objectKey);
+                }
+                try {
+                    Files.deleteIfExists(localFile);
+                } catch (IOException e) {
+                    log.warn("删除附件暂存文件失败: {}", localFile, e);
+                }
+            }
+        });
+    }
+
+    private void afterCommit(final Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private String buildContentKey(final String contentHash, final String extension) {
+        // 追加随机后缀：释放时对象在提交后才删除，若与重新上传共用同一 key 会删掉新对象
+        return dirPrefix + "sha256/" + contentHash.substring(0, 2) + "/" + contentHash + "-"
+                + UUID.randomUUID().toString().replace("-", "").substring(0, 8)
+                + (extension != null ? "." + extension.toLowerCase() : "");
+    }
+}
@@ -1,25 +1,43 @@
 package com.pandora.backend.service;
 
+import com.aliyun.oss.model.ObjectMetadata;
 import com.pandora.backend.entity.LogAttachment;
 import com.pandora.backend.entity.TaskAttachment;
 import com.pandora.backend.repository.LogAttachmentRepository;
 import com.pandora.backend.repository.TaskAttachmentRepository;
+import com.pandora.backend.security.JwtPrincipal;
+import com.pandora.backend.service.OssObjectCacheService.ObjectInfo;
 import com.pandora.backend.util.JwtUtil;
+import com.pandora.backend.util.RedisUtil;
 
 import lombok.extern.slf4j.Slf4j;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.InputStreamResource;
 import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
+import org.springframework.util.DigestUtils;
 
 import jakarta.servlet.http.HttpServletRequest;
 
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
 import java.net.URLEncoder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 
 /**
  * 通用附件服务
@@ -29,6 +47,9 @@ import java.nio.charset.StandardCharsets;
 @Service
 public class AttachmentService {
 
+    private static final String REDIRECT_MODE = "redirect";
+    private static final String PRESIGNED_URL_CACHE_PREFIX = "attachment:presigned:";
+
     @Autowired
     private LogAttachmentRepository logAttachmentRepository;
 
@@ -43,6 +64,27 @@ public class AttachmentService {
     @Autowired
     private JwtUtil jwtUtil;
 
+    @Autowired
+    private RedisUtil redisUtil;
+
+    @Autowired
+    private OssObjectCacheService ossObjectCacheService;
+
+    @Autowired
+    private AttachmentThumbnailService attachmentThumbnailService;
+
+    @Value("${attachment.cache.max-age-seconds:3600}")
+    private long cacheMaxAgeSeconds;
+
+    /**
+     * proxy：经后端代理传输；redirect：鉴权后 302 跳转到 OSS 预签名 URL，流量不经过后端
+     */
+    @Value("${attachment.download.mode:proxy}")
+    private String downloadMode;
+
+    @Value("${attachment.download.presign-expire-seconds:600}")
+    private int presignExpireSeconds;
+
     /**
      * 从请求中提取 Token
      */
@@ -64,10 +106,8 @@ public class AttachmentService {
         if (token == null || token.isEmpty()) {
             return null;
         }
-        if (!jwtUtil.validateToken(token)) {
-            return null;
-        }
-        return jwtUtil.extractUserId(token);
+        JwtPrincipal principal = jwtUtil.verify(token);
+        return principal != null ? principal.userId() : null;
     }
 
     /**
@@ -106,7 +146,7 @@ public class AttachmentService {
                     attachment.getStoredFilename(),
                     attachment.getOriginalFilename(),
                     attachment.getFileType(),
-                    attachment.getFileSize());
+                    request);
 
         } catch (Exception e) {
             log.error("[日志附件下载] 500 ERROR - 附件ID: {}, 错误: {}", attachmentId, e.getMessage(), e);
@@ -143,7 +183,7 @@ public class AttachmentService {
                     attachment.getStoredFilename(),
                     attachment.getOriginalFilename(),
                     attachment.getFileType(),
-                    attachment.getFileSize());
+                    request);
 
         } catch (Exception e) {
             log.error("[日志附件预览] 500 ERROR - 附件ID: {}, 错误: {}", attachmentId, e.getMessage(), e);
@@ -186,7 +226,7 @@ public class AttachmentService {
                     attachment.getStoredFilename(),
                     attachment.getOriginalFilename(),
                     attachment.getFileType(),
-                    attachment.getFileSize());
+                    request);
 
         } catch (Exception e) {
             log.error("[任务附件下载] 500 ERROR - 附件ID: {}, 错误: {}", attachmentId, e.getMessage(), e);
@@ -225,7 +265,7 @@ public class AttachmentService {
                     attachment.getStoredFilename(),
                     attachment.getOriginalFilename(),
                     attachment.getFileType(),
-                    attachment.getFileSize());
+                    request);
 
         } catch (Exception e) {
             log.error("[任务附件预览] 500 ERROR - 附件ID: {}, 错误: {}", attachmentId, e.getMessage(), e);
@@ -233,6 +273,87 @@ public class AttachmentService {
         }
     }
 
+    /**
+     * 日志附件缩略图
+     */
+    public ResponseEntity<Resource> thumbnailLogAttachment(
+            Long attachmentId,
+            String tokenParam,
+            HttpServletRequest request) {
+
+        try {
+            String token = extractToken(tokenParam, request);
+            Integer userId = validateAndExtractUserId(token);
+            if (userId == null) {
+                log.warn("[日志附件缩略图] 401 UNAUTHORIZED - 附件ID: {}", attachmentId);
+                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(null);
+            }
+
+            LogAttachment attachment = logAttachmentRepository.findById(attachmentId)
+                    .orElseThrow(() -> new RuntimeException("附件未找到"));
+
+            if (attachment.getLog() == null ||
+                    !attachment.getLog().getEmployee().getEmployeeId().equals(userId)) {
+                log.warn("[日志附件缩略图] 403 FORBIDDEN - 附件ID: {}, 用户ID: {}", attachmentId, userId);
+                return ResponseEntity.status(HttpStatus.FORBIDDEN).body(null);
+            }
+
+            return buildThumbnailResponse(attachment.getStoredFilename(), request);
+
+        } catch (Exception e) {
+            log.error("[日志附件缩略图] 500 ERROR - 附件ID: {}, 错误: {}", attachmentId, e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    /**
+     * 任务附件缩略图
+     */
+    public ResponseEntity<Resource> thumbnailTaskAttachment(
+            Long attachmentId,
+            String tokenParam,
+            HttpServletRequest request) {
+
+        try {
+            String token = extractToken(tokenParam, request);
+            Integer userId = validateAndExtractUserId(token);
+            if (userId == null) {
+                log.warn("[任务附件缩略图] 401 UNAUTHORIZED - 附件ID: {}", attachmentId);
+                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(null);
+            }
+
+            TaskAttachment attachment = taskAttachmentRepository.findById(attachmentId)
+                    .orElseThrow(() -> new RuntimeException("附件未找到"));
+
+            if (attachment.getTask() == null ||
+                    (!attachment.getTask().getSender().getEmployeeId().equals(userId) &&
+                            (attachment.getTask().getAssignee() == null ||
+                                    !attachment.getTask().getAssignee().getEmployeeId().equals(userId)))) {
+                log.warn("[任务附件缩略图] 403 FORBIDDEN - 附件ID: {}, 用户ID: {}", attachmentId, userId);
+                return ResponseEntity.status(HttpStatus.FORBIDDEN).body(null);
+            }
+
+            return buildThumbnailResponse(attachment.getStoredFilename(), request);
+
+        } catch (Exception e) {
+            log.error("[任务附件缩略图] 500 ERROR - 附件ID: {}, 错误: {}", attachmentId, e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    /**
+     * 缩略图响应：不支持的类型返回 404，客户端显示文件类型图标
+     */
+    private ResponseEntity<Resource> buildThumbnailResponse(String storedFilename, HttpServletRequest request)
+            throws IOException {
+        Optional<String> thumbKey = attachmentThumbnailService.ensureThumbnail(storedFilename);
+        if (thumbKey.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        }
+        return buildObjectResponse(thumbKey.get(), "thumbnail.jpg", AttachmentThumbnailService.THUMBNAIL_CONTENT_TYPE,
+                "inline", request);
+    }
+
     /**
      * 构建下载响应（通用方法）
      */
@@ -240,42 +361,237 @@ public class AttachmentService {
             String storedFilename,
             String originalFilename,
             String fileType,
-            Long fileSize) throws Exception {
+            HttpServletRequest request) throws IOException {
+        if (REDIRECT_MODE.equals(downloadMode)) {
+            return buildRedirectResponse(storedFilename, originalFilename, fileType, "attachment");
+        }
+        return buildObjectResponse(storedFilename, originalFilename, fileType, "attachment", request);
+    }
 
-        // Resource resource = fileStorageService.loadFileAsResource(storedFilename);
-        Resource resource = ossService.getFileAsResource(storedFilename);
+    /**
+     * 构建预览响应（通用方法）
+     */
+    private ResponseEntity<Resource> buildPreviewResponse(
+            String storedFilename,
+            String originalFilename,
+            String fileType,
+            HttpServletRequest request) throws IOException {
+        if (REDIRECT_MODE.equals(downloadMode)) {
+            return buildRedirectResponse(storedFilename, originalFilename, fileType, "inline");
+        }
+        return buildObjectResponse(storedFilename, originalFilename, fileType, "inline", request);
+    }
 
+    /**
+     * 302 跳转到预签名 URL；URL 按附件和展示方式缓存在 Redis，缓存时长为有效期的 80%，
+     * 保证发出去的 URL 至少还有 1/5 的有效期，同时让浏览器对同一附件拿到相同 URL 以命中自身缓存
+     */
+    private ResponseEntity<Resource> buildRedirectResponse(
+            String storedFilename,
+            String originalFilename,
+            String fileType,
+            String dispositionType) {
         String encodedFilename = URLEncoder.encode(originalFilename, StandardCharsets.UTF_8)
                 .replaceAll("\\+", "%20");
+        String contentDisposition = dispositionType + "; filename*=UTF-8''" + encodedFilename;
+        // 去重后不同附件可能共用同一对象，缓存 key 需包含文件名和类型
+        String cacheKey = PRESIGNED_URL_CACHE_PREFIX + storedFilename + ":" + DigestUtils.md5DigestAsHex(
+                (contentDisposition + "|" + fileType).getBytes(StandardCharsets.UTF_8));
+        Object cached = redisUtil.get(cacheKey);
+        String url;
+        if (cached instanceof String cachedUrl) {
+            url = cachedUrl;
+        } else {
+            url = ossService.generatePresignedUrl(storedFilename, presignExpireSeconds, contentDisposition, fileType);
+            redisUtil.set(cacheKey, url, presignExpireSeconds * 4L / 5, TimeUnit.SECONDS);
+        }
 
-        return ResponseEntity.ok()
-                .header(HttpHeaders.CONTENT_DISPOSITION,
-                        "attachment; filename*=UTF-8''" + encodedFilename)
-                .contentType(MediaType.parseMediaType(fileType))
-                .contentLength(fileSize)
-                .body(resource);
+        return ResponseEntity.status(HttpStatus.FOUND)
+                .location(URI.create(url))
+                .cacheControl(CacheControl.noStore())
+                .build();
     }
 
     /**
-     * 构建预览响应（通用方法）
+     * 代理 OSS 对象：先取 ETag/Last-Modified（磁盘缓存近期确认过的直接读索引，否则 HEAD），
+     * 命中客户端缓存时直接 304；
+     * 本地磁盘缓存命中时从已打开的本地文件发送，否则带 Range 时只向 OSS 拉取对应区间并返回 206
      */
-    private ResponseEntity<Resource> buildPreviewResponse(
+    private ResponseEntity<Resource> buildObjectResponse(
             String storedFilename,
             String originalFilename,
             String fileType,
-            Long fileSize) throws Exception {
+            String dispositionType,
+            HttpServletRequest request) throws IOException {
+
+        ObjectInfo info = ossObjectCacheService.findVerified(storedFilename)
+                .orElseGet(() -> headObject(storedFilename));
+        String etag = "\"" + info.etag() + "\"";
+        long lastModified = info.lastModified();
+        long contentLength = info.contentLength();
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setETag(etag);
+        if (lastModified >= 0) {
+            headers.setLastModified(lastModified);
+        }
+        headers.setCacheControl(CacheControl.maxAge(cacheMaxAgeSeconds, TimeUnit.SECONDS).cachePrivate());
+        headers.set(HttpHeaders.ACCEPT_RANGES, "bytes");
 
-        // Resource resource = fileStorageService.loadFileAsResource(storedFilename);
-        Resource resource = ossService.getFileAsResource(storedFilename);
+        if (isNotModified(request, etag, lastModified)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).headers(headers).build();
+        }
 
         String encodedFilename = URLEncoder.encode(originalFilename, StandardCharsets.UTF_8)
                 .replaceAll("\\+", "%20");
+        headers.set(HttpHeaders.CONTENT_DISPOSITION, dispositionType + "; filename*=UTF-8''" + encodedFilename);
+        headers.setContentType(MediaType.parseMediaType(fileType));
+
+        String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+        if (rangeHeader != null && contentLength > 0 && isIfRangeSatisfied(request, etag, lastModified)) {
+            long[] range;
+            try {
+                range = resolveRange(rangeHeader, contentLength);
+            } catch (IllegalArgumentException e) {
+                headers.set(HttpHeaders.CONTENT_RANGE, "bytes */" + contentLength);
+                return ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE).headers(headers).build();
+            }
+            headers.set(HttpHeaders.CONTENT_RANGE, "bytes " + range[0] + "-" + range[1] + "/" + contentLength);
+            headers.setContentLength(range[1] - range[0] + 1);
+            Optional<FileChannel> cachedFile = ossObjectCacheService.find(storedFilename, info.etag());
+            if (cachedFile.isPresent()) {
+                FileChannel channel = cachedFile.get().position(range[0]);
+                return ResponseEntity.status(HttpStatus.PARTIAL_CONTENT)
+                        .headers(headers)
+                        .body(new InputStreamResource(
+                                new RangeInputStream(Channels.newInputStream(channel), range[1] - range[0] + 1)));
+            }
+            return ResponseEntity.status(HttpStatus.PARTIAL_CONTENT)
+                    .headers(headers)
+                    .body(new InputStreamResource(ossService.getObjectRange(storedFilename, range[0], range[1])));
+        }
 
+        // 完整响应体只用 InputStreamResource：其它 Resource 类型的 200 响应遇到请求带 Range 时，
+        // Spring MVC 会自行切分成 206，而 If-Range 不匹配时必须返回完整内容
+        headers.setContentLength(contentLength);
+        Optional<FileChannel> cachedFile = ossObjectCacheService.resolve(storedFilename, info);
+        if (cachedFile.isPresent()) {
+            return ResponseEntity.ok()
+                    .headers(headers)
+                    .body(new InputStreamResource(Channels.newInputStream(cachedFile.get())));
+        }
         return ResponseEntity.ok()
-                .header(HttpHeaders.CONTENT_DISPOSITION,
-                        "inline; filename*=UTF-8''" + encodedFilename)
-                .contentType(MediaType.parseMediaType(fileType))
-                .contentLength(fileSize)
-                .body(resource);
+                .headers(headers)
+                .body(new InputStreamResource(ossService.getFileAsResource(storedFilename).getInputStream()));
+    }
+
+    /**
+     * 向 OSS 发起 HEAD 取元数据，并回写磁盘缓存的确认时间
+     */
+    private ObjectInfo headObject(String storedFilename) {
+        ObjectMetadata metadata = ossService.getObjectMetadata(storedFilename);
+        long lastModified = metadata.getLastModified() != null ? metadata.getLastModified().getTime() : -1;
+        ObjectInfo info = new ObjectInfo(metadata.getETag(), metadata.getContentLength(), lastModified);
+        ossObjectCacheService.markVerified(storedFilename, info);
+        return info;
+    }
+
+    /**
+     * 只读取区间长度的字节，关闭时一并关闭底层文件
+     */
+    private static final class RangeInputStream extends FilterInputStream {
+
+        private long remaining;
+
+        RangeInputStream(InputStream in, long length) {
+            super(in);
+            this.remaining = length;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int b = super.read();
+            if (b >= 0) {
+                remaining--;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int n = super.read(b, off, (int) Math.min(len, remaining));
+            if (n > 0) {
+                remaining -= n;
+            }
+            return n;
+        }
+    }
+
+    /**
+     * If-None-Match 优先；没有时再看 If-Modified-Since
+     */
+    private boolean isNotModified(HttpServletRequest request, String etag, long lastModified) {
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch != null) {
+            for (String candidate : ifNoneMatch.split(",")) {
+                String tag = candidate.trim();
+                if (tag.equals("*") || stripWeak(tag).equals(etag)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        long ifModifiedSince = parseDateHeader(request, HttpHeaders.IF_MODIFIED_SINCE);
+        return ifModifiedSince >= 0 && lastModified >= 0 && lastModified / 1000 <= ifModifiedSince / 1000;
+    }
+
+    /**
+     * If-Range 与当前版本不一致时忽略 Range，返回完整内容
+     */
+    private boolean isIfRangeSatisfied(HttpServletRequest request, String etag, long lastModified) {
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange == null) {
+            return true;
+        }
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            return ifRange.equals(etag);
+        }
+        long ifRangeDate = parseDateHeader(request, HttpHeaders.IF_RANGE);
+        return ifRangeDate >= 0 && lastModified >= 0 && lastModified / 1000 == ifRangeDate / 1000;
+    }
+
+    /**
+     * 解析 Range 为 [start, end]；多个区间合并为覆盖它们的单个区间，只发起一次 OSS 请求
+     */
+    private long[] resolveRange(String rangeHeader, long contentLength) {
+        List<HttpRange> ranges = HttpRange.parseRanges(rangeHeader);
+        if (ranges.isEmpty()) {
+            throw new IllegalArgumentException("Empty range");
+        }
+        long start = Long.MAX_VALUE;
+        long end = -1;
+        for (HttpRange range : ranges) {
+            start = Math.min(start, range.getRangeStart(contentLength));
+            end = Math.max(end, range.getRangeEnd(contentLength));
+        }
+        return new long[] { start, end };
+    }
+
+    private String stripWeak(String tag) {
+        return tag.startsWith("W/") ? tag.substring(2) : tag;
+    }
+
+    private long parseDateHeader(HttpServletRequest request, String name) {
+        try {
+            return request.getDateHeader(name);
+        } catch (IllegalArgumentException e) {
+            return -1;
+        }
     }
 }
@@ -0,0 +1,299 @@
+package com.pandora.backend.service;
+
+import com.pandora.backend.util.RedisUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.rendering.PDFRenderer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 附件缩略图
+ * png/jpg 缩放、pdf 渲染首页，统一输出 JPEG，存放在原对象旁（key 加 ".thumb.jpg" 后缀），
+ * 列表页只拉取几十 KB 的缩略图而不是原文件。
+ * 查看时尚未生成的缩略图在后台补生成（同一对象同时只生成一次），请求本身不等待
+ */
+@Slf4j
+@Service
+public class AttachmentThumbnailService {
+
+    public static final String THUMBNAIL_CONTENT_TYPE = "image/jpeg";
+
+    private static final String THUMBNAIL_SUFFIX = ".thumb.jpg";
+    private static final String THUMBNAIL_MARKER_PREFIX = "attachment:thumb:";
+    private static final long THUMBNAIL_MARKER_DAYS = 7;
+    private static final Set<String> IMAGE_EXTENSIONS = Set.of("png", "jpg", "jpeg");
+    private static final String PDF_EXTENSION = "pdf";
+
+    @Autowired
+    private OssService ossService;
+
+    @Autowired
+    private RedisUtil redisUtil;
+
+    @Autowired
+    @Qualifier("thumbnailExecutor")
+    private Executor thumbnailExecutor;
+
+    /**
+     * 正在后台生成的缩略图（原对象 key）
+     */
+    private final Set<String> inflight = ConcurrentHashMap.newKeySet();
+
+    @Value("${attachment.thumbnail.max-size:320}")
+    private int maxSize;
+
+    @Value("${attachment.thumbnail.jpeg-quality:0.8}")
+    private float jpegQuality;
+
+    /**
+     * 原图声明的像素数上限，超过的图片不生成缩略图（防止小文件声明超大尺寸耗尽内存）
+     */
+    @Value("${attachment.thumbnail.max-source-pixels:100000000}")
+    private long maxSourcePixels;
+
+    public static String thumbnailKey(final String objectKey) {
+        return objectKey + THUMBNAIL_SUFFIX;
+    }
+
+    public boolean supports(final String objectKey) {
+        final String extension = StringUtils.getFilenameExtension(objectKey);
+        if (extension == null) {
+            return false;
+        }
+        final String lower = extension.toLowerCase();
+        return IMAGE_EXTENSIONS.contains(lower) || PDF_EXTENSION.equals(lower);
+    }
+
+    /**
+     * 返回已生成的缩略图 key；尚未生成（历史附件或生成未完成）时提交后台生成并返回 empty，
+     * 本次由调用方返回 404，之后的请求即可命中
+     */
+    public Optional<String> ensureThumbnail(final String objectKey) {
+        if (!supports(objectKey)) {
+            return Optional.empty();
+        }
+        final String thumbKey = thumbnailKey(objectKey);
+        if (redisUtil.hasKey(THUMBNAIL_MARKER_PREFIX + thumbKey) || ossService.objectExists(thumbKey)) {
+            markGenerated(thumbKey);
+            return Optional.of(thumbKey);
+        }
+        generateAsync(objectKey);
+        return Optional.empty();
+    }
+
+    /**
+     * 在后台从 OSS 拉取原文件生成缩略图；同一对象已在生成中或线程池已满时直接返回
+     */
+    public void generateAsync(final String objectKey) {
+        if (!supports(objectKey) || !inflight.add(objectKey)) {
+            return;
+        }
+        try {
+            thumbnailExecutor.execute(() -> {
+                try {
+                    generateFromOss(objectKey);
+                } catch (Exception e) {
+                    log.warn("[thumbnail] async generation failed objectKey={}", objectKey, e);
+                } finally {
+                    inflight.remove(objectKey);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            inflight.remove(objectKey);
+            log.debug("[thumbnail] executor busy, skip objectKey={}", objectKey);
+        }
+    }
+
+    /**
+     * 在后台用本地暂存的原文件生成缩略图，省去一次 OSS 下载；暂存文件由本方法负责删除。
+     * 同一对象已在生成中或线程池已满时直接删除暂存文件，查看时会再补生成
+     */
+    public void generateFromFileAsync(final String objectKey, final Path localFile) {
+        if (!supports(objectKey) || !inflight.add(objectKey)) {
+            deleteQuietly(localFile);
+            return;
+        }
+        try {
+            thumbnailExecutor.execute(() -> {
+                try {
+                    generateFromFile(objectKey, localFile);
+                } catch (Exception e) {
+                    log.warn("[thumbnail] generation from staged file failed objectKey={}", objectKey, e);
+                } finally {
+                    inflight.remove(objectKey);
+                    deleteQuietly(localFile);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            inflight.remove(objectKey);
+            deleteQuietly(localFile);
+            log.debug("[thumbnail] executor busy, skip objectKey={}", objectKey);
+        }
+    }
+
+    /**
+     * 直接用本地已有的原文件生成，省去一次 OSS 下载（上传流水线中使用）
+     */
+    public void generateFromFile(final String objectKey, final Path localFile) throws IOException {
+        if (!supports(objectKey)) {
+            return;
+        }
+        final BufferedImage source = render(localFile, StringUtils.getFilenameExtension(objectKey).toLowerCase());
+        if (source == null) {
+            log.warn("[thumbnail] unreadable source objectKey={}", objectKey);
+            return;
+        }
+        final String thumbKey = thumbnailKey(objectKey);
+        ossService.uploadBytes(thumbKey, encodeJpeg(fitWithin(source)), THUMBNAIL_CONTENT_TYPE);
+        markGenerated(thumbKey);
+    }
+
+    public void deleteThumbnail(final String objectKey) {
+        if (!supports(objectKey)) {
+            return;
+        }
+        final String thumbKey = thumbnailKey(objectKey);
+        ossService.deleteFile(thumbKey);
+        redisUtil.delete(THUMBNAIL_MARKER_PREFIX + thumbKey);
+    }
+
+    private void generateFromOss(final String objectKey) throws IOException {
+        final Path temp = Files.createTempFile("thumb-src-", "." + StringUtils.getFilenameExtension(objectKey));
+        try {
+            try (InputStream in = ossService.getFileAsResource(objectKey).getInputStream()) {
+                Files.copy(in, temp, StandardCopyOption.REPLACE_EXISTING);
+            }
+            generateFromFile(objectKey, temp);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private BufferedImage render(final Path file, final String extension) throws IOException {
+        if (!PDF_EXTENSION.equals(extension)) {
+            return readImage(file);
+        }
+        try (PDDocument document = Loader.loadPDF(file.toFile())) {
+            if (document.getNumberOfPages() == 0) {
+                return null;
+            }
+            // 直接按目标尺寸渲染首页，不先渲染大图再缩小
+            final PDRectangle box = document.getPage(0).getCropBox();
+            final float scale = maxSize / Math.max(box.getWidth(), box.getHeight());
+            return new PDFRenderer(document).renderImage(0, Math.min(scale, 1f));
+        }
+    }
+
+    /**
+     * 先只读取图片头部的宽高，超过像素上限直接放弃；其余按缩略图尺寸隔行隔列采样解码，
+     * 解码出的位图最长边不超过 maxSize 的两倍，内存占用与原图尺寸无关
+     */
+    private BufferedImage readImage(final Path file) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(file.toFile())) {
+            if (input == null) {
+                return null;
+            }
+            final Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            final ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                final int width = reader.getWidth(0);
+                final int height = reader.getHeight(0);
+                if ((long) width * height > maxSourcePixels) {
+                    log.warn("[thumbnail] source too large {}x{} file={}", width, height, file.getFileName());
+                    return null;
+                }
+                final ImageReadParam param = reader.getDefaultReadParam();
+                final int step = Math.max(1, Math.max(width, height) / (maxSize * 2));
+                param.setSourceSubsampling(step, step, 0, 0);
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * 等比缩放到 maxSize 以内，透明背景铺白，统一为 RGB 以便编码 JPEG
+     */
+    private BufferedImage fitWithin(final BufferedImage source) {
+        final double ratio = Math.min(1d, (double) maxSize / Math.max(source.getWidth(), source.getHeight()));
+        final int width = Math.max(1, (int) Math.round(source.getWidth() * ratio));
+        final int height = Math.max(1, (int) Math.round(source.getHeight() * ratio));
+
+        final BufferedImage target = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        final Graphics2D g = target.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.setColor(Color.WHITE);
+            g.fillRect(0, 0, width, height);
+            g.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            g.dispose();
+        }
+        return target;
+    }
+
+    private byte[] encodeJpeg(final BufferedImage image) throws IOException {
+        final ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ImageOutputStream ios = ImageIO.createImageOutputStream(out)) {
+            writer.setOutput(ios);
+            final ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(jpegQuality);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return out.toByteArray();
+    }
+
+    private static void deleteQuietly(final Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("[thumbnail] delete staged file failed path={}", file, e);
+        }
+    }
+
+    private void markGenerated(final String thumbKey) {
+        redisUtil.set(THUMBNAIL_MARKER_PREFIX + thumbKey, 1, THUMBNAIL_MARKER_DAYS, TimeUnit.DAYS);
+    }
+}
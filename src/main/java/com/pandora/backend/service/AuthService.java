@@ -28,6 +28,8 @@ public class AuthService {
     @Autowired
     private RefreshTokenRepository refreshTokenRepository;
     @Autowired
+    private RefreshTokenStore refreshTokenStore;
+    @Autowired
     private JwtUtil jwtUtil;
 
     @Autowired
@@ -48,16 +50,6 @@ public class AuthService {
             throw new RuntimeException("Invalid password");
         }
 
-        boolean shouldUpgradePassword = emp.getPassword() != null
-                && !(emp.getPassword().startsWith("$2a$")
-                        || emp.getPassword().startsWith("$2b$")
-                        || emp.getPassword().startsWith("$2y$"));
-
-        if (shouldUpgradePassword) {
-            emp.setPassword(passwordHashService.hashPassword(password));
-            employeeRepository.save(emp);
-        }
-
         if (emp.getPhoneHash() == null || phoneSecurityService.isLegacyPlainPhoneEnc(emp.getPhoneEnc())) {
             employeeSecurityMapper.setPhone(emp, phone);
             employeeRepository.save(emp);
@@ -69,19 +61,46 @@ public class AuthService {
     public TokenPair generateTokens(Employee emp) {
         String access = jwtUtil.generateAccessToken(emp.getEmployeeId(), emp.getPosition());
         String refresh = jwtUtil.generateRefreshToken(emp.getEmployeeId());
+        refreshTokenStore.issue(emp.getEmployeeId(), refresh, refreshTokenTtlSeconds());
+        return new TokenPair(access, refresh);
+    }
 
-        RefreshToken entity = new RefreshToken();
-        entity.setUserId(emp.getEmployeeId());
-        entity.setRefreshToken(refresh);
-        entity.setStatus(STATUS_ACTIVE);
-        entity.setCreatedAt(LocalDateTime.now());
-        entity.setExpiresAt(LocalDateTime.now().plusDays(7));
-        refreshTokenRepository.save(entity);
+    /**
+     * 轮换 Refresh Token：旧 Token 作废，新 Token 沿用同一 family
+     */
+    public TokenPair refreshToken(String oldRefreshToken) {
+        Integer userId;
+        try {
+            userId = jwtUtil.extractUserId(oldRefreshToken);
+        } catch (Exception e) {
+            throw handleRefreshTokenError(oldRefreshToken, "Refresh token invalid or expired");
+        }
 
+        String refresh = jwtUtil.generateRefreshToken(userId);
+        RefreshTokenStore.RotationResult result = refreshTokenStore.rotate(userId, oldRefreshToken, refresh,
+                refreshTokenTtlSeconds());
+        switch (result) {
+            case ROTATED -> {
+            }
+            case NOT_FOUND -> {
+                // 切换到 Redis 之前签发的 Token 仍在表中，用一次后迁入 Redis
+                consumeLegacyRefreshToken(oldRefreshToken);
+                refreshTokenStore.issue(userId, refresh, refreshTokenTtlSeconds());
+            }
+            case REUSED -> {
+                LOGGER.warn("Refresh token reuse detected, token family revoked: userId={}", userId);
+                throw handleRefreshTokenError(oldRefreshToken, "Refresh token already used");
+            }
+            default -> throw handleRefreshTokenError(oldRefreshToken, "Refresh token family revoked");
+        }
+
+        Employee emp = employeeRepository.findById(userId)
+                .orElseThrow(() -> handleRefreshTokenError(oldRefreshToken, "User not found for refresh token"));
+        String access = jwtUtil.generateAccessToken(emp.getEmployeeId(), emp.getPosition());
         return new TokenPair(access, refresh);
     }
 
-    public TokenPair refreshToken(String oldRefreshToken) {
+    private void consumeLegacyRefreshToken(String oldRefreshToken) {
         RefreshToken token = refreshTokenRepository.findByRefreshToken(oldRefreshToken)
                 .orElseThrow(() -> handleRefreshTokenError(oldRefreshToken, "Refresh token not found"));
 
@@ -89,12 +108,10 @@ public class AuthService {
 
         token.setStatus(STATUS_USED);
         refreshTokenRepository.save(token);
+    }
 
-        Integer userId = jwtUtil.extractUserId(oldRefreshToken);
-        Employee emp = employeeRepository.findById(userId)
-                .orElseThrow(() -> handleRefreshTokenError(oldRefreshToken, "User not found for refresh token"));
-
-        return generateTokens(emp);
+    private long refreshTokenTtlSeconds() {
+        return jwtUtil.getRefreshTokenExpirationMillis() / 1000;
     }
 
     private void validateRefreshToken(RefreshToken token) {
@@ -0,0 +1,474 @@
+package com.pandora.backend.service;
+
+import com.pandora.backend.enums.Gender;
+import com.pandora.backend.enums.Position;
+import com.pandora.backend.repository.DepartmentRepository;
+import com.pandora.backend.repository.EmployeeRepository;
+import com.pandora.backend.security.PasswordHashService;
+import com.pandora.backend.security.PhoneSecurityService;
+import com.pandora.backend.util.CsvUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StringUtils;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 员工批量导入/导出（CSV）
+ * 导入：上传文件先落到临时文件，后台线程逐行读取，按块校验（邮箱/手机号查重一块一次查询）、
+ * 计算手机号 HMAC 与加密，再用 JDBC 批量插入；每块一个事务，行级错误单独记录，进度通过 SSE 推送。
+ * 导出：流式查询逐行写入响应，不在内存中构造员工列表
+ */
+@Slf4j
+@Service
+public class EmployeeBulkService {
+
+    private static final String DEFAULT_PASSWORD = "123456";
+    private static final long JOB_RETENTION_MILLIS = 60 * 60 * 1000L;
+    private static final long SSE_TIMEOUT_MILLIS = 30 * 60 * 1000L;
+
+    static final String COL_NAME = "姓名";
+    static final String COL_GENDER = "性别";
+    static final String COL_PHONE = "手机号";
+    static final String COL_EMAIL = "邮箱";
+    static final String COL_POSITION = "职位";
+    static final String COL_ORG_ID = "部门ID";
+
+    private static final String INSERT_SQL = "INSERT INTO employee "
+            + "(org_id, employee_name, phone_enc, phone_hash, gender, email, position, emp_password) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String EXPORT_SQL = "SELECT e.employee_id, e.employee_name, e.gender, e.phone_enc, "
+            + "e.email, e.position, e.org_id, d.org_name FROM employee e "
+            + "LEFT JOIN department d ON d.org_id = e.org_id ORDER BY e.employee_id";
+
+    private final EmployeeRepository employeeRepository;
+    private final DepartmentRepository departmentRepository;
+    private final PhoneSecurityService phoneSecurityService;
+    private final PasswordHashService passwordHashService;
+    private final JdbcTemplate jdbcTemplate;
+    private final JdbcTemplate streamingJdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ThreadPoolTaskExecutor importExecutor;
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final Map<String, ImportJob> jobs = new ConcurrentHashMap<>();
+
+    @Value("${employee-import.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${employee-import.max-errors:1000}")
+    private int maxErrors;
+
+    public EmployeeBulkService(
+            final EmployeeRepository employeeRepository,
+            final DepartmentRepository departmentRepository,
+            final PhoneSecurityService phoneSecurityService,
+            final PasswordHashService passwordHashService,
+            final JdbcTemplate jdbcTemplate,
+            final TransactionTemplate transactionTemplate,
+            @Qualifier("employeeImportExecutor") final ThreadPoolTaskExecutor importExecutor,
+            final ApplicationEventPublisher eventPublisher) {
+        this.employeeRepository = employeeRepository;
+        this.departmentRepository = departmentRepository;
+        this.phoneSecurityService = phoneSecurityService;
+        this.passwordHashService = passwordHashService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.importExecutor = importExecutor;
+        this.eventPublisher = eventPublisher;
+        // MySQL 驱动只有 fetchSize = Integer.MIN_VALUE 时才逐行流式读取，否则一次性把结果集读进内存
+        this.streamingJdbcTemplate = new JdbcTemplate(jdbcTemplate.getDataSource());
+        this.streamingJdbcTemplate.setFetchSize(Integer.MIN_VALUE);
+    }
+
+    public enum JobState {
+        RUNNING, COMPLETED, FAILED
+    }
+
+    public record RowError(long row, String message) {
+    }
+
+    /**
+     * 导入任务状态；计数器由导入线程更新，可被查询接口和 SSE 并发读取
+     */
+    public static final class ImportJob {
+        private final String jobId;
+        private final long createdAt = System.currentTimeMillis();
+        private final AtomicLong processed = new AtomicLong();
+        private final AtomicLong succeeded = new AtomicLong();
+        private final AtomicLong failed = new AtomicLong();
+        private final List<RowError> errors = new CopyOnWriteArrayList<>();
+        private final List<SseEmitter> emitters = new CopyOnWriteArrayList<>();
+        private volatile JobState state = JobState.RUNNING;
+        private volatile String message;
+        private volatile long finishedAt;
+
+        private ImportJob(final String jobId) {
+            this.jobId = jobId;
+        }
+
+        public Map<String, Object> toStatus() {
+            Map<String, Object> status = new LinkedHashMap<>();
+            status.put("jobId", jobId);
+            status.put("state", state);
+            status.put("processed", processed.get());
+            status.put("succeeded", succeeded.get());
+            status.put("failed", failed.get());
+            status.put("message", message);
+            status.put("errors", errors);
+            return status;
+        }
+    }
+
+    private record PendingRow(long row, Integer orgId, String name, String phoneEnc, String phoneHash,
+            int genderOrdinal, String email, byte position) {
+    }
+
+    /**
+     * 提交导入任务，返回任务ID；文件先保存为临时文件，请求结束后仍可读取
+     */
+    public String submitImport(final MultipartFile file) throws IOException {
+        if (file == null || file.isEmpty()) {
+            throw new IllegalArgumentException("导入文件不能为空");
+        }
+        purgeFinishedJobs();
+
+        final Path tempFile = Files.createTempFile("employee-import-", ".csv");
+        file.transferTo(tempFile);
+
+        final ImportJob job = new ImportJob(UUID.randomUUID().toString().replace("-", ""));
+        jobs.put(job.jobId, job);
+        try {
+            importExecutor.execute(() -> runImport(job, tempFile));
+        } catch (TaskRejectedException e) {
+            jobs.remove(job.jobId);
+            Files.deleteIfExists(tempFile);
+            throw new IllegalStateException("已有导入任务在执行，请稍后再试");
+        }
+        return job.jobId;
+    }
+
+    public Map<String, Object> getStatus(final String jobId) {
+        final ImportJob job = jobs.get(jobId);
+        return job == null ? null : job.toStatus();
+    }
+
+    /**
+     * 订阅导入进度：立即推送一次当前状态，之后每处理完一块推送 progress，结束时推送 done
+     */
+    public SseEmitter subscribe(final String jobId) {
+        final ImportJob job = jobs.get(jobId);
+        if (job == null) {
+            return null;
+        }
+        final SseEmitter emitter = new SseEmitter(SSE_TIMEOUT_MILLIS);
+        emitter.onCompletion(() -> job.emitters.remove(emitter));
+        emitter.onTimeout(() -> job.emitters.remove(emitter));
+        emitter.onError(e -> job.emitters.remove(emitter));
+        job.emitters.add(emitter);
+
+        if (job.state == JobState.RUNNING) {
+            send(job, emitter, "progress");
+        } else {
+            send(job, emitter, "done");
+            emitter.complete();
+        }
+        return emitter;
+    }
+
+    private void runImport(final ImportJob job, final Path file) {
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            final Map<String, Integer> columns = readHeader(reader.readLine());
+            final Set<Integer> departmentIds = new HashSet<>();
+            departmentRepository.findOrgGraphRows().forEach(row -> departmentIds.add((Integer) row[0]));
+            // 导入账号统一使用默认密码，只需计算一次 BCrypt
+            final String passwordHash = passwordHashService.hashPassword(DEFAULT_PASSWORD);
+
+            final Set<String> seenEmails = new HashSet<>();
+            final Set<String> seenPhoneHashes = new HashSet<>();
+            final List<PendingRow> chunk = new ArrayList<>(chunkSize);
+            long rowNumber = 1;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                rowNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                job.processed.incrementAndGet();
+                try {
+                    final PendingRow row = parseRow(rowNumber, CsvUtil.parseLine(line), columns, departmentIds);
+                    // 两项都通过再登记，被拒绝的行不占用邮箱/手机号
+                    if (seenEmails.contains(row.email())) {
+                        throw new IllegalArgumentException("邮箱在文件中重复");
+                    }
+                    if (seenPhoneHashes.contains(row.phoneHash())) {
+                        throw new IllegalArgumentException("手机号在文件中重复");
+                    }
+                    seenEmails.add(row.email());
+                    seenPhoneHashes.add(row.phoneHash());
+                    chunk.add(row);
+                } catch (IllegalArgumentException e) {
+                    recordError(job, rowNumber, e.getMessage());
+                }
+
+                if (chunk.size() >= chunkSize) {
+                    flushChunk(job, chunk, passwordHash);
+                }
+            }
+            flushChunk(job, chunk, passwordHash);
+
+            job.state = JobState.COMPLETED;
+        } catch (Exception e) {
+            log.error("[employee-import] job {} failed", job.jobId, e);
+            job.message = e.getMessage();
+            job.state = JobState.FAILED;
+        } finally {
+            job.finishedAt = System.currentTimeMillis();
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                log.warn("[employee-import] delete temp file failed: {}", file);
+            }
+            if (job.succeeded.get() > 0) {
+                eventPublisher.publishEvent(new OrgGraphChangedEvent("employee-import"));
+            }
+            for (SseEmitter emitter : job.emitters) {
+                send(job, emitter, "done");
+                emitter.complete();
+            }
+            log.info("[employee-import] job {} {} processed={} succeeded={} failed={}", job.jobId, job.state,
+                    job.processed.get(), job.succeeded.get(), job.failed.get());
+        }
+    }
+
+    private Map<String, Integer> readHeader(final String headerLine) {
+        if (headerLine == null) {
+            throw new IllegalArgumentException("文件为空");
+        }
+        // Excel 另存的 UTF-8 CSV 带 BOM
+        final String header = headerLine.startsWith("\uFEFF") ? headerLine.substring(1) : headerLine;
+        final List<String> names = CsvUtil.parseLine(header);
+        final Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < names.size(); i++) {
+            columns.put(names.get(i).trim(), i);
+        }
+        for (String required : List.of(COL_NAME, COL_GENDER, COL_PHONE, COL_EMAIL, COL_POSITION)) {
+            if (!columns.containsKey(required)) {
+                throw new IllegalArgumentException("缺少列: " + required);
+            }
+        }
+        return columns;
+    }
+
+    /**
+     * 校验规则与 AdminService.createEmployee 一致
+     */
+    private PendingRow parseRow(final long rowNumber, final List<String> fields, final Map<String, Integer> columns,
+            final Set<Integer> departmentIds) {
+        final String name = field(fields, columns, COL_NAME);
+        final String gender = field(fields, columns, COL_GENDER);
+        final String phone = field(fields, columns, COL_PHONE);
+        final String email = field(fields, columns, COL_EMAIL);
+        final String position = field(fields, columns, COL_POSITION);
+        final String orgId = field(fields, columns, COL_ORG_ID);
+
+        if (!StringUtils.hasText(name)) {
+            throw new IllegalArgumentException("员工姓名不能为空");
+        }
+        if (!StringUtils.hasText(gender)) {
+            throw new IllegalArgumentException("性别不能为空");
+        }
+        if (!StringUtils.hasText(phone)) {
+            throw new IllegalArgumentException("手机号不能为空");
+        }
+        if (!StringUtils.hasText(email)) {
+            throw new IllegalArgumentException("邮箱不能为空");
+        }
+        final Position parsedPosition = parsePosition(position);
+        if (parsedPosition == null) {
+            throw new IllegalArgumentException("职位无效: " + position);
+        }
+
+        Integer parsedOrgId = null;
+        if (StringUtils.hasText(orgId)) {
+            try {
+                parsedOrgId = Integer.valueOf(orgId);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("部门ID无效: " + orgId);
+            }
+            if (!departmentIds.contains(parsedOrgId)) {
+                throw new IllegalArgumentException("部门不存在: " + orgId);
+            }
+        }
+
+        return new PendingRow(rowNumber, parsedOrgId, name, phoneSecurityService.encryptPhone(phone),
+                phoneSecurityService.hashPhone(phone), Gender.fromDesc(gender).ordinal(), email,
+                parsedPosition.getCode());
+    }
+
+    private static String field(final List<String> fields, final Map<String, Integer> columns, final String column) {
+        final Integer index = columns.get(column);
+        if (index == null || index >= fields.size()) {
+            return null;
+        }
+        // 导出时为防公式注入加的单引号前缀（如 '+8613800000000）在导入时去掉，导出文件可原样导回
+        return CsvUtil.stripFormulaGuard(fields.get(index).trim());
+    }
+
+    /**
+     * 职位既可以填代码（0-3）也可以填名称（如“团队长”）
+     */
+    private static Position parsePosition(final String value) {
+        if (!StringUtils.hasText(value)) {
+            return null;
+        }
+        for (Position position : Position.values()) {
+            if (position.getDescription().equals(value) || String.valueOf(position.getCode()).equals(value)) {
+                return position;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 一块一次查重、一次批量插入；写库失败时整块计为失败（块内事务回滚）
+     */
+    private void flushChunk(final ImportJob job, final List<PendingRow> chunk, final String passwordHash) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        final Set<String> existingEmails = new HashSet<>(employeeRepository.findExistingEmails(
+                chunk.stream().map(PendingRow::email).toList()));
+        final Set<String> existingPhones = new HashSet<>(employeeRepository.findExistingPhoneHashes(
+                chunk.stream().map(PendingRow::phoneHash).toList()));
+
+        final List<Object[]> batch = new ArrayList<>(chunk.size());
+        for (PendingRow row : chunk) {
+            if (existingEmails.contains(row.email())) {
+                recordError(job, row.row(), "邮箱已存在");
+            } else if (existingPhones.contains(row.phoneHash())) {
+                recordError(job, row.row(), "手机号已存在");
+            } else {
+                batch.add(new Object[] { row.orgId(), row.name(), row.phoneEnc(), row.phoneHash(),
+                        row.genderOrdinal(), row.email(), row.position(), passwordHash });
+            }
+        }
+
+        if (!batch.isEmpty()) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(INSERT_SQL, batch));
+                job.succeeded.addAndGet(batch.size());
+            } catch (DataAccessException e) {
+                log.warn("[employee-import] job {} chunk rows {}-{} failed: {}", job.jobId, chunk.get(0).row(),
+                        chunk.get(chunk.size() - 1).row(), e.getMessage());
+                job.failed.addAndGet(batch.size());
+                addError(job, chunk.get(0).row(), "第 " + chunk.get(0).row() + "-"
+                        + chunk.get(chunk.size() - 1).row() + " 行写入失败，本块 " + batch.size() + " 行未导入");
+            }
+        }
+        chunk.clear();
+
+        for (SseEmitter emitter : job.emitters) {
+            send(job, emitter, "progress");
+        }
+    }
+
+    private void recordError(final ImportJob job, final long row, final String message) {
+        job.failed.incrementAndGet();
+        addError(job, row, message);
+    }
+
+    private void addError(final ImportJob job, final long row, final String message) {
+        if (job.errors.size() < maxErrors) {
+            job.errors.add(new RowError(row, message));
+        }
+    }
+
+    private void send(final ImportJob job, final SseEmitter emitter, final String eventName) {
+        try {
+            emitter.send(SseEmitter.event().name(eventName).data(job.toStatus()));
+        } catch (IOException | IllegalStateException e) {
+            job.emitters.remove(emitter);
+        }
+    }
+
+    private void purgeFinishedJobs() {
+        final long now = System.currentTimeMillis();
+        jobs.values().removeIf(job -> job.state != JobState.RUNNING
+                && now - Math.max(job.finishedAt, job.createdAt) > JOB_RETENTION_MILLIS);
+    }
+
+    /**
+     * 流式导出全部员工，列与导入模板一致（另含员工ID、部门名称）
+     */
+    public void exportCsv(final OutputStream outputStream) throws IOException {
+        final Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+        writer.write('\uFEFF');
+        writer.write(String.join(",", "员工ID", COL_NAME, COL_GENDER, COL_PHONE, COL_EMAIL, COL_POSITION,
+                COL_ORG_ID, "部门名称"));
+        writer.write("\r\n");
+
+        try {
+            streamingJdbcTemplate.query(EXPORT_SQL, (RowCallbackHandler) rs -> {
+                final int genderOrdinal = rs.getInt("gender");
+                final Gender gender = genderOrdinal >= 0 && genderOrdinal < Gender.values().length
+                        ? Gender.values()[genderOrdinal]
+                        : Gender.UNKNOWN;
+                final int orgId = rs.getInt("org_id");
+                final String orgIdText = rs.wasNull() ? "" : String.valueOf(orgId);
+                try {
+                    writer.write(String.join(",",
+                            String.valueOf(rs.getInt("employee_id")),
+                            CsvUtil.escape(rs.getString("employee_name")),
+                            CsvUtil.escape(gender.getDesc()),
+                            CsvUtil.escape(phoneSecurityService.decryptPhone(rs.getString("phone_enc"))),
+                            CsvUtil.escape(rs.getString("email")),
+                            CsvUtil.escape(Position.getDescriptionByCode(rs.getByte("position"))),
+                            orgIdText,
+                            CsvUtil.escape(rs.getString("org_name"))));
+                    writer.write("\r\n");
+                } catch (IOException e) {
+                    throw new IllegalStateException("写出导出数据失败", e);
+                }
+            });
+        } catch (IllegalStateException e) {
+            if (e.getCause() instanceof IOException io) {
+                // 客户端中途断开
+                throw io;
+            }
+            throw e;
+        }
+        writer.flush();
+    }
+}
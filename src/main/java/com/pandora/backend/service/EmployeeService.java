@@ -1,6 +1,7 @@
 package com.pandora.backend.service;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
@@ -55,6 +56,9 @@ public class EmployeeService {
     @Autowired
     private PasswordHashService passwordHashService;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     // 创建新员工
     public EmployeeDTO createEmployee(EmployeeDTO dto) {
         if (dto == null) {
@@ -86,6 +90,7 @@ public class EmployeeService {
         emp.setPassword(passwordHashService.hashPassword("123456"));
 
         Employee saved = employeeRepository.save(emp); // JPA 自动生成 INSERT
+        eventPublisher.publishEvent(new OrgGraphChangedEvent("employee-created"));
 
         // 转换为 DTO 返回给前端
         EmployeeDTO result = new EmployeeDTO();
@@ -142,7 +147,9 @@ public class EmployeeService {
      * 更新员工信息
      */
     public Employee updateEmployee(Employee employee) {
-        return employeeRepository.save(employee);
+        Employee saved = employeeRepository.save(employee);
+        eventPublisher.publishEvent(new OrgGraphChangedEvent("employee-updated"));
+        return saved;
     }
 
     /**
@@ -0,0 +1,72 @@
+package com.pandora.backend.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.pandora.backend.config.GlmConfig;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class GlmEmbeddingClient {
+
+    private final GlmConfig glmConfig;
+    private final ObjectMapper objectMapper;
+
+    public float[] embed(final String text) {
+        try {
+            final ObjectNode root = objectMapper.createObjectNode();
+            root.put("model", glmConfig.getEmbeddingModel());
+            root.put("input", text);
+            final String requestBody = root.toString();
+
+            URL urlObj = new URI(glmConfig.getApiUrl() + "/embeddings").toURL();
+            HttpURLConnection conn = (HttpURLConnection) urlObj.openConnection();
+            conn.setRequestMethod("POST");
+            conn.setRequestProperty("Content-Type", "application/json");
+            conn.setRequestProperty("Authorization", "Bearer " + glmConfig.getApiKey());
+            conn.setDoOutput(true);
+            conn.setConnectTimeout(glmConfig.getTimeout() * 1000);
+            conn.setReadTimeout(glmConfig.getTimeout() * 1000);
+
+            try (OutputStream os = conn.getOutputStream()) {
+                byte[] input = requestBody.getBytes(StandardCharsets.UTF_8);
+                os.write(input, 0, input.length);
+            }
+
+            int responseCode = conn.getResponseCode();
+            if (responseCode != HttpURLConnection.HTTP_OK) {
+                throw new RuntimeException("GLM embedding API error code: " + responseCode);
+            }
+
+            try (BufferedReader br = new BufferedReader(
+                    new InputStreamReader(conn.getInputStream(), StandardCharsets.UTF_8))) {
+                StringBuilder response = new StringBuilder();
+                String line;
+                while ((line = br.readLine()) != null) {
+                    response.append(line);
+                }
+                JsonNode embedding = objectMapper.readTree(response.toString()).get("data").get(0).get("embedding");
+                float[] vector = new float[embedding.size()];
+                for (int i = 0; i < vector.length; i++) {
+                    vector[i] = (float) embedding.get(i).asDouble();
+                }
+                return vector;
+            }
+        } catch (Exception e) {
+            log.error("Embedding failed", e);
+            throw new RuntimeException("Embedding failed", e);
+        }
+    }
+}
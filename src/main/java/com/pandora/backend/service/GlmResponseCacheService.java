@@ -0,0 +1,280 @@
+package com.pandora.backend.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pandora.backend.dto.ChatMessageDTO;
+import com.pandora.backend.dto.GlmCachedResponseDTO;
+import com.pandora.backend.util.RedisUtil;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * GLM 响应缓存
+ * 精确层：按用户 + 规范化后的完整提示词哈希缓存；
+ * 语义层（可选）：同一用户、同一上下文下，最后一条用户提问的向量相似度超过阈值时复用精确层条目
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class GlmResponseCacheService {
+
+    private static final String RESPONSE_KEY_PREFIX = "glm_cache:resp:";
+    private static final String SEMANTIC_KEY_PREFIX = "glm_cache:sem:";
+    private static final String ANONYMOUS_SCOPE = "anon";
+
+    private final RedisUtil redisUtil;
+    private final ObjectMapper objectMapper;
+    private final GlmEmbeddingClient glmEmbeddingClient;
+
+    @Value("${glm.cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${glm.cache.ttl-seconds:3600}")
+    private long ttlSeconds;
+
+    @Value("${glm.cache.semantic.enabled:false}")
+    private boolean semanticEnabled;
+
+    @Value("${glm.cache.semantic.threshold:0.95}")
+    private double semanticThreshold;
+
+    @Value("${glm.cache.semantic.max-entries:50}")
+    private int semanticMaxEntries;
+
+    public Optional<GlmCachedResponseDTO> lookup(
+            final Integer userId,
+            final String model,
+            final List<ChatMessageDTO> messages) {
+        if (!enabled || messages == null || messages.isEmpty()) {
+            return Optional.empty();
+        }
+
+        try {
+            final String promptHash = hashMessages(model, messages);
+            final GlmCachedResponseDTO exact = readEntry(buildResponseKey(userId, promptHash));
+            if (exact != null) {
+                log.info("[glm-cache] exact hit userId={} hash={}", userId, promptHash);
+                return Optional.of(exact);
+            }
+
+            if (semanticEnabled) {
+                return lookupSemantic(userId, model, messages);
+            }
+        } catch (Exception e) {
+            log.warn("[glm-cache] lookup failed userId={}", userId, e);
+        }
+        return Optional.empty();
+    }
+
+    public void store(
+            final Integer userId,
+            final String model,
+            final List<ChatMessageDTO> messages,
+            final GlmCachedResponseDTO response) {
+        if (!enabled || messages == null || messages.isEmpty() || response.getContent() == null
+                || response.getContent().isEmpty()) {
+            return;
+        }
+
+        try {
+            final String promptHash = hashMessages(model, messages);
+            response.setCreatedAtEpochMs(System.currentTimeMillis());
+            redisUtil.set(buildResponseKey(userId, promptHash), response, ttlSeconds, TimeUnit.SECONDS);
+
+            if (semanticEnabled) {
+                appendSemanticEntry(userId, model, messages, promptHash);
+            }
+        } catch (Exception e) {
+            log.warn("[glm-cache] store failed userId={}", userId, e);
+        }
+    }
+
+    private Optional<GlmCachedResponseDTO> lookupSemantic(
+            final Integer userId,
+            final String model,
+            final List<ChatMessageDTO> messages) {
+        final String question = lastUserContent(messages);
+        if (question == null) {
+            return Optional.empty();
+        }
+
+        final List<String> index = readIndex(buildSemanticKey(userId, model, messages));
+        if (index.isEmpty()) {
+            return Optional.empty();
+        }
+
+        final float[] queryVector = glmEmbeddingClient.embed(question);
+        String bestHash = null;
+        double bestScore = semanticThreshold;
+        for (String entry : index) {
+            final int sep = entry.indexOf(';');
+            if (sep <= 0) {
+                continue;
+            }
+            final double score = cosine(queryVector, decodeVector(entry.substring(sep + 1)));
+            if (score >= bestScore) {
+                bestScore = score;
+                bestHash = entry.substring(0, sep);
+            }
+        }
+
+        if (bestHash == null) {
+            return Optional.empty();
+        }
+        final GlmCachedResponseDTO hit = readEntry(buildResponseKey(userId, bestHash));
+        if (hit != null) {
+            log.info("[glm-cache] semantic hit userId={} hash={} score={}", userId, bestHash, bestScore);
+        }
+        return Optional.ofNullable(hit);
+    }
+
+    private void appendSemanticEntry(
+            final Integer userId,
+            final String model,
+            final List<ChatMessageDTO> messages,
+            final String promptHash) {
+        final String question = lastUserContent(messages);
+        if (question == null) {
+            return;
+        }
+
+        final String key = buildSemanticKey(userId, model, messages);
+        final List<String> index = new ArrayList<>(readIndex(key));
+        index.add(promptHash + ";" + encodeVector(glmEmbeddingClient.embed(question)));
+        final List<String> trimmed = index.size() <= semanticMaxEntries
+                ? index
+                : new ArrayList<>(index.subList(index.size() - semanticMaxEntries, index.size()));
+        redisUtil.set(key, trimmed, ttlSeconds, TimeUnit.SECONDS);
+    }
+
+    private GlmCachedResponseDTO readEntry(final String key) {
+        final Object raw = redisUtil.get(key);
+        if (raw instanceof GlmCachedResponseDTO) {
+            return (GlmCachedResponseDTO) raw;
+        }
+        if (raw instanceof Map) {
+            return objectMapper.convertValue(raw, GlmCachedResponseDTO.class);
+        }
+        return null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<String> readIndex(final String key) {
+        final Object raw = redisUtil.get(key);
+        if (raw instanceof List) {
+            return (List<String>) raw;
+        }
+        return List.of();
+    }
+
+    private String buildResponseKey(final Integer userId, final String promptHash) {
+        return RESPONSE_KEY_PREFIX + scope(userId) + ":" + promptHash;
+    }
+
+    /**
+     * 语义索引按"除最后一条用户提问外的上下文"分桶，保证只在相同系统提示和上下文下做相似度复用
+     */
+    private String buildSemanticKey(final Integer userId, final String model, final List<ChatMessageDTO> messages) {
+        return SEMANTIC_KEY_PREFIX + scope(userId) + ":" + hashMessages(model, withoutLastUser(messages));
+    }
+
+    private String scope(final Integer userId) {
+        return userId == null ? ANONYMOUS_SCOPE : String.valueOf(userId);
+    }
+
+    static String hashMessages(final String model, final List<ChatMessageDTO> messages) {
+        final StringBuilder sb = new StringBuilder();
+        sb.append(model == null ? "" : model).append('\u0000');
+        for (ChatMessageDTO message : messages) {
+            sb.append(message.getRole()).append('\u0001')
+                    .append(normalize(message.getContent())).append('\u0002');
+        }
+        return sha256Hex(sb.toString());
+    }
+
+    /**
+     * 去掉首尾空白并把连续空白折叠为一个空格，使仅有排版差异的提示词命中同一条缓存
+     */
+    static String normalize(final String content) {
+        if (content == null) {
+            return "";
+        }
+        return content.trim().replaceAll("\\s+", " ");
+    }
+
+    private static String sha256Hex(final String text) {
+        try {
+            final MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(text.getBytes(StandardCharsets.UTF_8)));
+        } catch (Exception e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static String lastUserContent(final List<ChatMessageDTO> messages) {
+        for (int i = messages.size() - 1; i >= 0; i--) {
+            if ("user".equals(messages.get(i).getRole())) {
+                return normalize(messages.get(i).getContent());
+            }
+        }
+        return null;
+    }
+
+    private static List<ChatMessageDTO> withoutLastUser(final List<ChatMessageDTO> messages) {
+        final List<ChatMessageDTO> result = new ArrayList<>(messages);
+        for (int i = result.size() - 1; i >= 0; i--) {
+            if ("user".equals(result.get(i).getRole())) {
+                result.remove(i);
+                break;
+            }
+        }
+        return result;
+    }
+
+    private static String encodeVector(final float[] vector) {
+        final ByteBuffer buffer = ByteBuffer.allocate(vector.length * Float.BYTES);
+        for (float v : vector) {
+            buffer.putFloat(v);
+        }
+        return Base64.getEncoder().encodeToString(buffer.array());
+    }
+
+    private static float[] decodeVector(final String encoded) {
+        final ByteBuffer buffer = ByteBuffer.wrap(Base64.getDecoder().decode(encoded));
+        final float[] vector = new float[buffer.remaining() / Float.BYTES];
+        for (int i = 0; i < vector.length; i++) {
+            vector[i] = buffer.getFloat();
+        }
+        return vector;
+    }
+
+    private static double cosine(final float[] a, final float[] b) {
+        if (a.length != b.length || a.length == 0) {
+            return 0;
+        }
+        double dot = 0;
+        double normA = 0;
+        double normB = 0;
+        for (int i = 0; i < a.length; i++) {
+            dot += a[i] * b[i];
+            normA += a[i] * a[i];
+            normB += b[i] * b[i];
+        }
+        if (normA == 0 || normB == 0) {
+            return 0;
+        }
+        return dot / (Math.sqrt(normA) * Math.sqrt(normB));
+    }
+}
@@ -4,6 +4,7 @@ import com.pandora.backend.config.GlmConfig;
 import com.pandora.backend.dto.ChatMessageDTO;
 import com.pandora.backend.dto.ChatRequestDTO;
 import com.pandora.backend.dto.ChatResponseDTO;
+import com.pandora.backend.dto.GlmCachedResponseDTO;
 import com.pandora.backend.entity.AiAnalysis;
 import com.pandora.backend.entity.Employee;
 import com.pandora.backend.entity.Log;
@@ -27,6 +28,7 @@ import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.stream.Collectors;
@@ -48,10 +50,37 @@ public class GlmService {
     private final TaskRepository taskRepository;
     private final AiAnalysisRepository aiAnalysisRepository;
     private final EmployeeRepository employeeRepository;
+    private final GlmResponseCacheService responseCacheService;
+    private final PromptBudgetService promptBudgetService;
     private final ExecutorService executorService = Executors.newCachedThreadPool();
 
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
 
+    /**
+     * 非流式聊天完成（先查响应缓存，未命中时调用模型并写入缓存）
+     *
+     * @param messages 聊天消息列表
+     * @param userId   当前用户ID，用于缓存隔离
+     * @return 包含完整响应的 ChatResponseDTO
+     */
+    public ChatResponseDTO chat(List<ChatMessageDTO> messages, Integer userId) {
+        Optional<GlmCachedResponseDTO> cached = responseCacheService.lookup(userId, glmConfig.getModel(), messages);
+        if (cached.isPresent()) {
+            return ChatResponseDTO.builder()
+                    .content(cached.get().getContent())
+                    .model(cached.get().getModel())
+                    .finishReason(cached.get().getFinishReason())
+                    .totalTokens(cached.get().getTotalTokens())
+                    .build();
+        }
+
+        ChatResponseDTO response = chat(messages);
+        responseCacheService.store(userId, glmConfig.getModel(), messages, new GlmCachedResponseDTO(
+                response.getContent(), response.getModel(), response.getFinishReason(), response.getTotalTokens(),
+                null, null));
+        return response;
+    }
+
     /**
      * 非流式聊天完成
      *
@@ -127,7 +156,25 @@ public class GlmService {
      * @param emitter  用于流式响应的 SSE 发射器
      */
     public void chatStream(List<ChatMessageDTO> messages, SseEmitter emitter) {
+        chatStream(messages, emitter, null);
+    }
+
+    /**
+     * 使用 SSE 的流式聊天完成（命中响应缓存时按原分片回放）
+     *
+     * @param messages 聊天消息列表
+     * @param emitter  用于流式响应的 SSE 发射器
+     * @param userId   当前用户ID，用于缓存隔离
+     */
+    public void chatStream(List<ChatMessageDTO> messages, SseEmitter emitter, Integer userId) {
+        if (replayIfCached(userId, messages, emitter)) {
+            return;
+        }
+
         executorService.execute(() -> {
+            final StringBuilder fullContent = new StringBuilder();
+            final List<String> chunks = new ArrayList<>();
+
             try {
                 ChatRequestDTO request = new ChatRequestDTO();
                 request.setMessages(messages);
@@ -166,6 +213,7 @@ public class GlmService {
                                             .name("done")
                                             .data("[DONE]"));
                                     emitter.complete();
+                                    storeStreamResult(userId, messages, fullContent, chunks);
                                     break;
                                 }
 
@@ -177,6 +225,8 @@ public class GlmService {
                                         JsonNode delta = choices.get(0).get("delta");
                                         if (delta != null && delta.has("content")) {
                                             String content = delta.get("content").asText();
+                                            fullContent.append(content);
+                                            chunks.add(content);
 
                                             emitter.send(SseEmitter.event()
                                                     .name("message")
@@ -284,6 +334,12 @@ public class GlmService {
             }
         }
 
+        // 相同上下文的结果已保存过分析记录，命中缓存时只回放不重复保存
+        if (replayIfCached(userId, messages, emitter)) {
+            return;
+        }
+
+        final List<String> chunks = new ArrayList<>();
         executorService.execute(() -> {
             try {
                 ChatRequestDTO request = new ChatRequestDTO();
@@ -327,6 +383,7 @@ public class GlmService {
                                     // 保存完整内容到数据库
                                     saveAiAnalysis(userId, fullContent.toString(), periodStart, periodEnd,
                                             logCount[0], taskCount[0]);
+                                    storeStreamResult(userId, messages, fullContent, chunks);
                                     break;
                                 }
 
@@ -341,6 +398,7 @@ public class GlmService {
 
                                             // 收集完整内容
                                             fullContent.append(content);
+                                            chunks.add(content);
 
                                             emitter.send(SseEmitter.event()
                                                     .name("message")
@@ -368,6 +426,53 @@ public class GlmService {
         });
     }
 
+    /**
+     * 命中响应缓存时按原分片回放 SSE
+     *
+     * @return 是否已由缓存完成响应
+     */
+    private boolean replayIfCached(
+            final Integer userId,
+            final List<ChatMessageDTO> messages,
+            final SseEmitter emitter) {
+        final Optional<GlmCachedResponseDTO> cached = responseCacheService.lookup(userId, glmConfig.getModel(),
+                messages);
+        if (cached.isEmpty()) {
+            return false;
+        }
+
+        try {
+            final List<String> chunks = cached.get().getChunks() != null
+                    ? cached.get().getChunks()
+                    : List.of(cached.get().getContent());
+            for (String chunk : chunks) {
+                emitter.send(SseEmitter.event()
+                        .name("message")
+                        .data(chunk));
+            }
+            emitter.send(SseEmitter.event()
+                    .name("done")
+                    .data("[DONE]"));
+            emitter.complete();
+        } catch (Exception e) {
+            log.error("回放缓存响应错误", e);
+            emitter.completeWithError(e);
+        }
+        return true;
+    }
+
+    /**
+     * 流式响应完成后写入响应缓存
+     */
+    private void storeStreamResult(
+            final Integer userId,
+            final List<ChatMessageDTO> messages,
+            final StringBuilder fullContent,
+            final List<String> chunks) {
+        responseCacheService.store(userId, glmConfig.getModel(), messages, new GlmCachedResponseDTO(
+                fullContent.toString(), glmConfig.getModel(), null, null, chunks, null));
+    }
+
     /**
      * 保存 AI 分析结果到数据库
      */
@@ -490,6 +595,7 @@ public class GlmService {
             final Integer userId,
             final LocalDateTime now) {
         final List<ChatMessageDTO> contextMessages = new ArrayList<>();
+        final List<PromptBudgetService.Section> sections = new ArrayList<>();
 
         // 计算三周前的时间点
         final LocalDateTime threeWeeksAgo = now.minusWeeks(3);
@@ -510,10 +616,8 @@ public class GlmService {
                     userId, threeWeeksAgo, now);
 
             if (!recentLogs.isEmpty()) {
-                final String logsSummary = formatLogsAsText(recentLogs);
-                contextMessages.add(new ChatMessageDTO(
-                        "system",
-                        "以下是用户近三周的工作日志（共 " + recentLogs.size() + " 条）：\n" + logsSummary));
+                sections.add(new PromptBudgetService.Section("logs", 1,
+                        "以下是用户近三周的工作日志（共 " + recentLogs.size() + " 条）：", formatLogLines(recentLogs)));
                 log.info("为用户 {} 加载了 {} 条近三周日志", userId, recentLogs.size());
             } else {
                 contextMessages.add(new ChatMessageDTO(
@@ -543,10 +647,8 @@ public class GlmService {
                     .collect(Collectors.toList());
 
             if (!filteredTasks.isEmpty()) {
-                final String tasksSummary = formatTasksAsText(filteredTasks);
-                contextMessages.add(new ChatMessageDTO(
-                        "system",
-                        "以下是用户近三周相关的任务（共 " + filteredTasks.size() + " 个）：\n" + tasksSummary));
+                sections.add(new PromptBudgetService.Section("tasks", 2,
+                        "以下是用户近三周相关的任务（共 " + filteredTasks.size() + " 个）：", formatTaskLines(filteredTasks)));
                 log.info("为用户 {} 加载了 {} 个近三周任务", userId, filteredTasks.size());
             } else {
                 contextMessages.add(new ChatMessageDTO(
@@ -562,23 +664,25 @@ public class GlmService {
                     "获取用户日志和任务数据时出现错误，将基于用户提问进行回答。"));
         }
 
-        return contextMessages;
+        // 日志和任务按 token 预算截断，无数据或出错时的提示消息原样保留
+        return promptBudgetService.assemble("glm_context", contextMessages, sections, List.of());
     }
 
     /**
-     * 将日志列表格式化为文本
+     * 将日志列表格式化为逐条文本，最新的在前
      *
      * @param logs 日志列表
-     * @return 格式化后的文本
+     * @return 按相关性排序的日志行
      */
-    private String formatLogsAsText(final List<Log> logs) {
-        final StringBuilder sb = new StringBuilder();
+    private List<String> formatLogLines(final List<Log> logs) {
+        final List<String> lines = new ArrayList<>();
 
         // 按时间倒序排列（最新的在前）
         logs.stream()
                 .sorted((l1, l2) -> l2.getCreatedTime().compareTo(l1.getCreatedTime()))
                 .limit(50) // 最多取50条，避免上下文过长
                 .forEach(log -> {
+                    final StringBuilder sb = new StringBuilder();
                     sb.append("- ");
                     sb.append(log.getCreatedTime().format(DATE_FORMATTER));
                     sb.append(" ");
@@ -588,20 +692,20 @@ public class GlmService {
                     if (log.getTask() != null) {
                         sb.append(" [关联任务: ").append(log.getTask().getTitle()).append("]");
                     }
-                    sb.append("\n");
+                    lines.add(sb.toString());
                 });
 
-        return sb.toString();
+        return lines;
     }
 
     /**
-     * 将任务列表格式化为文本
+     * 将任务列表格式化为逐条文本，未完成、高优先级的在前
      *
      * @param tasks 任务列表
-     * @return 格式化后的文本
+     * @return 按相关性排序的任务行
      */
-    private String formatTasksAsText(final List<Task> tasks) {
-        final StringBuilder sb = new StringBuilder();
+    private List<String> formatTaskLines(final List<Task> tasks) {
+        final List<String> lines = new ArrayList<>();
 
         // 按优先级和状态排序
         tasks.stream()
@@ -615,6 +719,7 @@ public class GlmService {
                 })
                 .limit(30) // 最多取30个任务
                 .forEach(task -> {
+                    final StringBuilder sb = new StringBuilder();
                     sb.append("- ");
                     sb.append("[").append(getTaskStatusText(task.getTaskStatus())).append("] ");
                     sb.append("[").append(getTaskPriorityText(task.getTaskPriority())).append("] ");
@@ -625,10 +730,10 @@ public class GlmService {
                     if (task.getContent() != null && !task.getContent().isEmpty()) {
                         sb.append(" - ").append(task.getContent());
                     }
-                    sb.append("\n");
+                    lines.add(sb.toString());
                 });
 
-        return sb.toString();
+        return lines;
     }
 
     /**
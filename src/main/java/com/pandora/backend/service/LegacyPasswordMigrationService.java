@@ -0,0 +1,86 @@
+package com.pandora.backend.service;
+
+import com.pandora.backend.entity.Employee;
+import com.pandora.backend.repository.EmployeeRepository;
+import com.pandora.backend.security.PasswordHashBusyException;
+import com.pandora.backend.security.PasswordHashService;
+import com.pandora.backend.util.RedisUtil;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 历史明文密码的后台批量升级
+ * 登录时不再顺带重新哈希；这里按 ID 分批把剩余明文密码改成 BCrypt，哈希同样走 passwordHashExecutor，
+ * 线程池繁忙（登录高峰）时本轮直接结束，下次调度再继续
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class LegacyPasswordMigrationService {
+
+    private static final String LOCK_KEY = "auth:password-migration:lock";
+    private static final String METRIC_MIGRATED = "auth.password.legacy-migrated";
+
+    private final EmployeeRepository employeeRepository;
+    private final PasswordHashService passwordHashService;
+    private final RedisUtil redisUtil;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${auth.password-migration.batch-size:100}")
+    private int batchSize;
+
+    @Scheduled(initialDelayString = "${auth.password-migration.initial-delay-ms:60000}",
+            fixedDelayString = "${auth.password-migration.interval-ms:3600000}")
+    public void migrateLegacyPasswords() {
+        final String lockValue = UUID.randomUUID().toString();
+        if (!Boolean.TRUE.equals(redisUtil.tryLock(LOCK_KEY, lockValue, 30, TimeUnit.MINUTES))) {
+            return;
+        }
+
+        int migrated = 0;
+        try {
+            Integer afterId = 0;
+            while (true) {
+                final List<Employee> batch = employeeRepository.findLegacyPasswordAfter(afterId,
+                        PageRequest.of(0, Math.max(1, batchSize)));
+                if (batch.isEmpty()) {
+                    break;
+                }
+                for (Employee employee : batch) {
+                    if (upgrade(employee)) {
+                        migrated++;
+                    }
+                }
+                afterId = batch.get(batch.size() - 1).getEmployeeId();
+            }
+        } catch (PasswordHashBusyException e) {
+            log.info("[password-migration] hash pool busy, resume next round");
+        } finally {
+            redisUtil.releaseLock(LOCK_KEY, lockValue);
+        }
+
+        if (migrated > 0) {
+            meterRegistry.counter(METRIC_MIGRATED).increment(migrated);
+            log.info("[password-migration] upgraded {} legacy passwords", migrated);
+        }
+    }
+
+    private boolean upgrade(final Employee employee) {
+        final String legacy = employee.getPassword();
+        if (legacy.isBlank()) {
+            log.warn("[password-migration] blank password skipped employeeId={}", employee.getEmployeeId());
+            return false;
+        }
+        final String hashed = passwordHashService.hashPassword(legacy);
+        return employeeRepository.replacePassword(employee.getEmployeeId(), legacy, hashed) > 0;
+    }
+}
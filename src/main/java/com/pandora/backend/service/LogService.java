@@ -17,6 +17,7 @@ import com.pandora.backend.repository.TaskRepository;
 import com.pandora.backend.repository.LogAttachmentRepository;
 
 // 导入其他
+import com.pandora.backend.agent.service.AttachmentInsightService;
 import com.pandora.backend.enums.Emoji;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.transaction.annotation.Transactional;
@@ -49,6 +50,12 @@ public class LogService {
     @Autowired
     private OssService ossService;
 
+    @Autowired
+    private AttachmentContentService attachmentContentService;
+
+    @Autowired
+    private AttachmentInsightService attachmentInsightService;
+
     // =================================================:
     // 附件创建 (唯一保留的创建方法)
     // =================================================:
@@ -105,8 +112,8 @@ public class LogService {
                     // 3a. 存到磁盘 (Old)
                     // String storedFilename = fileStorageService.storeFile(file);
 
-                    // 3a. 存到 OSS (New)
-                    String storedFilename = ossService.uploadFile(file);
+                    // 3a. 存到 OSS (按内容去重，相同文件只存一份)
+                    String storedFilename = attachmentContentService.store(userId, file);
 
                     // 3b. 存 "信息" 到数据库
                     LogAttachment attachment = new LogAttachment();
@@ -120,6 +127,10 @@ public class LogService {
 
                     logAttachmentRepository.save(attachment);
 
+                    // 3c. 后台预生成附件摘要，AI 报告直接命中缓存
+                    attachmentInsightService.precomputeInsight(attachment.getId(), storedFilename,
+                            file.getContentType(), file.getOriginalFilename());
+
                 } catch (IOException e) {
                     throw new RuntimeException("文件上传失败: " + file.getOriginalFilename(), e);
                 }
@@ -226,7 +237,12 @@ public class LogService {
         if (!logRepository.existsById(id)) {
             throw new RuntimeException("Log not found with id: " + id);
         }
+        List<LogAttachment> attachments = logAttachmentRepository.findByLogLogId(id);
         logRepository.deleteById(id);
+        // 附件随级联删除，释放对应 OSS 对象的引用
+        for (LogAttachment attachment : attachments) {
+            attachmentContentService.release(attachment.getStoredFilename());
+        }
     }
 
     public List<LogDTO> queryLogsInWeek(Integer userId, LocalDate startDate, LocalDate endDate) {
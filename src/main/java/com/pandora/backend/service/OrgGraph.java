@@ -0,0 +1,165 @@
+package com.pandora.backend.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 组织关系快照（只读）
+ * 员工 → 职位/部门、员工 → 所在团队/带领的团队、团队 → 成员/团队长/部门，构建后不再修改，可被多线程直接读取；
+ * 组织结构变化时整体重建新快照再替换（copy-on-write），version 用于各节点判断快照新旧
+ */
+public final class OrgGraph {
+
+    private static final byte LEADER_FLAG = 1;
+
+    public record EmployeeNode(Integer employeeId, String employeeName, String email, Byte position, Integer orgId) {
+    }
+
+    public record TeamNode(Integer teamId, String teamName, Integer orgId) {
+    }
+
+    private final long version;
+    private final Map<Integer, EmployeeNode> employees;
+    private final Map<Integer, TeamNode> teams;
+    private final Map<Integer, String> departmentNames;
+    private final Map<Integer, List<Integer>> membersByTeam;
+    private final Map<Integer, Set<Integer>> teamsByEmployee;
+    private final Map<Integer, Set<Integer>> ledTeamsByEmployee;
+    private final Map<Integer, Integer> leaderByTeam;
+
+    private OrgGraph(final long version, final Map<Integer, EmployeeNode> employees, final Map<Integer, TeamNode> teams,
+            final Map<Integer, String> departmentNames, final Map<Integer, List<Integer>> membersByTeam,
+            final Map<Integer, Set<Integer>> teamsByEmployee, final Map<Integer, Set<Integer>> ledTeamsByEmployee,
+            final Map<Integer, Integer> leaderByTeam) {
+        this.version = version;
+        this.employees = employees;
+        this.teams = teams;
+        this.departmentNames = departmentNames;
+        this.membersByTeam = membersByTeam;
+        this.teamsByEmployee = teamsByEmployee;
+        this.ledTeamsByEmployee = ledTeamsByEmployee;
+        this.leaderByTeam = leaderByTeam;
+    }
+
+    /**
+     * @param employeeRows   [employeeId, position, orgId, employeeName, email]
+     * @param teamRows       [teamId, orgId, teamName]
+     * @param departmentRows [orgId, orgName]
+     * @param relationRows   [teamId, employeeId, isLeader]
+     */
+    public static OrgGraph build(final long version, final List<Object[]> employeeRows, final List<Object[]> teamRows,
+            final List<Object[]> departmentRows, final List<Object[]> relationRows) {
+        final Map<Integer, EmployeeNode> employees = new HashMap<>(employeeRows.size() * 2);
+        for (Object[] row : employeeRows) {
+            final Integer employeeId = (Integer) row[0];
+            employees.put(employeeId,
+                    new EmployeeNode(employeeId, (String) row[3], (String) row[4], toByte(row[1]), (Integer) row[2]));
+        }
+
+        // 按 teamId 保持查询顺序，列表接口返回顺序稳定
+        final Map<Integer, TeamNode> teams = new LinkedHashMap<>(teamRows.size() * 2);
+        for (Object[] row : teamRows) {
+            final Integer teamId = (Integer) row[0];
+            teams.put(teamId, new TeamNode(teamId, (String) row[2], (Integer) row[1]));
+        }
+
+        final Map<Integer, String> departmentNames = new HashMap<>(departmentRows.size() * 2);
+        for (Object[] row : departmentRows) {
+            departmentNames.put((Integer) row[0], (String) row[1]);
+        }
+
+        final Map<Integer, List<Integer>> membersByTeam = new HashMap<>();
+        final Map<Integer, Set<Integer>> teamsByEmployee = new HashMap<>();
+        final Map<Integer, Set<Integer>> ledTeamsByEmployee = new HashMap<>();
+        final Map<Integer, Integer> leaderByTeam = new HashMap<>();
+        for (Object[] row : relationRows) {
+            final Integer teamId = (Integer) row[0];
+            final Integer employeeId = (Integer) row[1];
+            membersByTeam.computeIfAbsent(teamId, k -> new ArrayList<>()).add(employeeId);
+            teamsByEmployee.computeIfAbsent(employeeId, k -> new LinkedHashSet<>()).add(teamId);
+            final Byte isLeader = toByte(row[2]);
+            if (isLeader != null && isLeader == LEADER_FLAG) {
+                ledTeamsByEmployee.computeIfAbsent(employeeId, k -> new LinkedHashSet<>()).add(teamId);
+                leaderByTeam.putIfAbsent(teamId, employeeId);
+            }
+        }
+        membersByTeam.replaceAll((k, v) -> Collections.unmodifiableList(v));
+
+        return new OrgGraph(version, employees, teams, departmentNames, membersByTeam, freeze(teamsByEmployee),
+                freeze(ledTeamsByEmployee), leaderByTeam);
+    }
+
+    public long version() {
+        return version;
+    }
+
+    public EmployeeNode employee(final Integer employeeId) {
+        return employeeId == null ? null : employees.get(employeeId);
+    }
+
+    public TeamNode team(final Integer teamId) {
+        return teamId == null ? null : teams.get(teamId);
+    }
+
+    public String departmentName(final Integer orgId) {
+        return orgId == null ? null : departmentNames.get(orgId);
+    }
+
+    /**
+     * 全部团队（按 teamId 排序）
+     */
+    public Iterable<TeamNode> teams() {
+        return Collections.unmodifiableCollection(teams.values());
+    }
+
+    /**
+     * 团队成员ID（含团队长）
+     */
+    public List<Integer> membersOf(final Integer teamId) {
+        return membersByTeam.getOrDefault(teamId, Collections.emptyList());
+    }
+
+    public Set<Integer> teamsOf(final Integer employeeId) {
+        return teamsByEmployee.getOrDefault(employeeId, Collections.emptySet());
+    }
+
+    public Set<Integer> ledTeamsOf(final Integer employeeId) {
+        return ledTeamsByEmployee.getOrDefault(employeeId, Collections.emptySet());
+    }
+
+    public Integer leaderOf(final Integer teamId) {
+        return leaderByTeam.get(teamId);
+    }
+
+    public Integer departmentOfTeam(final Integer teamId) {
+        final TeamNode team = team(teamId);
+        return team == null ? null : team.orgId();
+    }
+
+    public boolean isMember(final Integer teamId, final Integer employeeId) {
+        return teamsOf(employeeId).contains(teamId);
+    }
+
+    public int employeeCount() {
+        return employees.size();
+    }
+
+    public int teamCount() {
+        return teams.size();
+    }
+
+    private static Map<Integer, Set<Integer>> freeze(final Map<Integer, Set<Integer>> source) {
+        source.replaceAll((k, v) -> Collections.unmodifiableSet(v));
+        return source;
+    }
+
+    private static Byte toByte(final Object value) {
+        return value instanceof Number number ? number.byteValue() : null;
+    }
+}
@@ -0,0 +1,7 @@
+package com.pandora.backend.service;
+
+/**
+ * 组织关系（员工职位/部门、团队归属、团队长）变更事件，事务提交后使组织关系缓存失效
+ */
+public record OrgGraphChangedEvent(String reason) {
+}
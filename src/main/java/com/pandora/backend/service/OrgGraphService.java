@@ -0,0 +1,162 @@
+package com.pandora.backend.service;
+
+import com.pandora.backend.repository.DepartmentRepository;
+import com.pandora.backend.repository.EmployeeRepository;
+import com.pandora.backend.repository.EmployeeTeamRepository;
+import com.pandora.backend.repository.TeamRepository;
+import com.pandora.backend.util.RedisUtil;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 组织关系快照
+ * 首次使用时一次性加载整张组织关系图，之后权限判断和团队/成员列表全部读内存；
+ * 本节点修改组织结构后（事务提交后）立即重建新快照再替换，读请求始终拿到完整的旧快照或新快照；
+ * 版本号保存在 Redis 并通过 Pub/Sub 广播，其它节点收到更高版本时重建；最大存活时间兜底丢失的消息
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class OrgGraphService implements MessageListener {
+
+    static final String VERSION_KEY = "org-graph:version";
+    static final String CHANNEL = "org-graph:changed";
+
+    private static final String METRIC_LOADS = "org-graph.loads";
+    private static final String METRIC_VERSION = "org-graph.version";
+
+    private final EmployeeRepository employeeRepository;
+    private final TeamRepository teamRepository;
+    private final DepartmentRepository departmentRepository;
+    private final EmployeeTeamRepository employeeTeamRepository;
+    private final RedisUtil redisUtil;
+    private final RedisMessageListenerContainer listenerContainer;
+    private final MeterRegistry meterRegistry;
+
+    private volatile OrgGraph graph;
+    private volatile long loadedAtMillis;
+
+    @Value("${org-graph.max-age-seconds:300}")
+    private long maxAgeSeconds;
+
+    @PostConstruct
+    public void subscribe() {
+        listenerContainer.addMessageListener(this, new ChannelTopic(CHANNEL));
+        meterRegistry.gauge(METRIC_VERSION, this, service -> {
+            final OrgGraph current = service.graph;
+            return current == null ? -1 : current.version();
+        });
+    }
+
+    public OrgGraph current() {
+        final OrgGraph cached = graph;
+        if (cached != null && !isStale()) {
+            return cached;
+        }
+        synchronized (this) {
+            if (graph != null && !isStale()) {
+                return graph;
+            }
+            return rebuild(readVersion(), "lazy");
+        }
+    }
+
+    /**
+     * 本节点修改了组织结构：递增全局版本、重建快照并广播
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrgGraphChanged(final OrgGraphChangedEvent event) {
+        final long version;
+        synchronized (this) {
+            version = nextVersion();
+            log.debug("[org-graph] changed: {}", event.reason());
+            rebuild(version, "local");
+        }
+        try {
+            redisUtil.publish(CHANNEL, String.valueOf(version));
+        } catch (Exception e) {
+            log.warn("[org-graph] publish version {} failed: {}", version, e.getMessage());
+        }
+    }
+
+    /**
+     * 其它节点广播的新版本
+     */
+    @Override
+    public void onMessage(final Message message, final byte[] pattern) {
+        final long version;
+        try {
+            version = Long.parseLong(new String(message.getBody(), StandardCharsets.UTF_8).trim());
+        } catch (NumberFormatException e) {
+            log.warn("[org-graph] ignore malformed version message");
+            return;
+        }
+        final OrgGraph cached = graph;
+        if (cached == null || cached.version() >= version) {
+            // 尚未加载（下次读取时按最新数据加载）或已是该版本
+            return;
+        }
+        synchronized (this) {
+            if (graph != null && graph.version() < version) {
+                rebuild(Math.max(version, readVersion()), "remote");
+            }
+        }
+    }
+
+    private boolean isStale() {
+        return maxAgeSeconds > 0 && System.currentTimeMillis() - loadedAtMillis > maxAgeSeconds * 1000;
+    }
+
+    /**
+     * 先确定版本再读库：版本号在数据提交之后才递增，快照内容不会比它标注的版本旧
+     */
+    private OrgGraph rebuild(final long version, final String trigger) {
+        final long start = System.currentTimeMillis();
+        final OrgGraph loaded = OrgGraph.build(version, employeeRepository.findOrgGraphRows(),
+                teamRepository.findOrgGraphRows(), departmentRepository.findOrgGraphRows(),
+                employeeTeamRepository.findOrgGraphRows());
+        graph = loaded;
+        loadedAtMillis = System.currentTimeMillis();
+        meterRegistry.counter(METRIC_LOADS, "trigger", trigger).increment();
+        log.info("[org-graph] rebuilt version={} trigger={} employees={} teams={} in {}ms", version, trigger,
+                loaded.employeeCount(), loaded.teamCount(), loadedAtMillis - start);
+        return loaded;
+    }
+
+    private long readVersion() {
+        try {
+            final Object value = redisUtil.get(VERSION_KEY);
+            if (value instanceof Number number) {
+                return number.longValue();
+            }
+        } catch (Exception e) {
+            log.debug("[org-graph] read version failed: {}", e.getMessage());
+        }
+        final OrgGraph cached = graph;
+        return cached == null ? 0 : cached.version();
+    }
+
+    private long nextVersion() {
+        try {
+            final Long version = redisUtil.increment(VERSION_KEY);
+            if (version != null) {
+                return version;
+            }
+        } catch (Exception e) {
+            log.warn("[org-graph] increment version failed, other nodes rely on max-age: {}", e.getMessage());
+        }
+        final OrgGraph cached = graph;
+        return cached == null ? 1 : cached.version() + 1;
+    }
+}
@@ -1,39 +1,55 @@
 package com.pandora.backend.service;
 
-import com.pandora.backend.entity.LogAttachment;
-import com.pandora.backend.entity.TaskAttachment;
+import com.pandora.backend.entity.OssMigrationProgress;
 import com.pandora.backend.repository.LogAttachmentRepository;
+import com.pandora.backend.repository.OssMigrationProgressRepository;
 import com.pandora.backend.repository.TaskAttachmentRepository;
+import com.pandora.backend.util.ByteRateLimiter;
+import com.pandora.backend.util.RedisUtil;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 
-import java.io.IOException;
 import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
- * 迁移脚本：将本地文件迁移到 OSS
- * 
+ * 迁移任务：将本地文件迁移到 OSS
+ * 启动后在后台运行，不阻塞应用启动；按附件 ID 分页读取，每页内并行上传并限制总带宽，
+ * 每页结束写入断点，中断或重启后从断点继续；失败的条目在下次运行时先行重试，全部成功才标记完成
+ *
  * 警告：请在执行前备份数据库！
  */
 @Slf4j
 @Service
-public class OssMigrationService implements CommandLineRunner {
+public class OssMigrationService {
 
-    @Autowired
-    private LogAttachmentRepository logAttachmentRepository;
+    private static final String LOCK_KEY = "oss:migration:lock";
 
-    @Autowired
-    private TaskAttachmentRepository taskAttachmentRepository;
-
-    @Autowired
-    private OssService ossService;
+    private final LogAttachmentRepository logAttachmentRepository;
+    private final TaskAttachmentRepository taskAttachmentRepository;
+    private final OssMigrationProgressRepository progressRepository;
+    private final OssService ossService;
+    private final RedisUtil redisUtil;
+    private final Executor asyncExecutor;
+    private final Executor migrationExecutor;
+    private final AtomicBoolean running = new AtomicBoolean(false);
 
     @Value("${file.upload-dir}")
     private String localUploadDir;
@@ -42,77 +58,266 @@ public class OssMigrationService implements CommandLineRunner {
     @Value("${migration.enable:false}")
     private boolean enableMigration;
 
-    @Override
-    public void run(String... args) throws Exception {
+    @Value("${migration.page-size:100}")
+    private int pageSize;
+
+    @Value("${migration.max-bytes-per-second:0}")
+    private long maxBytesPerSecond;
+
+    @Value("${migration.lock-hours:6}")
+    private long lockHours;
+
+    private record MigrationItem(Long id, String storedFilename, String originalFilename) {
+    }
+
+    private enum Outcome {
+        MIGRATED, SKIPPED, FAILED
+    }
+
+    private record ItemResult(Outcome outcome, long bytes, String error) {
+    }
+
+    public OssMigrationService(
+            final LogAttachmentRepository logAttachmentRepository,
+            final TaskAttachmentRepository taskAttachmentRepository,
+            final OssMigrationProgressRepository progressRepository,
+            final OssService ossService,
+            final RedisUtil redisUtil,
+            @Qualifier("asyncExecutor") final Executor asyncExecutor,
+            @Qualifier("migrationExecutor") final Executor migrationExecutor) {
+        this.logAttachmentRepository = logAttachmentRepository;
+        this.taskAttachmentRepository = taskAttachmentRepository;
+        this.progressRepository = progressRepository;
+        this.ossService = ossService;
+        this.redisUtil = redisUtil;
+        this.asyncExecutor = asyncExecutor;
+        this.migrationExecutor = migrationExecutor;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void startOnReady() {
         if (!enableMigration) {
             log.info("Migration is disabled. Set 'migration.enable=true' to run.");
             return;
         }
+        start();
+    }
+
+    /**
+     * 在后台启动迁移；先同步获取分布式锁，本节点或其它节点已在运行时返回 false
+     */
+    public boolean start() {
+        if (!running.compareAndSet(false, true)) {
+            return false;
+        }
+        final String lockValue = UUID.randomUUID().toString();
+        try {
+            if (!Boolean.TRUE.equals(redisUtil.tryLock(LOCK_KEY, lockValue, lockHours, TimeUnit.HOURS))) {
+                log.info("Migration is running on another node, skip.");
+                running.set(false);
+                return false;
+            }
+        } catch (RuntimeException e) {
+            running.set(false);
+            throw e;
+        }
+        try {
+            CompletableFuture.runAsync(() -> runMigration(lockValue), asyncExecutor)
+                    .whenComplete((v, e) -> running.set(false));
+        } catch (RuntimeException e) {
+            redisUtil.releaseLock(LOCK_KEY, lockValue);
+            running.set(false);
+            throw e;
+        }
+        return true;
+    }
 
-        log.info("Starting migration from local storage to OSS...");
-        migrateLogAttachments();
-        migrateTaskAttachments();
-        log.info("Migration completed!");
+    public boolean isRunning() {
+        return running.get();
     }
 
-    private void migrateLogAttachments() {
-        List<LogAttachment> attachments = logAttachmentRepository.findAll();
-        log.info("Found {} log attachments to migrate.", attachments.size());
+    public List<OssMigrationProgress> getProgress() {
+        return progressRepository.findAll();
+    }
 
-        for (LogAttachment att : attachments) {
-            if (att.getStoredFilename().contains("/")) {
-                // 假设包含 / 已经是 OSS 路径了（或者之前的目录结构），简单判断防止重复迁移
-                log.info("Skipping LogAttachment ID {} (Already migrated?)", att.getId());
-                continue;
-            }
+    /**
+     * 状态接口的返回体
+     */
+    public Map<String, Object> getStatus() {
+        final Map<String, Object> status = new LinkedHashMap<>();
+        final boolean localRunning = isRunning();
+        status.put("running", localRunning);
+        status.put("runningOnOtherNode", !localRunning && Boolean.TRUE.equals(redisUtil.hasKey(LOCK_KEY)));
+        status.put("progress", getProgress());
+        return status;
+    }
 
-            Path localFile = Paths.get(localUploadDir, att.getStoredFilename());
-            if (!Files.exists(localFile)) {
-                log.error("File not found for LogAttachment ID {}: {}", att.getId(), localFile);
-                continue;
-            }
+    private void runMigration(final String lockValue) {
+        try {
+            log.info("Starting migration from local storage to OSS...");
+            final ByteRateLimiter limiter = new ByteRateLimiter(maxBytesPerSecond);
+            migrate(OssMigrationProgress.TYPE_LOG, limiter);
+            migrate(OssMigrationProgress.TYPE_TASK, limiter);
+            log.info("Migration completed!");
+        } catch (Exception e) {
+            log.error("Migration aborted", e);
+        } finally {
+            redisUtil.releaseLock(LOCK_KEY, lockValue);
+        }
+    }
 
-            try (InputStream is = Files.newInputStream(localFile)) {
-                String ossPath = ossService.uploadFileStream(is, att.getOriginalFilename());
+    private void migrate(final String type, final ByteRateLimiter limiter) {
+        final OssMigrationProgress progress = progressRepository.findById(type).orElseGet(() -> {
+            final OssMigrationProgress created = new OssMigrationProgress();
+            created.setAttachmentType(type);
+            created.setStatus(OssMigrationProgress.STATUS_RUNNING);
+            created.setStartedTime(LocalDateTime.now());
+            return progressRepository.save(created);
+        });
+        if (OssMigrationProgress.STATUS_COMPLETED.equals(progress.getStatus())) {
+            log.info("{} attachments already migrated, skip.", type);
+            return;
+        }
+        progress.setStatus(OssMigrationProgress.STATUS_RUNNING);
+        progress.setFinishedTime(null);
+        progressRepository.save(progress);
 
-                // 更新 DB
-                att.setStoredFilename(ossPath);
-                logAttachmentRepository.save(att);
-                log.info("Migrated LogAttachment ID {} -> {}", att.getId(), ossPath);
+        if (progress.getFailedCount() > 0) {
+            retryFailed(type, progress, limiter);
+        }
 
-            } catch (IOException e) {
-                log.error("Failed to migrate LogAttachment ID {}", att.getId(), e);
+        log.info("Migrating {} attachments from id > {}", type, progress.getLastAttachmentId());
+        while (true) {
+            final List<MigrationItem> page = fetchPage(type, progress.getLastAttachmentId());
+            if (page.isEmpty()) {
+                break;
             }
+            final int failed = migratePage(type, page, limiter, progress);
+            progress.setFailedCount(progress.getFailedCount() + failed);
+
+            // 整页处理完才推进断点，中断时本页会重做，已迁移的条目按路径判断跳过；
+            // 失败的条目存储名不变，下次运行时由 retryFailed 重新找出
+            progress.setLastAttachmentId(page.get(page.size() - 1).id());
+            progressRepository.save(progress);
+            log.info("{} migration checkpoint id={} migrated={} skipped={} failed={} bytes={}", type,
+                    progress.getLastAttachmentId(), progress.getMigratedCount(), progress.getSkippedCount(),
+                    progress.getFailedCount(), progress.getMigratedBytes());
         }
-    }
 
-    private void migrateTaskAttachments() {
-        List<TaskAttachment> attachments = taskAttachmentRepository.findAll();
-        log.info("Found {} task attachments to migrate.", attachments.size());
+        // 仍有失败条目时不标记完成，下次运行会重试
+        progress.setStatus(progress.getFailedCount() == 0 ? OssMigrationProgress.STATUS_COMPLETED
+                : OssMigrationProgress.STATUS_FAILED);
+        progress.setFinishedTime(LocalDateTime.now());
+        progressRepository.save(progress);
+    }
 
-        for (TaskAttachment att : attachments) {
-            if (att.getStoredFilename().contains("/")) {
-                log.info("Skipping TaskAttachment ID {} (Already migrated?)", att.getId());
-                continue;
+    /**
+     * 重试断点之前仍未迁移的附件（上次失败的条目，存储名仍是本地文件名）；
+     * 重试完成后 failedCount 更新为仍然失败的数量，中途中断时保持原值，下次继续重试
+     */
+    private void retryFailed(final String type, final OssMigrationProgress progress, final ByteRateLimiter limiter) {
+        log.info("Retrying {} failed {} attachments up to id {}", progress.getFailedCount(), type,
+                progress.getLastAttachmentId());
+        long cursor = 0;
+        int stillFailed = 0;
+        while (true) {
+            final List<MigrationItem> page = fetchUnmigrated(type, cursor, progress.getLastAttachmentId());
+            if (page.isEmpty()) {
+                break;
             }
+            stillFailed += migratePage(type, page, limiter, progress);
+            cursor = page.get(page.size() - 1).id();
+            progressRepository.save(progress);
+        }
+        progress.setFailedCount(stillFailed);
+        progressRepository.save(progress);
+    }
 
-            Path localFile = Paths.get(localUploadDir, att.getStoredFilename());
-            if (!Files.exists(localFile)) {
-                log.error("File not found for TaskAttachment ID {}: {}", att.getId(), localFile);
-                continue;
+    /**
+     * 并行迁移一页，累计迁移/跳过计数，返回失败条数
+     */
+    private int migratePage(final String type, final List<MigrationItem> page, final ByteRateLimiter limiter,
+            final OssMigrationProgress progress) {
+        final List<CompletableFuture<ItemResult>> futures = new ArrayList<>(page.size());
+        for (MigrationItem item : page) {
+            futures.add(CompletableFuture.supplyAsync(() -> migrateItem(type, item, limiter), migrationExecutor));
+        }
+        int failed = 0;
+        for (CompletableFuture<ItemResult> future : futures) {
+            final ItemResult result = future.join();
+            switch (result.outcome()) {
+                case MIGRATED -> {
+                    progress.setMigratedCount(progress.getMigratedCount() + 1);
+                    progress.setMigratedBytes(progress.getMigratedBytes() + result.bytes());
+                }
+                case SKIPPED -> progress.setSkippedCount(progress.getSkippedCount() + 1);
+                case FAILED -> {
+                    failed++;
+                    progress.setLastError(truncate(result.error()));
+                }
             }
+        }
+        return failed;
+    }
 
-            try (InputStream is = Files.newInputStream(localFile)) {
-                String ossPath = ossService.uploadFileStream(is, att.getOriginalFilename());
+    private List<MigrationItem> fetchPage(final String type, final Long afterId) {
+        final PageRequest page = PageRequest.of(0, Math.max(1, pageSize));
+        if (OssMigrationProgress.TYPE_LOG.equals(type)) {
+            return logAttachmentRepository.findByIdGreaterThanOrderByIdAsc(afterId, page).stream()
+                    .map(att -> new MigrationItem(att.getId(), att.getStoredFilename(), att.getOriginalFilename()))
+                    .toList();
+        }
+        return taskAttachmentRepository.findByIdGreaterThanOrderByIdAsc(afterId, page).stream()
+                .map(att -> new MigrationItem(att.getId(), att.getStoredFilename(), att.getOriginalFilename()))
+                .toList();
+    }
+
+    private List<MigrationItem> fetchUnmigrated(final String type, final Long afterId, final Long upToId) {
+        final PageRequest page = PageRequest.of(0, Math.max(1, pageSize));
+        if (OssMigrationProgress.TYPE_LOG.equals(type)) {
+            return logAttachmentRepository.findUnmigratedBetween(afterId, upToId, page).stream()
+                    .map(att -> new MigrationItem(att.getId(), att.getStoredFilename(), att.getOriginalFilename()))
+                    .toList();
+        }
+        return taskAttachmentRepository.findUnmigratedBetween(afterId, upToId, page).stream()
+                .map(att -> new MigrationItem(att.getId(), att.getStoredFilename(), att.getOriginalFilename()))
+                .toList();
+    }
+
+    private ItemResult migrateItem(final String type, final MigrationItem item, final ByteRateLimiter limiter) {
+        if (item.storedFilename().contains("/")) {
+            // 假设包含 / 已经是 OSS 路径了（或者之前的目录结构），简单判断防止重复迁移
+            return new ItemResult(Outcome.SKIPPED, 0, null);
+        }
+
+        final Path localFile = Paths.get(localUploadDir, item.storedFilename());
+        if (!Files.exists(localFile)) {
+            log.error("File not found for {} attachment ID {}: {}", type, item.id(), localFile);
+            return new ItemResult(Outcome.FAILED, 0, "File not found: " + item.storedFilename());
+        }
 
-                // 更新 DB
-                att.setStoredFilename(ossPath);
-                taskAttachmentRepository.save(att);
-                log.info("Migrated TaskAttachment ID {} -> {}", att.getId(), ossPath);
+        try (InputStream is = limiter.wrap(Files.newInputStream(localFile))) {
+            final long size = Files.size(localFile);
+            final String ossPath = ossService.uploadFileStream(is, item.originalFilename());
 
-            } catch (IOException e) {
-                log.error("Failed to migrate TaskAttachment ID {}", att.getId(), e);
+            // 更新 DB
+            if (OssMigrationProgress.TYPE_LOG.equals(type)) {
+                logAttachmentRepository.updateStoredFilename(item.id(), ossPath);
+            } else {
+                taskAttachmentRepository.updateStoredFilename(item.id(), ossPath);
             }
+            log.info("Migrated {} attachment ID {} -> {}", type, item.id(), ossPath);
+            return new ItemResult(Outcome.MIGRATED, size, null);
+        } catch (Exception e) {
+            log.error("Failed to migrate {} attachment ID {}", type, item.id(), e);
+            return new ItemResult(Outcome.FAILED, 0, item.id() + ": " + e.getMessage());
+        }
+    }
+
+    private String truncate(final String error) {
+        if (error == null || error.length() <= 1000) {
+            return error;
         }
+        return error.substring(0, 1000);
     }
 }
@@ -0,0 +1,340 @@
+package com.pandora.backend.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.DigestUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.stream.Stream;
+
+/**
+ * OSS 热点对象的本地磁盘缓存
+ * 文件名为 "{objectKey 的 MD5}.{ETag}"，ETag 变化即视为过期；按总字节数做 LRU 淘汰，重启后从目录重建索引。
+ * 未命中时在后台线程拉取落盘，请求线程不等待；命中时在锁内打开文件再交给调用方，
+ * 之后条目即使被淘汰删除，已打开的句柄仍可读完整个文件。
+ * 索引同时记录最近一次向 OSS 确认元数据的时间，在 verify-ttl 内直接信任索引，命中时不再发起 HEAD 请求
+ */
+@Slf4j
+@Service
+public class OssObjectCacheService {
+
+    private static final String METRIC_HITS = "attachment.disk-cache.hits";
+    private static final String METRIC_MISSES = "attachment.disk-cache.misses";
+    private static final String METRIC_EVICTIONS = "attachment.disk-cache.evictions";
+    private static final String METRIC_BYTES = "attachment.disk-cache.bytes";
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private final OssService ossService;
+    private final MeterRegistry meterRegistry;
+    private final Executor fillExecutor;
+
+    /**
+     * 正在后台拉取的对象（按 objectKey 哈希），同一对象同时只拉取一次
+     */
+    private final Map<String, CompletableFuture<Path>> inflight = new ConcurrentHashMap<>();
+
+    /**
+     * accessOrder=true，迭代顺序即最久未访问在前；所有访问都在 synchronized(this) 内
+     */
+    private final LinkedHashMap<String, CachedObject> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes;
+    private Path cacheDir;
+
+    @Value("${file.upload-dir:uploads}")
+    private String uploadDir;
+
+    @Value("${attachment.disk-cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${attachment.disk-cache.max-bytes:1073741824}")
+    private long maxBytes;
+
+    @Value("${attachment.disk-cache.max-object-bytes:52428800}")
+    private long maxObjectBytes;
+
+    @Value("${attachment.disk-cache.verify-ttl-seconds:60}")
+    private long verifyTtlSeconds;
+
+    /**
+     * verifiedAt 为最近一次 HEAD 确认 ETag 未变的时间；重启后重建的条目为 0，首次访问仍会确认
+     */
+    private record CachedObject(Path path, String etag, long size, long lastModified, long verifiedAt) {
+
+        CachedObject verified(final long lastModifiedMillis, final long now) {
+            return new CachedObject(path, etag, size, lastModifiedMillis, now);
+        }
+    }
+
+    /**
+     * 代理下载需要的对象元数据
+     */
+    public record ObjectInfo(String etag, long contentLength, long lastModified) {
+    }
+
+    public OssObjectCacheService(
+            final OssService ossService,
+            final MeterRegistry meterRegistry,
+            @Qualifier("diskCacheExecutor") final Executor fillExecutor) {
+        this.ossService = ossService;
+        this.meterRegistry = meterRegistry;
+        this.fillExecutor = fillExecutor;
+    }
+
+    @PostConstruct
+    public void init() throws IOException {
+        cacheDir = Paths.get(uploadDir, "oss-cache");
+        Files.createDirectories(cacheDir);
+        meterRegistry.gauge(METRIC_BYTES, this, OssObjectCacheService::currentBytes);
+        if (enabled) {
+            rebuildIndex();
+        }
+    }
+
+    /**
+     * 打开缓存文件；未命中时在后台拉取整个对象落盘，本次返回 empty 由调用方直接走 OSS。
+     * 对象过大时不缓存
+     */
+    public Optional<FileChannel> resolve(final String objectKey, final ObjectInfo info) {
+        final Optional<FileChannel> cached = find(objectKey, info.etag());
+        if (cached.isEmpty() && isCacheable(info.etag(), info.contentLength())) {
+            fillAsync(objectKey, sanitizeEtag(info.etag()), info.contentLength(), info.lastModified());
+        }
+        return cached;
+    }
+
+    /**
+     * 缓存中有该对象且在 verify-ttl 内确认过时直接返回索引中的元数据，否则返回 empty 由调用方 HEAD
+     */
+    public Optional<ObjectInfo> findVerified(final String objectKey) {
+        if (!enabled || verifyTtlSeconds <= 0) {
+            return Optional.empty();
+        }
+        final long now = System.currentTimeMillis();
+        synchronized (this) {
+            final CachedObject entry = entries.get(hashKey(objectKey));
+            if (entry == null || now - entry.verifiedAt() > verifyTtlSeconds * 1000) {
+                return Optional.empty();
+            }
+            return Optional.of(new ObjectInfo(entry.etag(), entry.size(), entry.lastModified()));
+        }
+    }
+
+    /**
+     * 调用方 HEAD 之后回写：ETag 与缓存一致时刷新确认时间，之后 verify-ttl 内不再 HEAD
+     */
+    public void markVerified(final String objectKey, final ObjectInfo info) {
+        if (!enabled || info.etag() == null) {
+            return;
+        }
+        final String keyHash = hashKey(objectKey);
+        synchronized (this) {
+            final CachedObject entry = entries.get(keyHash);
+            if (entry != null && entry.etag().equals(sanitizeEtag(info.etag()))) {
+                entries.put(keyHash, entry.verified(info.lastModified(), System.currentTimeMillis()));
+            }
+        }
+    }
+
+    /**
+     * 只打开已有缓存，不触发拉取（用于 Range 请求，避免为一个区间下载整个对象）；调用方负责关闭返回的文件
+     */
+    public Optional<FileChannel> find(final String objectKey, final String etag) {
+        if (!enabled || etag == null) {
+            return Optional.empty();
+        }
+        final String keyHash = hashKey(objectKey);
+        synchronized (this) {
+            final CachedObject entry = entries.get(keyHash);
+            if (entry != null && entry.etag().equals(sanitizeEtag(etag))) {
+                try {
+                    // 淘汰和删除都在同一把锁内，这里打开的一定是完整的缓存文件
+                    final FileChannel channel = FileChannel.open(entry.path(), StandardOpenOption.READ);
+                    meterRegistry.counter(METRIC_HITS).increment();
+                    return Optional.of(channel);
+                } catch (IOException e) {
+                    log.debug("[disk-cache] open failed path={}: {}", entry.path(), e.getMessage());
+                }
+            }
+            if (entry != null) {
+                // ETag 已变化或文件被外部删除，丢弃旧条目
+                remove(keyHash);
+            }
+        }
+        meterRegistry.counter(METRIC_MISSES).increment();
+        return Optional.empty();
+    }
+
+    private void fillAsync(final String objectKey, final String etag, final long contentLength,
+            final long lastModified) {
+        final String keyHash = hashKey(objectKey);
+        final CompletableFuture<Path> future = new CompletableFuture<>();
+        if (inflight.putIfAbsent(keyHash, future) != null) {
+            return;
+        }
+        try {
+            fillExecutor.execute(() -> {
+                try {
+                    future.complete(fetch(objectKey, etag, contentLength, lastModified));
+                } catch (Exception e) {
+                    log.warn("[disk-cache] fetch failed objectKey={}", objectKey, e);
+                    future.completeExceptionally(e);
+                } finally {
+                    inflight.remove(keyHash, future);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // 拉取队列已满，本次不缓存，之后的请求会再次尝试
+            inflight.remove(keyHash, future);
+            log.debug("[disk-cache] fill queue full, skip objectKey={}", objectKey);
+        }
+    }
+
+    private boolean isCacheable(final String etag, final long contentLength) {
+        return enabled && etag != null && contentLength > 0 && contentLength <= maxObjectBytes
+                && contentLength <= maxBytes;
+    }
+
+    private Path fetch(final String objectKey, final String etag, final long contentLength, final long lastModified)
+            throws IOException {
+        final String keyHash = hashKey(objectKey);
+        final Path target = cacheDir.resolve(keyHash + "." + etag);
+        final Path temp = cacheDir.resolve(keyHash + "." + UUID.randomUUID().toString().replace("-", "")
+                + TEMP_SUFFIX);
+
+        try (InputStream in = ossService.getFileAsResource(objectKey).getInputStream()) {
+            Files.copy(in, temp);
+            final long size = Files.size(temp);
+            if (size != contentLength) {
+                throw new IOException("Size mismatch, expected " + contentLength + " but got " + size);
+            }
+            // 先写临时文件再原子改名，读者不会看到写了一半的文件
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+
+        synchronized (this) {
+            final CachedObject previous = entries.put(keyHash,
+                    new CachedObject(target, etag, contentLength, lastModified, System.currentTimeMillis()));
+            if (previous != null) {
+                totalBytes -= previous.size();
+                if (!previous.path().equals(target)) {
+                    deleteQuietly(previous.path());
+                }
+            }
+            totalBytes += contentLength;
+            evictIfNeeded();
+        }
+        return target;
+    }
+
+    /**
+     * 从最久未访问的条目开始淘汰，直到总大小回到上限以内
+     */
+    private void evictIfNeeded() {
+        final Iterator<Map.Entry<String, CachedObject>> it = entries.entrySet().iterator();
+        while (totalBytes > maxBytes && it.hasNext()) {
+            final CachedObject eldest = it.next().getValue();
+            it.remove();
+            totalBytes -= eldest.size();
+            deleteQuietly(eldest.path());
+            meterRegistry.counter(METRIC_EVICTIONS).increment();
+        }
+    }
+
+    private void remove(final String keyHash) {
+        final CachedObject removed = entries.remove(keyHash);
+        if (removed != null) {
+            totalBytes -= removed.size();
+            deleteQuietly(removed.path());
+        }
+    }
+
+    /**
+     * 按文件修改时间从旧到新重建索引，近似恢复重启前的访问顺序；残留的临时文件直接删除
+     */
+    private void rebuildIndex() throws IOException {
+        final List<Path> files;
+        try (Stream<Path> stream = Files.list(cacheDir)) {
+            files = stream.filter(Files::isRegularFile).toList();
+        }
+
+        final List<Path> ordered = files.stream()
+                .filter(path -> !path.getFileName().toString().endsWith(TEMP_SUFFIX))
+                .sorted(Comparator.comparingLong(OssObjectCacheService::lastModifiedMillis))
+                .toList();
+        files.stream()
+                .filter(path -> path.getFileName().toString().endsWith(TEMP_SUFFIX))
+                .forEach(OssObjectCacheService::deleteQuietly);
+
+        synchronized (this) {
+            for (Path path : ordered) {
+                final String name = path.getFileName().toString();
+                final int dot = name.indexOf('.');
+                if (dot <= 0) {
+                    deleteQuietly(path);
+                    continue;
+                }
+                final long size = Files.size(path);
+                entries.put(name.substring(0, dot), new CachedObject(path, name.substring(dot + 1), size, -1, 0));
+                totalBytes += size;
+            }
+            evictIfNeeded();
+            log.info("[disk-cache] index rebuilt entries={} bytes={}", entries.size(), totalBytes);
+        }
+    }
+
+    private synchronized double currentBytes() {
+        return totalBytes;
+    }
+
+    private static String hashKey(final String objectKey) {
+        return DigestUtils.md5DigestAsHex(objectKey.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * ETag 可能带引号或分片后缀 "-N"，只保留可用于文件名的字符
+     */
+    private static String sanitizeEtag(final String etag) {
+        return etag.replaceAll("[^A-Za-z0-9-]", "");
+    }
+
+    private static long lastModifiedMillis(final Path path) {
+        try {
+            return Files.getLastModifiedTime(path).toMillis();
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private static void deleteQuietly(final Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("[disk-cache] delete failed path={}", path, e);
+        }
+    }
+}
@@ -1,8 +1,13 @@
 package com.pandora.backend.service;
 
+import com.aliyun.oss.HttpMethod;
 import com.aliyun.oss.OSS;
+import com.aliyun.oss.model.GeneratePresignedUrlRequest;
+import com.aliyun.oss.model.GetObjectRequest;
 import com.aliyun.oss.model.OSSObject;
+import com.aliyun.oss.model.ObjectMetadata;
 import com.aliyun.oss.model.PutObjectResult;
+import com.aliyun.oss.model.ResponseHeaderOverrides;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
@@ -12,9 +17,11 @@ import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URL;
+import java.nio.file.Path;
 import java.time.Instant;
 import java.util.Date;
 import java.util.UUID;
@@ -69,6 +76,47 @@ public class OssService {
         }
     }
 
+    /**
+     * 以指定 key 上传本地文件（用于内容寻址的去重存储）
+     */
+    public void uploadLocalFile(final Path localPath, final String objectKey) throws IOException {
+        try {
+            PutObjectResult result = ossClient.putObject(bucketName, objectKey, localPath.toFile());
+            log.info("File uploaded to OSS: {}, ETag: {}", objectKey, result.getETag());
+        } catch (Exception e) {
+            log.error("Failed to upload local file to OSS: {}", objectKey, e);
+            throw new IOException("OSS upload failed", e);
+        }
+    }
+
+    /**
+     * 以指定 key 上传内存中的小文件（缩略图等派生文件）
+     */
+    public void uploadBytes(final String objectKey, final byte[] content, final String contentType)
+            throws IOException {
+        try {
+            final ObjectMetadata metadata = new ObjectMetadata();
+            metadata.setContentType(contentType);
+            metadata.setContentLength(content.length);
+            ossClient.putObject(bucketName, objectKey, new ByteArrayInputStream(content), metadata);
+        } catch (Exception e) {
+            log.error("Failed to upload bytes to OSS: {}", objectKey, e);
+            throw new IOException("OSS upload failed", e);
+        }
+    }
+
+    /**
+     * 判断对象是否存在
+     */
+    public boolean objectExists(final String objectKey) {
+        try {
+            return ossClient.doesObjectExist(bucketName, objectKey);
+        } catch (Exception e) {
+            log.error("Failed to check object existence in OSS: {}", objectKey, e);
+            throw new RuntimeException("Failed to check object existence: " + objectKey, e);
+        }
+    }
+
     /**
      * 从 OSS 获取文件资源
      */
@@ -82,6 +130,32 @@ public class OssService {
         }
     }
 
+    /**
+     * 获取对象元数据（ETag、Last-Modified、长度），仅发起 HEAD 请求
+     */
+    public ObjectMetadata getObjectMetadata(final String storedFilename) {
+        try {
+            return ossClient.getObjectMetadata(bucketName, storedFilename);
+        } catch (Exception e) {
+            log.error("Failed to get object metadata from OSS: {}", storedFilename, e);
+            throw new RuntimeException("File not found in OSS: " + storedFilename, e);
+        }
+    }
+
+    /**
+     * 按字节范围读取对象，start 和 end 均包含在内
+     */
+    public InputStream getObjectRange(final String storedFilename, final long start, final long end) {
+        try {
+            final GetObjectRequest request = new GetObjectRequest(bucketName, storedFilename);
+            request.setRange(start, end);
+            return ossClient.getObject(request).getObjectContent();
+        } catch (Exception e) {
+            log.error("Failed to download file range from OSS: {} [{}-{}]", storedFilename, start, end, e);
+            throw new RuntimeException("File not found in OSS: " + storedFilename, e);
+        }
+    }
+
     /**
      * 删除文件
      */
@@ -93,6 +167,19 @@ public class OssService {
         }
     }
 
+    /**
+     * 获取对象的 ETag（内容哈希），仅发起 HEAD 请求，不下载内容
+     */
+    public String getObjectETag(final String storedFilename) {
+        try {
+            final ObjectMetadata metadata = ossClient.getObjectMetadata(bucketName, storedFilename);
+            return metadata.getETag();
+        } catch (Exception e) {
+            log.error("Failed to get object metadata from OSS: {}", storedFilename, e);
+            throw new RuntimeException("Failed to get object metadata: " + storedFilename, e);
+        }
+    }
+
     /**
      * 生成短暂的预签名 URL
      */
@@ -106,4 +193,27 @@ public class OssService {
             throw new RuntimeException("Failed to generate presigned url", e);
         }
     }
+
+    /**
+     * 生成带响应头覆盖的预签名下载 URL，浏览器直连 OSS 时仍按原文件名和类型下载/预览
+     */
+    public String generatePresignedUrl(
+            final String storedFilename,
+            final int expireSeconds,
+            final String contentDisposition,
+            final String contentType) {
+        try {
+            final GeneratePresignedUrlRequest request = new GeneratePresignedUrlRequest(bucketName, storedFilename,
+                    HttpMethod.GET);
+            request.setExpiration(Date.from(Instant.now().plusSeconds(expireSeconds)));
+            final ResponseHeaderOverrides overrides = new ResponseHeaderOverrides();
+            overrides.setContentDisposition(contentDisposition);
+            overrides.setContentType(contentType);
+            request.setResponseHeaders(overrides);
+            return ossClient.generatePresignedUrl(request).toString();
+        } catch (Exception e) {
+            log.error("Failed to generate presigned url: {}", storedFilename, e);
+            throw new RuntimeException("Failed to generate presigned url", e);
+        }
+    }
 }
@@ -0,0 +1,83 @@
+package com.pandora.backend.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.util.Set;
+
+/**
+ * 任务/项目授权判断
+ * 基于 OrgGraphService 的内存快照，不再为每次判断查询员工、团队关系表
+ */
+@Service
+@RequiredArgsConstructor
+public class PermissionService {
+
+    private final OrgGraphService orgGraphService;
+
+    /**
+     * 员工职位，员工不存在返回 null
+     */
+    public Byte positionOf(final Integer employeeId) {
+        final OrgGraph.EmployeeNode node = orgGraphService.current().employee(employeeId);
+        return node == null ? null : node.position();
+    }
+
+    /**
+     * 员工所在部门ID，未关联部门返回 null
+     */
+    public Integer departmentOf(final Integer employeeId) {
+        final OrgGraph.EmployeeNode node = orgGraphService.current().employee(employeeId);
+        return node == null ? null : node.orgId();
+    }
+
+    public Integer teamDepartmentOf(final Integer teamId) {
+        return orgGraphService.current().departmentOfTeam(teamId);
+    }
+
+    /**
+     * 团队长ID，团队没有团队长返回 null
+     */
+    public Integer teamLeaderOf(final Integer teamId) {
+        return orgGraphService.current().leaderOf(teamId);
+    }
+
+    public Set<Integer> ledTeamsOf(final Integer employeeId) {
+        return orgGraphService.current().ledTeamsOf(employeeId);
+    }
+
+    public boolean leadsTeam(final Integer employeeId, final Integer teamId) {
+        return teamId != null && ledTeamsOf(employeeId).contains(teamId);
+    }
+
+    /**
+     * 是否可以把任务分配给指定员工
+     * 部门经理: 本部门的团队长和员工
+     * 团队长: 自己带领的团队中的员工
+     */
+    public boolean canAssignTask(final Integer userId, final Byte position, final Integer assigneeId) {
+        final OrgGraph graph = orgGraphService.current();
+        final OrgGraph.EmployeeNode assignee = graph.employee(assigneeId);
+        if (position == null || assignee == null || assignee.position() == null) {
+            return false;
+        }
+
+        if (position == 1) {
+            final OrgGraph.EmployeeNode manager = graph.employee(userId);
+            return manager != null && manager.orgId() != null && manager.orgId().equals(assignee.orgId())
+                    && (assignee.position() == 2 || assignee.position() == 3);
+        }
+        if (position == 2) {
+            if (assignee.position() != 3) {
+                return false;
+            }
+            final Set<Integer> assigneeTeams = graph.teamsOf(assigneeId);
+            for (Integer teamId : graph.ledTeamsOf(userId)) {
+                if (assigneeTeams.contains(teamId)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
@@ -1,5 +1,6 @@
 package com.pandora.backend.service;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -13,12 +14,10 @@ import com.pandora.backend.entity.Task;
 import com.pandora.backend.enums.Priority;
 import com.pandora.backend.enums.Status;
 import com.pandora.backend.enums.TaskType;
-import com.pandora.backend.entity.Employee_Team;
 import com.pandora.backend.entity.Project;
 import com.pandora.backend.entity.Team;
 import com.pandora.backend.dto.ProjectDTO;
 import com.pandora.backend.repository.EmployeeRepository;
-import com.pandora.backend.repository.EmployeeTeamRepository;
 import com.pandora.backend.repository.ProjectRepository;
 import com.pandora.backend.repository.TaskRepository;
 import com.pandora.backend.repository.TeamRepository;
@@ -33,15 +32,18 @@ public class ProjectService {
     @Autowired
     private EmployeeRepository employeeRepository;
 
-    @Autowired
-    private EmployeeTeamRepository employeeTeamRepository;
-
     @Autowired
     private TeamRepository teamRepository;
 
     @Autowired
     private TaskRepository taskRepository;
 
+    @Autowired
+    private PermissionService permissionService;
+
+    @Autowired
+    private OrgGraphService orgGraphService;
+
     public ProjectDTO createProject(ProjectCreateDTO dto, Integer senderId) {
         Employee sender = employeeRepository.findById(senderId)
                 .orElseThrow(() -> new RuntimeException("Sender not found"));
@@ -189,30 +191,33 @@ public class ProjectService {
      * 部门经理: 本部门的团队
      */
     public List<TeamAssignmentOptionDTO> getAssignableProjectLeaders(Integer userId, Byte position) {
-        List<Employee_Team> teamLeaderRelations;
+        Integer orgId;
 
         if (position == 0) {
-            // CEO: 查询所有团队
-            teamLeaderRelations = employeeTeamRepository.findAllTeamsWithLeaders((byte) 1);
+            // CEO: 所有团队
+            orgId = null;
         } else if (position == 1) {
-            // 部门经理: 查询本部门的团队
-            Employee manager = employeeRepository.findById(userId)
-                    .orElseThrow(() -> new IllegalArgumentException("用户不存在"));
-
-            if (manager.getDepartment() == null) {
+            // 部门经理: 本部门的团队
+            orgId = permissionService.departmentOf(userId);
+            if (orgId == null) {
                 throw new IllegalArgumentException("部门经理未关联部门");
             }
-
-            teamLeaderRelations = employeeTeamRepository.findTeamsByDepartment(
-                    manager.getDepartment().getOrgId(), (byte) 1);
         } else {
             throw new IllegalArgumentException("无权限分配项目");
         }
 
-        // 转换为 DTO
-        return teamLeaderRelations.stream()
-                .map(this::toTeamAssignmentDTO)
-                .collect(Collectors.toList());
+        // 从组织关系快照中筛选有团队长的团队
+        OrgGraph graph = orgGraphService.current();
+        List<TeamAssignmentOptionDTO> result = new ArrayList<>();
+        for (OrgGraph.TeamNode team : graph.teams()) {
+            if (graph.leaderOf(team.teamId()) == null) {
+                continue;
+            }
+            if (orgId == null || orgId.equals(team.orgId())) {
+                result.add(toTeamAssignmentDTO(team));
+            }
+        }
+        return result;
     }
 
     /**
@@ -220,7 +225,7 @@ public class ProjectService {
      * CEO: 可以分配给所有团队
      * 部门经理: 只能分配给本部门的团队
      * 
-     * 优化: 直接查询指定团队的团队长,减少数据库查询
+     * 优化: 团队长与部门归属从组织关系缓存读取,不再查询关系表
      */
     public ProjectDTO assignProjectLeader(Integer projectId, Integer teamId, Integer userId, Byte position) {
         if (teamId == null) {
@@ -235,24 +240,21 @@ public class ProjectService {
         Team team = teamRepository.findById(teamId)
                 .orElseThrow(() -> new IllegalArgumentException("团队不存在"));
 
-        // 3. 直接查询该团队的团队长 (优化: 只查询一个团队)
-        Employee leader = employeeTeamRepository.findTeamLeader(teamId, (byte) 1);
-        if (leader == null) {
+        // 3. 该团队的团队长
+        Integer leaderId = permissionService.teamLeaderOf(teamId);
+        if (leaderId == null) {
             throw new IllegalArgumentException("该团队没有团队长");
         }
 
         // 4. 权限检查
         if (position == 1) {
             // 部门经理: 检查团队是否在本部门
-            Employee manager = employeeRepository.findById(userId)
-                    .orElseThrow(() -> new IllegalArgumentException("用户不存在"));
-
-            if (manager.getDepartment() == null) {
+            Integer managerOrgId = permissionService.departmentOf(userId);
+            if (managerOrgId == null) {
                 throw new IllegalArgumentException("用户未关联部门");
             }
 
-            if (team.getDepartment() == null ||
-                    !manager.getDepartment().getOrgId().equals(team.getDepartment().getOrgId())) {
+            if (team.getDepartment() == null || !managerOrgId.equals(team.getDepartment().getOrgId())) {
                 throw new IllegalArgumentException("无权限分配给该团队");
             }
         }
@@ -260,7 +262,8 @@ public class ProjectService {
 
         // 5. 分配项目负责团队和团队长
         project.setTeam(team);
-        project.setSender(leader);
+        project.setSender(employeeRepository.findById(leaderId)
+                .orElseThrow(() -> new IllegalArgumentException("该团队没有团队长")));
         Project updatedProject = projectRepository.save(project);
 
         return convertToDto(updatedProject);
@@ -269,12 +272,12 @@ public class ProjectService {
     /**
      * 转换为团队分配DTO
      */
-    private TeamAssignmentOptionDTO toTeamAssignmentDTO(Employee_Team employeeTeam) {
+    private TeamAssignmentOptionDTO toTeamAssignmentDTO(OrgGraph.TeamNode team) {
         TeamAssignmentOptionDTO dto = new TeamAssignmentOptionDTO();
 
         // 团队信息
-        dto.setTeamId(employeeTeam.getTeam().getTeamId());
-        dto.setTeamName(employeeTeam.getTeam().getTeamName());
+        dto.setTeamId(team.teamId());
+        dto.setTeamName(team.teamName());
 
         return dto;
     }
@@ -0,0 +1,165 @@
+package com.pandora.backend.service;
+
+import com.pandora.backend.dto.ChatMessageDTO;
+import com.pandora.backend.util.TokenEstimator;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 按 token 预算组装提示词上下文
+ * 固定消息（系统指令、用户提问）原样保留；各上下文分段按优先级轮流取条目，
+ * 条目在分段内已按相关性排序，超出预算的条目被省略并在分段末尾注明省略数量
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PromptBudgetService {
+
+    private static final String METRIC_SECTION_TOKENS = "agent.prompt.section.tokens";
+    private static final String METRIC_DROPPED_ITEMS = "agent.prompt.section.dropped";
+    private static final String METRIC_TOTAL_TOKENS = "agent.prompt.tokens";
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${agent.prompt.max-tokens:6000}")
+    private int maxTokens;
+
+    @Value("${agent.prompt.max-item-chars:300}")
+    private int maxItemChars;
+
+    /**
+     * 上下文分段
+     *
+     * @param name     分段名，用于指标标签
+     * @param priority 优先级，数值越小越先分配预算
+     * @param header   分段标题，始终保留
+     * @param items    条目列表，需由调用方按相关性从高到低排序
+     */
+    public record Section(String name, int priority, String header, List<String> items) {
+    }
+
+    /**
+     * 组装消息：leading 放在上下文之前，trailing 放在之后，分段按传入顺序输出
+     */
+    public List<ChatMessageDTO> assemble(
+            final String promptName,
+            final List<ChatMessageDTO> leading,
+            final List<Section> sections,
+            final List<ChatMessageDTO> trailing) {
+
+        final int fixedTokens = countTokens(leading) + countTokens(trailing);
+        int remaining = maxTokens - fixedTokens;
+
+        final List<List<String>> accepted = new ArrayList<>(sections.size());
+        for (Section section : sections) {
+            accepted.add(new ArrayList<>());
+            remaining -= TokenEstimator.estimate(section.header());
+        }
+
+        // 按优先级轮流取条目，避免单个大分段吃光预算
+        final List<Integer> ranked = new ArrayList<>();
+        for (int i = 0; i < sections.size(); i++) {
+            ranked.add(i);
+        }
+        ranked.sort(Comparator.comparingInt(i -> sections.get(i).priority()));
+        final boolean[] exhausted = new boolean[sections.size()];
+        boolean progressed = true;
+        for (int round = 0; progressed; round++) {
+            progressed = false;
+            for (int index : ranked) {
+                final List<String> items = sections.get(index).items();
+                if (exhausted[index] || round >= items.size()) {
+                    continue;
+                }
+                final String item = truncate(items.get(round));
+                final int itemTokens = TokenEstimator.estimate(item) + 1;
+                if (itemTokens > remaining) {
+                    // 分段内条目按相关性排序，后续条目不再考虑
+                    exhausted[index] = true;
+                    continue;
+                }
+                accepted.get(index).add(item);
+                remaining -= itemTokens;
+                progressed = true;
+            }
+        }
+
+        final List<ChatMessageDTO> messages = new ArrayList<>(leading);
+        final Map<String, Integer> breakdown = new LinkedHashMap<>();
+        breakdown.put("fixed", fixedTokens);
+        for (int i = 0; i < sections.size(); i++) {
+            final Section section = sections.get(i);
+            final List<String> kept = accepted.get(i);
+            final int dropped = section.items().size() - kept.size();
+
+            final StringBuilder content = new StringBuilder(section.header());
+            if (section.items().isEmpty()) {
+                content.append("\n(none)");
+            }
+            for (String item : kept) {
+                content.append('\n').append(item);
+            }
+            if (dropped > 0) {
+                content.append("\n（另有 ").append(dropped).append(" 条因长度限制省略）");
+            }
+
+            final String text = content.toString();
+            messages.add(new ChatMessageDTO("system", text));
+
+            final int sectionTokens = TokenEstimator.estimate(text);
+            breakdown.put(section.name(), sectionTokens);
+            recordSection(promptName, section.name(), sectionTokens, dropped);
+        }
+        messages.addAll(trailing);
+
+        final int totalTokens = breakdown.values().stream().mapToInt(Integer::intValue).sum();
+        DistributionSummary.builder(METRIC_TOTAL_TOKENS)
+                .tag("prompt", promptName)
+                .register(meterRegistry)
+                .record(totalTokens);
+        log.info("[prompt-budget] assembled prompt={} totalTokens={} budget={} breakdown={}", promptName,
+                totalTokens, maxTokens, breakdown);
+        return messages;
+    }
+
+    private void recordSection(final String promptName, final String sectionName, final int tokens,
+            final int dropped) {
+        DistributionSummary.builder(METRIC_SECTION_TOKENS)
+                .tag("prompt", promptName)
+                .tag("section", sectionName)
+                .register(meterRegistry)
+                .record(tokens);
+        if (dropped > 0) {
+            meterRegistry.counter(METRIC_DROPPED_ITEMS, "prompt", promptName, "section", sectionName)
+                    .increment(dropped);
+        }
+    }
+
+    private String truncate(final String item) {
+        if (item == null) {
+            return "";
+        }
+        if (item.length() <= maxItemChars) {
+            return item;
+        }
+        return item.substring(0, maxItemChars) + "...";
+    }
+
+    private int countTokens(final List<ChatMessageDTO> messages) {
+        int total = 0;
+        for (ChatMessageDTO message : messages) {
+            total += TokenEstimator.estimate(message.getContent());
+        }
+        return total;
+    }
+}
@@ -0,0 +1,174 @@
+package com.pandora.backend.service;
+
+import com.pandora.backend.config.RateLimitConfig;
+import com.pandora.backend.util.RedisUtil;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 令牌桶限流
+ * 多个桶（全局桶 + 路由桶）由一个 Lua 脚本一次往返判定：全部有令牌才同时扣减；
+ * Redis 不可用时退化为本节点内存桶（各节点独立计数）
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class RateLimitService {
+
+    private static final String KEY_PREFIX = "rate-limit:";
+    private static final String METRIC_REQUESTS = "rate-limit.requests";
+    private static final String METRIC_FALLBACK = "rate-limit.fallback";
+
+    /**
+     * KEYS: 各个桶; ARGV: 每个桶依次为 容量, 每秒补充数
+     * 返回 {是否放行, 剩余令牌数（各桶最小值）, 需等待毫秒数}；时间取 Redis 服务器时间，避免各节点时钟不一致
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static final RedisScript<List<Long>> TOKEN_BUCKET_SCRIPT = new DefaultRedisScript<>("""
+            local time = redis.call('TIME')
+            local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000)
+            local levels = {}
+            local allowed = 1
+            local wait = 0
+            for i = 1, #KEYS do
+                local capacity = tonumber(ARGV[i * 2 - 1])
+                local rate = tonumber(ARGV[i * 2])
+                local state = redis.call('HMGET', KEYS[i], 'tokens', 'ts')
+                local tokens = tonumber(state[1])
+                local ts = tonumber(state[2])
+                if tokens == nil or ts == nil then
+                    tokens = capacity
+                    ts = now
+                end
+                tokens = math.min(capacity, tokens + math.max(0, now - ts) * rate / 1000)
+                levels[i] = tokens
+                if tokens < 1 then
+                    allowed = 0
+                    wait = math.max(wait, math.ceil((1 - tokens) * 1000 / rate))
+                end
+            end
+            local remaining = -1
+            for i = 1, #KEYS do
+                local capacity = tonumber(ARGV[i * 2 - 1])
+                local rate = tonumber(ARGV[i * 2])
+                local tokens = levels[i]
+                if allowed == 1 then
+                    tokens = tokens - 1
+                end
+                redis.call('HSET', KEYS[i], 'tokens', tostring(tokens), 'ts', now)
+                redis.call('PEXPIRE', KEYS[i], math.ceil(capacity * 1000 / rate) + 1000)
+                local left = math.floor(tokens)
+                if remaining < 0 or left < remaining then
+                    remaining = left
+                end
+            end
+            return {allowed, remaining, wait}
+            """, (Class<List<Long>>) (Class) List.class);
+
+    private final RedisUtil redisUtil;
+    private final MeterRegistry meterRegistry;
+    private final RateLimitConfig rateLimitConfig;
+
+    private final Map<String, LocalBucket> localBuckets = new ConcurrentHashMap<>();
+
+    /**
+     * 判定结果；limit 为最严格规则的容量，retryAfterMillis 仅在拒绝时有意义
+     */
+    public record Decision(boolean allowed, long limit, long remaining, long retryAfterMillis) {
+    }
+
+    /**
+     * 对同一主体（用户或 IP）同时检查多个桶
+     */
+    public Decision tryAcquire(final String subject, final List<RateLimitConfig.Rule> rules) {
+        final List<String> keys = new ArrayList<>(rules.size());
+        final String[] args = new String[rules.size() * 2];
+        long limit = Long.MAX_VALUE;
+        for (int i = 0; i < rules.size(); i++) {
+            final RateLimitConfig.Rule rule = rules.get(i);
+            keys.add(KEY_PREFIX + rule.getName() + ":" + subject);
+            args[i * 2] = String.valueOf(rule.getCapacity());
+            args[i * 2 + 1] = String.valueOf(rule.getRefillPerSecond());
+            limit = Math.min(limit, rule.getCapacity());
+        }
+
+        Decision decision;
+        try {
+            final List<Long> result = redisUtil.executeScript(TOKEN_BUCKET_SCRIPT, keys, args);
+            decision = new Decision(result.get(0) == 1, limit, Math.max(0, result.get(1)), result.get(2));
+        } catch (Exception e) {
+            log.debug("[rate-limit] redis unavailable, fallback to local buckets: {}", e.getMessage());
+            meterRegistry.counter(METRIC_FALLBACK).increment();
+            decision = tryAcquireLocal(keys, rules, limit);
+        }
+
+        final String ruleTag = rules.get(rules.size() - 1).getName();
+        meterRegistry.counter(METRIC_REQUESTS, "rule", ruleTag,
+                "outcome", decision.allowed() ? "allowed" : "rejected").increment();
+        return decision;
+    }
+
+    private Decision tryAcquireLocal(final List<String> keys, final List<RateLimitConfig.Rule> rules,
+            final long limit) {
+        if (localBuckets.size() > rateLimitConfig.getLocalMaxBuckets()) {
+            // 兜底路径只在 Redis 故障期间使用，超过上限直接清空，代价是短时间内限流放宽
+            localBuckets.clear();
+        }
+        final long now = System.currentTimeMillis();
+        final List<LocalBucket> buckets = new ArrayList<>(keys.size());
+        for (int i = 0; i < keys.size(); i++) {
+            final RateLimitConfig.Rule rule = rules.get(i);
+            buckets.add(localBuckets.computeIfAbsent(keys.get(i),
+                    k -> new LocalBucket(rule.getCapacity(), rule.getRefillPerSecond(), now)));
+        }
+
+        // 同一主体的路由桶 key 都带主体，只会与其全局桶一起访问，锁住全局桶即可保证多桶判定与扣减原子
+        synchronized (buckets.get(0)) {
+            boolean allowed = true;
+            long wait = 0;
+            for (LocalBucket bucket : buckets) {
+                bucket.refill(now);
+                if (bucket.tokens < 1) {
+                    allowed = false;
+                    wait = Math.max(wait, (long) Math.ceil((1 - bucket.tokens) * 1000 / bucket.refillPerSecond));
+                }
+            }
+            long remaining = Long.MAX_VALUE;
+            for (LocalBucket bucket : buckets) {
+                if (allowed) {
+                    bucket.tokens -= 1;
+                }
+                remaining = Math.min(remaining, (long) Math.floor(bucket.tokens));
+            }
+            return new Decision(allowed, limit, Math.max(0, remaining), wait);
+        }
+    }
+
+    private static final class LocalBucket {
+        private final double capacity;
+        private final double refillPerSecond;
+        private double tokens;
+        private long lastRefillMillis;
+
+        private LocalBucket(final double capacity, final double refillPerSecond, final long now) {
+            this.capacity = capacity;
+            this.refillPerSecond = refillPerSecond;
+            this.tokens = capacity;
+            this.lastRefillMillis = now;
+        }
+
+        private void refill(final long now) {
+            tokens = Math.min(capacity, tokens + Math.max(0, now - lastRefillMillis) * refillPerSecond / 1000);
+            lastRefillMillis = Math.max(lastRefillMillis, now);
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.pandora.backend.service;
+
+import com.pandora.backend.util.RedisUtil;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Refresh Token 存储（Redis）
+ * 只保存 Token 的 SHA-256，过期交给 Redis TTL；同一次登录轮换出的 Token 属于同一个 family，
+ * 已用过的 Token 再次出现视为泄露，整个 family 作废。轮换由 Lua 脚本一次往返原子完成
+ */
+@Service
+@RequiredArgsConstructor
+public class RefreshTokenStore {
+
+    private static final String TOKEN_KEY_PREFIX = "auth:refresh:token:";
+    private static final String FAMILY_KEY_PREFIX = "auth:refresh:family:";
+
+    /**
+     * KEYS[1] Token key, KEYS[2] family key; ARGV: userId, familyId, ttl 秒
+     */
+    private static final RedisScript<Long> ISSUE_SCRIPT = new DefaultRedisScript<>("""
+            redis.call('HSET', KEYS[1], 'user', ARGV[1], 'family', ARGV[2], 'status', 'ACTIVE')
+            redis.call('EXPIRE', KEYS[1], ARGV[3])
+            redis.call('SET', KEYS[2], ARGV[1], 'EX', ARGV[3])
+            return 1
+            """, Long.class);
+
+    /**
+     * KEYS[1] 旧 Token key, KEYS[2] 新 Token key; ARGV: userId, ttl 秒, family key 前缀
+     * family key 由旧 Token 记录得出，只适用于单节点 Redis（非 Cluster）
+     */
+    private static final RedisScript<Long> ROTATE_SCRIPT = new DefaultRedisScript<>("""
+            local token = redis.call('HMGET', KEYS[1], 'user', 'family', 'status')
+            if not token[1] or token[1] ~= ARGV[1] then
+                return 0
+            end
+            local familyKey = ARGV[3] .. token[2]
+            if redis.call('EXISTS', familyKey) == 0 then
+                return -2
+            end
+            if token[3] ~= 'ACTIVE' then
+                redis.call('DEL', familyKey)
+                return -1
+            end
+            redis.call('HSET', KEYS[1], 'status', 'USED')
+            redis.call('HSET', KEYS[2], 'user', ARGV[1], 'family', token[2], 'status', 'ACTIVE')
+            redis.call('EXPIRE', KEYS[2], ARGV[2])
+            redis.call('EXPIRE', familyKey, ARGV[2])
+            return 1
+            """, Long.class);
+
+    private final RedisUtil redisUtil;
+
+    public enum RotationResult {
+        /** 轮换成功 */
+        ROTATED,
+        /** 不存在或已过期 */
+        NOT_FOUND,
+        /** 已用过的 Token 被再次使用，family 已作废 */
+        REUSED,
+        /** family 已作废 */
+        REVOKED
+    }
+
+    /**
+     * 登录时开启新的 family
+     */
+    public void issue(final Integer userId, final String refreshToken, final long ttlSeconds) {
+        final String familyId = UUID.randomUUID().toString().replace("-", "");
+        redisUtil.executeScript(ISSUE_SCRIPT,
+                List.of(tokenKey(refreshToken), FAMILY_KEY_PREFIX + familyId),
+                String.valueOf(userId), familyId, String.valueOf(ttlSeconds));
+    }
+
+    /**
+     * 把旧 Token 标记为已使用并在同一 family 下登记新 Token
+     */
+    public RotationResult rotate(final Integer userId, final String oldRefreshToken, final String newRefreshToken,
+            final long ttlSeconds) {
+        final Long code = redisUtil.executeScript(ROTATE_SCRIPT,
+                List.of(tokenKey(oldRefreshToken), tokenKey(newRefreshToken)),
+                String.valueOf(userId), String.valueOf(ttlSeconds), FAMILY_KEY_PREFIX);
+        if (code == null || code == 0) {
+            return RotationResult.NOT_FOUND;
+        }
+        if (code == 1) {
+            return RotationResult.ROTATED;
+        }
+        return code == -1 ? RotationResult.REUSED : RotationResult.REVOKED;
+    }
+
+    private static String tokenKey(final String refreshToken) {
+        try {
+            final byte[] digest = MessageDigest.getInstance("SHA-256")
+                    .digest(refreshToken.getBytes(StandardCharsets.UTF_8));
+            return TOKEN_KEY_PREFIX + HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
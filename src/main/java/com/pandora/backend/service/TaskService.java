@@ -17,10 +17,10 @@ import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 import com.pandora.backend.repository.TaskRepository;
 import com.pandora.backend.repository.EmployeeRepository;
-import com.pandora.backend.repository.EmployeeTeamRepository;
 import com.pandora.backend.repository.MilestoneRepository;
 import com.pandora.backend.repository.ProjectRepository;
 import com.pandora.backend.repository.TaskAttachmentRepository;
+import com.pandora.backend.agent.service.AttachmentInsightService;
 import com.pandora.backend.dto.AssignableEmployeeDTO;
 import com.pandora.backend.dto.AttachmentDTO;
 import com.pandora.backend.dto.TaskDTO;
@@ -37,8 +37,6 @@ import com.pandora.backend.enums.Position;
 
 @Service
 public class TaskService {
-    private static final Byte LEADER_FLAG = 1;
-
     private static final Logger LOGGER = LoggerFactory.getLogger(TaskService.class);
 
     @Autowired
@@ -53,9 +51,6 @@ public class TaskService {
     @Autowired
     private NoticeService noticeService;
 
-    @Autowired
-    private EmployeeTeamRepository employeeTeamRepository;
-
     @Autowired
     private ProjectRepository projectRepository;
 
@@ -67,6 +62,18 @@ public class TaskService {
     @Autowired
     private OssService ossService;
 
+    @Autowired
+    private AttachmentContentService attachmentContentService;
+
+    @Autowired
+    private AttachmentInsightService attachmentInsightService;
+
+    @Autowired
+    private PermissionService permissionService;
+
+    @Autowired
+    private OrgGraphService orgGraphService;
+
     /**
      * 创建任务并处理附件
      * 
@@ -138,8 +145,8 @@ public class TaskService {
                     // 3a. 存储文件到磁盘 (Old)
                     // String storedFilename = fileStorageService.storeFile(file);
 
-                    // 3a. 存储文件到 OSS (New)
-                    String storedFilename = ossService.uploadFile(file);
+                    // 3a. 存储文件到 OSS (按内容去重，相同文件只存一份)
+                    String storedFilename = attachmentContentService.store(userId, file);
 
                     // 3b. 保存附件信息到数据库
                     TaskAttachment attachment = new TaskAttachment();
@@ -153,6 +160,10 @@ public class TaskService {
 
                     taskAttachmentRepository.save(attachment);
 
+                    // 3c. 后台预生成附件摘要，AI 报告直接命中缓存
+                    attachmentInsightService.precomputeInsight(attachment.getId(), storedFilename,
+                            file.getContentType(), file.getOriginalFilename());
+
                 } catch (IOException e) {
                     throw new RuntimeException("文件上传失败: " + file.getOriginalFilename(), e);
                 }
@@ -343,8 +354,7 @@ public class TaskService {
         // 2. 检查是否是负责该项目的团队长
         if (project.getTeam() != null && userPosition == 2) {
             // 检查当前用户是否是该项目的团队长
-            List<Integer> leaderTeamIds = employeeTeamRepository.findLeaderTeamIds(userId, LEADER_FLAG);
-            if (leaderTeamIds.contains(project.getTeam().getTeamId())) {
+            if (permissionService.leadsTeam(userId, project.getTeam().getTeamId())) {
                 hasPermission = true;
             }
         }
@@ -359,11 +369,13 @@ public class TaskService {
      * 用于需要权限验证的场景，如assignTask接口
      */
     public TaskDTO createTaskWithPermission(TaskDTO taskDTO, Integer userId) {
-        Employee user = employeeRepository.findById(userId)
-                .orElseThrow(() -> new IllegalArgumentException("用户不存在"));
+        Byte userPosition = permissionService.positionOf(userId);
+        if (userPosition == null) {
+            throw new IllegalArgumentException("用户不存在");
+        }
 
         // 验证权限
-        validateTaskCreationPermission(taskDTO.getMilestoneId(), userId, user.getPosition());
+        validateTaskCreationPermission(taskDTO.getMilestoneId(), userId, userPosition);
 
         return createTask(taskDTO);
     }
@@ -373,7 +385,12 @@ public class TaskService {
         if (!taskRepository.existsById(taskId)) {
             throw new RuntimeException("Task not found");
         }
+        List<TaskAttachment> attachments = taskAttachmentRepository.findByTaskTaskId(taskId);
         taskRepository.deleteById(taskId);
+        // 附件随级联删除，释放对应 OSS 对象的引用
+        for (TaskAttachment attachment : attachments) {
+            attachmentContentService.release(attachment.getStoredFilename());
+        }
     }
 
     // 根据ID查询任务
@@ -565,17 +582,15 @@ public class TaskService {
     }
 
     public List<TaskDTO> getTasksByTeam(Integer leaderId) {
-        List<Integer> teamIds = employeeTeamRepository.findLeaderTeamIds(leaderId, LEADER_FLAG);
+        OrgGraph graph = orgGraphService.current();
+        Set<Integer> teamIds = graph.ledTeamsOf(leaderId);
         if (teamIds.isEmpty()) {
             return List.of();
         }
         Set<Integer> memberIds = new HashSet<>();
         memberIds.add(leaderId);
         for (Integer teamId : teamIds) {
-            List<Employee> mates = employeeTeamRepository.findTeammates(teamId, leaderId);
-            for (Employee e : mates) {
-                memberIds.add(e.getEmployeeId());
-            }
+            memberIds.addAll(graph.membersOf(teamId));
         }
         List<TaskDTO> result = new ArrayList<>();
         Set<Integer> seen = new HashSet<>();
@@ -709,7 +724,7 @@ public class TaskService {
 
         Integer teamId = project.getTeam().getTeamId();
 
-        // 3. 根据调用者的职位确定需要查询的职位列表
+        // 3. 根据调用者的职位确定可分配的职位列表
         List<Byte> positions;
         if (position == 1) {
             // 部门经理: 可以分配给团队长(2) + 员工(3)
@@ -721,14 +736,16 @@ public class TaskService {
             throw new IllegalArgumentException("无权限分配任务");
         }
 
-        // 4. 直接查询符合条件的团队成员 (在数据库层面过滤)
-        List<Employee> teamMembers = employeeTeamRepository
-                .findTeamMembersByPositions(teamId, positions);
-
-        // 5. 转换为 DTO
-        return teamMembers.stream()
-                .map(this::toAssignableDTO)
-                .collect(Collectors.toList());
+        // 4. 从组织关系快照中筛选符合条件的团队成员并转换为 DTO
+        OrgGraph graph = orgGraphService.current();
+        List<AssignableEmployeeDTO> result = new ArrayList<>();
+        for (Integer memberId : graph.membersOf(teamId)) {
+            OrgGraph.EmployeeNode member = graph.employee(memberId);
+            if (member != null && positions.contains(member.position())) {
+                result.add(toAssignableDTO(member, graph));
+            }
+        }
+        return result;
     }
 
     // TODO:检查接口
@@ -748,36 +765,8 @@ public class TaskService {
         Employee assignee = employeeRepository.findById(assigneeId)
                 .orElseThrow(() -> new IllegalArgumentException("负责人不存在"));
 
-        Employee currentUser = employeeRepository.findById(userId)
-                .orElseThrow(() -> new IllegalArgumentException("用户不存在"));
-
-        // 权限检查
-        boolean canAssign = false;
-
-        if (position == 1) {
-            // 部门经理: 检查负责人是否在本部门
-            if (currentUser.getDepartment() != null &&
-                    assignee.getDepartment() != null &&
-                    currentUser.getDepartment().getOrgId().equals(assignee.getDepartment().getOrgId())) {
-                // 只能分配给团队长或员工
-                if (assignee.getPosition() == 2 || assignee.getPosition() == 3) {
-                    canAssign = true;
-                }
-            }
-        } else if (position == 2) {
-            // 团队长: 检查负责人是否在本团队
-            List<Integer> teamIds = employeeTeamRepository.findLeaderTeamIds(userId, LEADER_FLAG);
-
-            for (Integer teamId : teamIds) {
-                if (employeeTeamRepository.existsByTeamTeamIdAndEmployeeEmployeeId(teamId, assigneeId)) {
-                    // 只能分配给员工
-                    if (assignee.getPosition() == 3) {
-                        canAssign = true;
-                        break;
-                    }
-                }
-            }
-        }
+        // 权限检查: 部门经理可分配给本部门团队长和员工，团队长可分配给本团队员工
+        boolean canAssign = permissionService.canAssignTask(userId, position, assigneeId);
 
         if (!canAssign) {
             throw new IllegalArgumentException("无权限分配给该员工");
@@ -797,19 +786,19 @@ public class TaskService {
      * 转换为可分配员工DTO
      * 使用PositionEnum统一管理职位映射
      */
-    private AssignableEmployeeDTO toAssignableDTO(Employee employee) {
+    private AssignableEmployeeDTO toAssignableDTO(OrgGraph.EmployeeNode employee, OrgGraph graph) {
         AssignableEmployeeDTO dto = new AssignableEmployeeDTO();
-        dto.setEmployeeId(employee.getEmployeeId());
-        dto.setEmployeeName(employee.getEmployeeName());
-        dto.setEmail(employee.getEmail());
-        dto.setPosition(employee.getPosition());
+        dto.setEmployeeId(employee.employeeId());
+        dto.setEmployeeName(employee.employeeName());
+        dto.setEmail(employee.email());
+        dto.setPosition(employee.position());
 
         // 使用枚举设置职位名称，避免硬编码
-        dto.setPositionName(Position.getDescriptionByCode(employee.getPosition()));
+        dto.setPositionName(Position.getDescriptionByCode(employee.position()));
 
-        if (employee.getDepartment() != null) {
-            dto.setOrgId(employee.getDepartment().getOrgId());
-            dto.setOrgName(employee.getDepartment().getOrgName());
+        if (employee.orgId() != null) {
+            dto.setOrgId(employee.orgId());
+            dto.setOrgName(graph.departmentName(employee.orgId()));
         }
 
         return dto;
@@ -2,11 +2,17 @@ package com.pandora.backend.service;
 
 import com.pandora.backend.repository.TokenRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import java.time.LocalDateTime;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/**
+ * 清理 refresh_token 表中的过期记录
+ * 新签发的 Token 已存入 Redis（见 RefreshTokenStore），表中只剩切换前的历史 Token，定时分批删除
+ */
 @Service
 public class TokenCleanupService {
 
@@ -15,8 +21,20 @@ public class TokenCleanupService {
     @Autowired
     private TokenRepository tokenRepository;
 
+    @Value("${token.cleanup.batch-size:1000}")
+    private int batchSize;
+
+    @Scheduled(cron = "${token.cleanup.cron:0 30 3 * * ?}")
     public void cleanExpiredTokens() {
-        int deleted = tokenRepository.deleteByExpiresAtBefore(LocalDateTime.now());
-        log.info("🧹 TokenCleanup: 清理过期 token {} 条", deleted);
+        LocalDateTime now = LocalDateTime.now();
+        // batch-size 配成 0 或负数时按 1 处理，否则每批删除 0 条，循环永不结束
+        int limit = Math.max(1, batchSize);
+        int total = 0;
+        int deleted;
+        do {
+            deleted = tokenRepository.deleteExpiredBatch(now, limit);
+            total += deleted;
+        } while (deleted >= limit);
+        log.info("🧹 TokenCleanup: 清理过期 token {} 条", total);
     }
-}
\ No newline at end of file
+}
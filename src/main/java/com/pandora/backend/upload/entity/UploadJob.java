@@ -32,19 +32,31 @@ public class UploadJob {
     @Column(name = "content_type")
     private String contentType;
 
+    @Column(name = "extension", length = 32)
+    private String extension;
+
     @Column(name = "file_size")
     private Long fileSize;
 
+    @Column(name = "content_hash", length = 64)
+    private String contentHash;
+
     @Column(name = "local_path", nullable = false, length = 1024)
     private String localPath;
 
     @Column(name = "oss_object_key", length = 1024)
     private String ossObjectKey;
 
+    @Column(name = "multipart_upload_id")
+    private String multipartUploadId;
+
     @Enumerated(EnumType.STRING)
     @Column(name = "status", nullable = false, length = 50)
     private UploadJobStatus status;
 
+    @Column(name = "attempt_count", nullable = false)
+    private int attemptCount;
+
     @Column(name = "error_message", length = 2000)
     private String errorMessage;
 
@@ -98,6 +110,14 @@ public class UploadJob {
         this.contentType = contentType;
     }
 
+    public String getExtension() {
+        return extension;
+    }
+
+    public void setExtension(String extension) {
+        this.extension = extension;
+    }
+
     public Long getFileSize() {
         return fileSize;
     }
@@ -106,6 +126,14 @@ public class UploadJob {
         this.fileSize = fileSize;
     }
 
+    public String getContentHash() {
+        return contentHash;
+    }
+
+    public void setContentHash(String contentHash) {
+        this.contentHash = contentHash;
+    }
+
     public String getLocalPath() {
         return localPath;
     }
@@ -122,6 +150,14 @@ public class UploadJob {
         this.ossObjectKey = ossObjectKey;
     }
 
+    public String getMultipartUploadId() {
+        return multipartUploadId;
+    }
+
+    public void setMultipartUploadId(String multipartUploadId) {
+        this.multipartUploadId = multipartUploadId;
+    }
+
     public UploadJobStatus getStatus() {
         return status;
     }
@@ -130,6 +166,14 @@ public class UploadJob {
         this.status = status;
     }
 
+    public int getAttemptCount() {
+        return attemptCount;
+    }
+
+    public void setAttemptCount(int attemptCount) {
+        this.attemptCount = attemptCount;
+    }
+
     public String getErrorMessage() {
         return errorMessage;
     }
@@ -0,0 +1,89 @@
+package com.pandora.backend.upload.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.Table;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "upload_job_part")
+public class UploadJobPart {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "upload_job_part_id")
+    private Long id;
+
+    @Column(name = "upload_job_id", nullable = false)
+    private Long uploadJobId;
+
+    @Column(name = "part_number", nullable = false)
+    private Integer partNumber;
+
+    @Column(name = "etag", nullable = false)
+    private String etag;
+
+    @Column(name = "part_size", nullable = false)
+    private Long partSize;
+
+    @Column(name = "created_time", updatable = false, nullable = false)
+    private LocalDateTime createdTime;
+
+    @PrePersist
+    protected void onCreate() {
+        this.createdTime = LocalDateTime.now();
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getUploadJobId() {
+        return uploadJobId;
+    }
+
+    public void setUploadJobId(Long uploadJobId) {
+        this.uploadJobId = uploadJobId;
+    }
+
+    public Integer getPartNumber() {
+        return partNumber;
+    }
+
+    public void setPartNumber(Integer partNumber) {
+        this.partNumber = partNumber;
+    }
+
+    public String getEtag() {
+        return etag;
+    }
+
+    public void setEtag(String etag) {
+        this.etag = etag;
+    }
+
+    public Long getPartSize() {
+        return partSize;
+    }
+
+    public void setPartSize(Long partSize) {
+        this.partSize = partSize;
+    }
+
+    public LocalDateTime getCreatedTime() {
+        return createdTime;
+    }
+
+    public void setCreatedTime(LocalDateTime createdTime) {
+        this.createdTime = createdTime;
+    }
+}
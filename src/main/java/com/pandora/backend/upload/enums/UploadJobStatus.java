@@ -1,6 +1,7 @@
 package com.pandora.backend.upload.enums;
 
 public enum UploadJobStatus {
+    RECEIVING,
     LOCAL_SAVED,
     VALIDATION_FAILED,
     UPLOAD_PENDING,
@@ -0,0 +1,22 @@
+package com.pandora.backend.upload.repository;
+
+import com.pandora.backend.upload.entity.UploadJobPart;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+@Repository
+public interface UploadJobPartRepository extends JpaRepository<UploadJobPart, Long> {
+
+    List<UploadJobPart> findByUploadJobIdOrderByPartNumberAsc(Long uploadJobId);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM UploadJobPart p WHERE p.uploadJobId = :uploadJobId")
+    int deleteByUploadJobId(@Param("uploadJobId") Long uploadJobId);
+}
@@ -1,9 +1,29 @@
 package com.pandora.backend.upload.repository;
 
 import com.pandora.backend.upload.entity.UploadJob;
+import com.pandora.backend.upload.enums.UploadJobStatus;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 
 @Repository
 public interface UploadJobRepository extends JpaRepository<UploadJob, Long> {
+
+    List<UploadJob> findByStatusInAndUpdatedTimeBefore(Collection<UploadJobStatus> statuses, LocalDateTime before);
+
+    List<UploadJob> findByStatusAndMultipartUploadIdIsNotNullAndUpdatedTimeBefore(
+            UploadJobStatus status,
+            LocalDateTime before);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE UploadJob j SET j.updatedTime = :now WHERE j.id = :id")
+    int touch(@Param("id") Long id, @Param("now") LocalDateTime now);
 }
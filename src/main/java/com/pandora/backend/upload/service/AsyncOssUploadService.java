@@ -1,35 +1,46 @@
 package com.pandora.backend.upload.service;
 
 import com.aliyun.oss.OSS;
+import com.aliyun.oss.model.AbortMultipartUploadRequest;
 import com.aliyun.oss.model.CompleteMultipartUploadRequest;
 import com.aliyun.oss.model.CompleteMultipartUploadResult;
 import com.aliyun.oss.model.InitiateMultipartUploadRequest;
 import com.aliyun.oss.model.InitiateMultipartUploadResult;
 import com.aliyun.oss.model.PartETag;
-import com.aliyun.oss.model.UploadPartRequest;
-import com.aliyun.oss.model.UploadPartResult;
+import com.pandora.backend.service.AttachmentContentService;
+import com.pandora.backend.service.AttachmentThumbnailService;
 import com.pandora.backend.upload.constants.UploadConstants;
 import com.pandora.backend.upload.entity.UploadJob;
+import com.pandora.backend.upload.entity.UploadJobPart;
 import com.pandora.backend.upload.enums.UploadJobStatus;
+import com.pandora.backend.upload.repository.UploadJobPartRepository;
 import com.pandora.backend.upload.repository.UploadJobRepository;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 
-import java.io.File;
 import java.io.FileInputStream;
 import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.ArrayList;
+import java.time.LocalDateTime;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
+@Slf4j
 @Service
 public class AsyncOssUploadService {
 
     private final UploadJobRepository uploadJobRepository;
     private final OSS ossClient;
+    private final ParallelPartUploader parallelPartUploader;
+    private final UploadJobPartRepository uploadJobPartRepository;
+    private final AttachmentContentService attachmentContentService;
+    private final AttachmentThumbnailService attachmentThumbnailService;
 
     @Value("${aliyun.oss.bucketName}")
     private String bucketName;
@@ -37,9 +48,19 @@ public class AsyncOssUploadService {
     @Value("${aliyun.oss.dir-prefix:attachments/}")
     private String dirPrefix;
 
-    public AsyncOssUploadService(final UploadJobRepository uploadJobRepository, final OSS ossClient) {
+    public AsyncOssUploadService(
+            final UploadJobRepository uploadJobRepository,
+            final OSS ossClient,
+            final ParallelPartUploader parallelPartUploader,
+            final UploadJobPartRepository uploadJobPartRepository,
+            final AttachmentContentService attachmentContentService,
+            final AttachmentThumbnailService attachmentThumbnailService) {
         this.uploadJobRepository = uploadJobRepository;
         this.ossClient = ossClient;
+        this.parallelPartUploader = parallelPartUploader;
+        this.uploadJobPartRepository = uploadJobPartRepository;
+        this.attachmentContentService = attachmentContentService;
+        this.attachmentThumbnailService = attachmentThumbnailService;
     }
 
     @Async("uploadExecutor")
@@ -48,12 +69,45 @@ public class AsyncOssUploadService {
         if (job == null) {
             return;
         }
+        if (job.getExtension() == null) {
+            job.setExtension(extension);
+        }
+        runUpload(job);
+    }
+
+    @Async("uploadExecutor")
+    public void resumeAsync(final Long uploadJobId) {
+        UploadJob job = uploadJobRepository.findById(uploadJobId).orElse(null);
+        if (job == null || job.getStatus() == UploadJobStatus.UPLOADED) {
+            return;
+        }
+        runUpload(job);
+    }
 
+    private void runUpload(final UploadJob job) {
         try {
+            // 内容已存在于 OSS 时直接引用已有对象，跳过上传；续传中的分片上传不再做去重判断
+            if (job.getMultipartUploadId() == null) {
+                Optional<String> existing = attachmentContentService.acquire(job.getContentHash());
+                if (existing.isPresent()) {
+                    markUploaded(job, existing.get());
+                    deleteLocalFile(job);
+                    return;
+                }
+            }
+
+            // 对象 key 首次生成后随任务持久化，恢复时沿用同一 key 续传
+            if (job.getOssObjectKey() == null) {
+                job.setOssObjectKey(UploadKeyGenerator.buildObjectKey(dirPrefix, job.getUserId(), job.getExtension()));
+            }
             markUploading(job);
-            String objectKey = UploadKeyGenerator.buildObjectKey(dirPrefix, job.getUserId(), extension);
-            uploadBySize(job, objectKey);
+            uploadBySize(job, job.getOssObjectKey());
+            String objectKey = job.getOssObjectKey();
+            if (job.getContentHash() != null) {
+                objectKey = attachmentContentService.register(job.getContentHash(), objectKey, job.getFileSize());
+            }
             markUploaded(job, objectKey);
+            generateThumbnail(objectKey, job);
             deleteLocalFile(job);
         } catch (Exception e) {
             markUploadFailed(job, e);
@@ -75,25 +129,57 @@ public class AsyncOssUploadService {
         }
     }
 
-    private void uploadMultipart(final UploadJob job, final String objectKey) {
-        File localFile = new File(job.getLocalPath());
-        long fileLength = localFile.length();
+    private void uploadMultipart(final UploadJob job, final String objectKey) throws Exception {
+        Path localPath = Paths.get(job.getLocalPath());
+        long fileLength = Files.size(localPath);
         long partSize = UploadConstants.MULTIPART_PART_SIZE_BYTES;
         long partCountLong = (fileLength + partSize - 1) / partSize;
         if (partCountLong > UploadConstants.MULTIPART_MAX_PARTS) {
             throw new IllegalArgumentException("Too many parts: " + partCountLong);
         }
 
-        String uploadId = initiateMultipart(objectKey);
-        List<PartETag> partETags = new ArrayList<>();
-
-        for (int i = 0; i < (int) partCountLong; i++) {
-            long offset = i * partSize;
-            long size = Math.min(partSize, fileLength - offset);
-            partETags.add(uploadPart(objectKey, uploadId, localFile, offset, size, i + 1));
+        Map<Integer, PartETag> completedParts = new HashMap<>();
+        String uploadId = job.getMultipartUploadId();
+        if (uploadId == null) {
+            uploadId = initiateMultipart(objectKey);
+            job.setMultipartUploadId(uploadId);
+            uploadJobRepository.save(job);
+        } else {
+            for (UploadJobPart part : uploadJobPartRepository.findByUploadJobIdOrderByPartNumberAsc(job.getId())) {
+                completedParts.put(part.getPartNumber(),
+                        new PartETag(part.getPartNumber(), part.getEtag(), part.getPartSize(), null));
+            }
         }
 
+        final Long jobId = job.getId();
+        List<PartETag> partETags = parallelPartUploader.uploadParts(objectKey, uploadId, localPath, partSize,
+                completedParts, etag -> checkpointPart(jobId, etag));
         completeMultipart(objectKey, uploadId, partETags);
+
+        job.setMultipartUploadId(null);
+        uploadJobPartRepository.deleteByUploadJobId(jobId);
+    }
+
+    /**
+     * 趁本地文件还在生成缩略图，失败不影响上传结果，查看时会按需补生成
+     */
+    private void generateThumbnail(final String objectKey, final UploadJob job) {
+        try {
+            attachmentThumbnailService.generateFromFile(objectKey, Paths.get(job.getLocalPath()));
+        } catch (Exception e) {
+            log.warn("[upload] thumbnail generation failed uploadJobId={}", job.getId(), e);
+        }
+    }
+
+    private void checkpointPart(final Long uploadJobId, final PartETag etag) {
+        UploadJobPart part = new UploadJobPart();
+        part.setUploadJobId(uploadJobId);
+        part.setPartNumber(etag.getPartNumber());
+        part.setEtag(etag.getETag());
+        part.setPartSize(etag.getPartSize());
+        uploadJobPartRepository.save(part);
+        // 同时刷新任务更新时间，恢复扫描据此区分仍在上传的任务
+        uploadJobRepository.touch(uploadJobId, LocalDateTime.now());
     }
 
     private String initiateMultipart(final String objectKey) {
@@ -102,29 +188,18 @@ public class AsyncOssUploadService {
         return result.getUploadId();
     }
 
-    private PartETag uploadPart(
-            final String objectKey,
-            final String uploadId,
-            final File localFile,
-            final long offset,
-            final long size,
-            final int partNumber) {
-        try (FileInputStream fis = new FileInputStream(localFile)) {
-            fis.getChannel().position(offset);
-
-            UploadPartRequest request = new UploadPartRequest();
-            request.setBucketName(bucketName);
-            request.setKey(objectKey);
-            request.setUploadId(uploadId);
-            request.setInputStream(fis);
-            request.setPartSize(size);
-            request.setPartNumber(partNumber);
-
-            UploadPartResult uploadPartResult = ossClient.uploadPart(request);
-            return uploadPartResult.getPartETag();
-        } catch (Exception e) {
-            throw new RuntimeException("Upload part failed", e);
+    public void abortMultipart(final UploadJob job) {
+        if (job.getMultipartUploadId() == null) {
+            return;
+        }
+        try {
+            ossClient.abortMultipartUpload(new AbortMultipartUploadRequest(bucketName, job.getOssObjectKey(),
+                    job.getMultipartUploadId()));
+        } catch (Exception ignore) {
+            // 未清理的分片由 OSS 生命周期规则兜底
         }
+        job.setMultipartUploadId(null);
+        uploadJobPartRepository.deleteByUploadJobId(job.getId());
     }
 
     private void completeMultipart(
@@ -144,6 +219,7 @@ public class AsyncOssUploadService {
 
     private void markUploading(final UploadJob job) {
         job.setStatus(UploadJobStatus.UPLOADING);
+        job.setAttemptCount(job.getAttemptCount() + 1);
         job.setErrorMessage(null);
         uploadJobRepository.save(job);
     }
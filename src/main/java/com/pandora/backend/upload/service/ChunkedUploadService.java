@@ -0,0 +1,150 @@
+package com.pandora.backend.upload.service;
+
+import com.pandora.backend.upload.entity.UploadJob;
+import com.pandora.backend.upload.enums.UploadJobStatus;
+import com.pandora.backend.upload.repository.UploadJobRepository;
+import com.pandora.backend.util.RedisUtil;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.NoSuchElementException;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 断点续传的分块上传（tus 风格）：先创建任务，再按偏移量逐块追加到本地暂存文件，
+ * 收齐后交给 AsyncOssUploadService 上传 OSS
+ */
+@Service
+public class ChunkedUploadService {
+
+    private static final int HEADER_BYTES_LENGTH = 16;
+    private static final String CHUNK_LOCK_PREFIX = "upload:chunk:lock:";
+    private static final long CHUNK_LOCK_TIMEOUT_MINUTES = 10;
+
+    private final UploadValidationService uploadValidationService;
+    private final LocalTempFileService localTempFileService;
+    private final UploadJobRepository uploadJobRepository;
+    private final AsyncOssUploadService asyncOssUploadService;
+    private final RedisUtil redisUtil;
+
+    @Value("${upload.chunked.max-length:2147483648}")
+    private long maxUploadLength;
+
+    public ChunkedUploadService(
+            final UploadValidationService uploadValidationService,
+            final LocalTempFileService localTempFileService,
+            final UploadJobRepository uploadJobRepository,
+            final AsyncOssUploadService asyncOssUploadService,
+            final RedisUtil redisUtil) {
+        this.uploadValidationService = uploadValidationService;
+        this.localTempFileService = localTempFileService;
+        this.uploadJobRepository = uploadJobRepository;
+        this.asyncOssUploadService = asyncOssUploadService;
+        this.redisUtil = redisUtil;
+    }
+
+    public UploadJob create(
+            final Integer userId,
+            final String originalFilename,
+            final String contentType,
+            final long uploadLength) throws IOException {
+        if (uploadLength <= 0 || uploadLength > maxUploadLength) {
+            throw new IllegalArgumentException("Invalid upload length: " + uploadLength);
+        }
+        String extension = StringUtils.getFilenameExtension(originalFilename);
+        if (extension == null) {
+            throw new IllegalArgumentException("Missing file extension");
+        }
+
+        UploadJob job = new UploadJob();
+        job.setUserId(userId);
+        job.setOriginalFilename(originalFilename);
+        job.setContentType(contentType);
+        job.setExtension(extension.toLowerCase());
+        job.setFileSize(uploadLength);
+        job.setLocalPath(localTempFileService.createEmptyTempFile(userId, job.getExtension()).toString());
+        job.setStatus(UploadJobStatus.RECEIVING);
+        return uploadJobRepository.save(job);
+    }
+
+    public UploadJob getOwnedJob(final Integer userId, final Long uploadJobId) {
+        UploadJob job = uploadJobRepository.findById(uploadJobId).orElse(null);
+        if (job == null || !job.getUserId().equals(userId)) {
+            throw new NoSuchElementException("Upload not found: " + uploadJobId);
+        }
+        return job;
+    }
+
+    public long currentOffset(final UploadJob job) throws IOException {
+        if (job.getStatus() != UploadJobStatus.RECEIVING) {
+            return job.getFileSize();
+        }
+        Path localPath = Paths.get(job.getLocalPath());
+        return Files.exists(localPath) ? Files.size(localPath) : 0;
+    }
+
+    /**
+     * 在 offset 处追加一块数据；offset 必须等于已接收字节数，否则抛出 IllegalStateException
+     */
+    public UploadJob appendChunk(
+            final Integer userId,
+            final Long uploadJobId,
+            final long offset,
+            final InputStream body) throws IOException {
+        String lockKey = CHUNK_LOCK_PREFIX + uploadJobId;
+        String lockValue = UUID.randomUUID().toString();
+        if (!Boolean.TRUE.equals(redisUtil.tryLock(lockKey, lockValue, CHUNK_LOCK_TIMEOUT_MINUTES, TimeUnit.MINUTES))) {
+            throw new IllegalStateException("Another chunk is being written for upload " + uploadJobId);
+        }
+
+        try {
+            UploadJob job = getOwnedJob(userId, uploadJobId);
+            if (job.getStatus() != UploadJobStatus.RECEIVING) {
+                throw new IllegalStateException("Upload is not receiving chunks: " + job.getStatus());
+            }
+
+            Path localPath = Paths.get(job.getLocalPath());
+            long newOffset = localTempFileService.appendChunk(localPath, offset, body, job.getFileSize() - offset);
+            uploadJobRepository.touch(job.getId(), LocalDateTime.now());
+
+            // 首次收齐文件头时立即校验，避免非法文件继续占用带宽和磁盘；收齐全文件时再校验一次，覆盖中断重传的情况
+            long headerLength = Math.min(HEADER_BYTES_LENGTH, job.getFileSize());
+            boolean complete = newOffset == job.getFileSize();
+            if ((offset < headerLength && newOffset >= headerLength) || complete) {
+                validateHeader(job, localPath);
+            }
+
+            if (complete) {
+                job.setStatus(UploadJobStatus.UPLOAD_PENDING);
+                uploadJobRepository.save(job);
+                asyncOssUploadService.uploadAsync(job.getId(), job.getExtension());
+            }
+            return job;
+        } finally {
+            redisUtil.releaseLock(lockKey, lockValue);
+        }
+    }
+
+    private void validateHeader(final UploadJob job, final Path localPath) throws IOException {
+        try {
+            uploadValidationService.validateAndGetExtension(
+                    job.getOriginalFilename(),
+                    job.getContentType(),
+                    localTempFileService.readHeader(localPath, HEADER_BYTES_LENGTH));
+        } catch (IllegalArgumentException e) {
+            job.setStatus(UploadJobStatus.VALIDATION_FAILED);
+            job.setErrorMessage(e.getMessage());
+            uploadJobRepository.save(job);
+            Files.deleteIfExists(localPath);
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.pandora.backend.upload.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * 基于共享 FileChannel 的区间只读流，使用定位读取，不修改通道位置，可被多个分片并发使用
+ */
+final class FileChannelRangeInputStream extends InputStream {
+
+    private final FileChannel channel;
+    private final long end;
+    private long position;
+    private long mark;
+
+    FileChannelRangeInputStream(final FileChannel channel, final long offset, final long length) {
+        this.channel = channel;
+        this.position = offset;
+        this.mark = offset;
+        this.end = offset + length;
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] single = new byte[1];
+        int n = read(single, 0, 1);
+        return n == -1 ? -1 : single[0] & 0xFF;
+    }
+
+    @Override
+    public int read(final byte[] buffer, final int off, final int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        long remaining = end - position;
+        if (remaining <= 0) {
+            return -1;
+        }
+        int toRead = (int) Math.min(len, remaining);
+        int n = channel.read(ByteBuffer.wrap(buffer, off, toRead), position);
+        if (n <= 0) {
+            return -1;
+        }
+        position += n;
+        return n;
+    }
+
+    @Override
+    public long skip(final long n) {
+        long skipped = Math.max(0, Math.min(n, end - position));
+        position += skipped;
+        return skipped;
+    }
+
+    @Override
+    public int available() {
+        return (int) Math.min(Integer.MAX_VALUE, end - position);
+    }
+
+    @Override
+    public boolean markSupported() {
+        return true;
+    }
+
+    @Override
+    public synchronized void mark(final int readLimit) {
+        mark = position;
+    }
+
+    @Override
+    public synchronized void reset() {
+        position = mark;
+    }
+
+    @Override
+    public void close() {
+        // 通道由调用方统一关闭
+    }
+}
@@ -3,14 +3,21 @@ package com.pandora.backend.upload.service;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
 import java.util.UUID;
 
 @Service
@@ -19,7 +26,11 @@ public class LocalTempFileService {
     @Value("${file.upload-dir:uploads}")
     private String uploadDir;
 
-    public Path saveToTempFile(
+    /**
+     * 将流写入暂存文件；headerBytes 是调用方已从同一个流中读出的文件头，先写入再接着写流的剩余部分，
+     * 整个文件只读一遍
+     */
+    public StagedTempFile saveToTempFile(
             final Integer userId,
             final InputStream inputStream,
             final String extension,
@@ -32,15 +43,85 @@ public class LocalTempFileService {
                 + "." + extension;
         Path filePath = dir.resolve(fileName);
 
-        try (BufferedInputStream bis = new BufferedInputStream(inputStream);
-                OutputStream os = new BufferedOutputStream(Files.newOutputStream(filePath))) {
+        // 写盘的同时计算 SHA-256，供内容去重使用，不额外读一遍文件
+        MessageDigest digest = newSha256();
+        long size;
+        try (DigestOutputStream os = new DigestOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(filePath)), digest)) {
             os.write(headerBytes);
-            bis.skip(headerBytes.length);
-            bis.transferTo(os);
+            size = headerBytes.length + inputStream.transferTo(os);
             os.flush();
         }
 
-        return filePath;
+        return new StagedTempFile(filePath, HexFormat.of().formatHex(digest.digest()), size);
+    }
+
+    public StagedTempFile saveToTempFile(
+            final Integer userId,
+            final InputStream inputStream,
+            final String extension) throws IOException {
+        return saveToTempFile(userId, inputStream, extension, new byte[0]);
+    }
+
+    public Path createEmptyTempFile(final Integer userId, final String extension) throws IOException {
+        Path dir = resolveUserTempDir(userId);
+        Files.createDirectories(dir);
+
+        String fileName = userId + "-" + System.currentTimeMillis() + "-"
+                + UUID.randomUUID().toString().replace("-", "")
+                + "." + extension;
+        return Files.createFile(dir.resolve(fileName));
+    }
+
+    /**
+     * 从 offset 处把输入流直接写入文件通道，最多写入 maxBytes 字节，返回写入后的文件大小
+     */
+    public long appendChunk(
+            final Path filePath,
+            final long offset,
+            final InputStream inputStream,
+            final long maxBytes) throws IOException {
+        try (FileChannel channel = FileChannel.open(filePath, StandardOpenOption.WRITE);
+                ReadableByteChannel source = Channels.newChannel(inputStream)) {
+            if (channel.size() != offset) {
+                throw new IllegalStateException("Offset mismatch: expected " + channel.size() + ", got " + offset);
+            }
+
+            long position = offset;
+            long remaining = maxBytes;
+            while (remaining > 0) {
+                long transferred = channel.transferFrom(source, position, remaining);
+                if (transferred <= 0) {
+                    break;
+                }
+                position += transferred;
+                remaining -= transferred;
+            }
+            if (remaining == 0 && inputStream.read() != -1) {
+                channel.truncate(offset);
+                throw new IllegalArgumentException("Chunk exceeds declared upload length");
+            }
+            channel.force(false);
+            return position;
+        }
+    }
+
+    public byte[] readHeader(final Path filePath, final int length) throws IOException {
+        try (FileChannel channel = FileChannel.open(filePath, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(length, channel.size()));
+            while (buffer.hasRemaining() && channel.read(buffer, buffer.position()) > 0) {
+                // 读满为止
+            }
+            return buffer.array();
+        }
+    }
+
+    private MessageDigest newSha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
     }
 
     private Path resolveUserTempDir(final Integer userId) {
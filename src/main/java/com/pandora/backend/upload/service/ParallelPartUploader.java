@@ -0,0 +1,185 @@
+package com.pandora.backend.upload.service;
+
+import com.aliyun.oss.OSS;
+import com.aliyun.oss.model.PartETag;
+import com.aliyun.oss.model.UploadPartRequest;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * 分片并行上传：所有分片共享一个 FileChannel 定位读取，最多 parallelism 个分片同时在途，单个分片失败按退避重试
+ */
+@Slf4j
+@Service
+public class ParallelPartUploader {
+
+    private final OSS ossClient;
+    private final Executor uploadPartExecutor;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${aliyun.oss.bucketName}")
+    private String bucketName;
+
+    @Value("${upload.multipart.parallelism:4}")
+    private int parallelism;
+
+    @Value("${upload.multipart.part-max-attempts:3}")
+    private int partMaxAttempts;
+
+    @Value("${upload.multipart.retry-backoff-ms:500}")
+    private long retryBackoffMs;
+
+    public ParallelPartUploader(
+            final OSS ossClient,
+            @Qualifier("uploadPartExecutor") final Executor uploadPartExecutor,
+            final MeterRegistry meterRegistry) {
+        this.ossClient = ossClient;
+        this.uploadPartExecutor = uploadPartExecutor;
+        this.meterRegistry = meterRegistry;
+    }
+
+    public List<PartETag> uploadParts(
+            final String objectKey,
+            final String uploadId,
+            final Path localPath,
+            final long partSize) throws Exception {
+        return uploadParts(objectKey, uploadId, localPath, partSize, Map.of(), etag -> {
+        });
+    }
+
+    /**
+     * 跳过 completedParts 中已完成的分片；每个分片上传成功后在分片线程中回调 onPartUploaded，用于持久化断点
+     */
+    public List<PartETag> uploadParts(
+            final String objectKey,
+            final String uploadId,
+            final Path localPath,
+            final long partSize,
+            final Map<Integer, PartETag> completedParts,
+            final Consumer<PartETag> onPartUploaded) throws Exception {
+        final long startNanos = System.nanoTime();
+        final List<PartETag> partETags = new ArrayList<>(completedParts.values());
+
+        try (FileChannel channel = FileChannel.open(localPath, StandardOpenOption.READ)) {
+            final long fileLength = channel.size();
+            final int partCount = (int) ((fileLength + partSize - 1) / partSize);
+            final Semaphore inFlight = new Semaphore(Math.max(1, parallelism));
+            final AtomicBoolean failed = new AtomicBoolean(false);
+            final List<CompletableFuture<PartETag>> futures = new ArrayList<>(partCount);
+
+            for (int i = 0; i < partCount && !failed.get(); i++) {
+                final long offset = i * partSize;
+                final long size = Math.min(partSize, fileLength - offset);
+                final int partNumber = i + 1;
+                if (completedParts.containsKey(partNumber)) {
+                    continue;
+                }
+
+                inFlight.acquire();
+                final CompletableFuture<PartETag> future = CompletableFuture
+                        .supplyAsync(() -> uploadPartWithRetry(objectKey, uploadId, channel, offset, size,
+                                partNumber), uploadPartExecutor)
+                        .whenComplete((etag, ex) -> {
+                            inFlight.release();
+                            if (ex != null) {
+                                failed.set(true);
+                                return;
+                            }
+                            try {
+                                onPartUploaded.accept(etag);
+                            } catch (Exception e) {
+                                // 断点写入失败只影响恢复时重传该分片，不中断本次上传
+                                log.warn("[upload] checkpoint part failed objectKey={} part={}", objectKey,
+                                        partNumber, e);
+                            }
+                        });
+                futures.add(future);
+            }
+
+            try {
+                CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+            }
+            for (CompletableFuture<PartETag> future : futures) {
+                partETags.add(future.join());
+            }
+
+            long uploadedBytes = fileLength;
+            for (PartETag completed : completedParts.values()) {
+                uploadedBytes -= completed.getPartSize();
+            }
+            recordThroughput(uploadedBytes, System.nanoTime() - startNanos, partCount - completedParts.size());
+        }
+
+        partETags.sort(Comparator.comparingInt(PartETag::getPartNumber));
+        return partETags;
+    }
+
+    private PartETag uploadPartWithRetry(
+            final String objectKey,
+            final String uploadId,
+            final FileChannel channel,
+            final long offset,
+            final long size,
+            final int partNumber) {
+        final int maxAttempts = Math.max(1, partMaxAttempts);
+        for (int attempt = 1; ; attempt++) {
+            try {
+                UploadPartRequest request = new UploadPartRequest();
+                request.setBucketName(bucketName);
+                request.setKey(objectKey);
+                request.setUploadId(uploadId);
+                request.setInputStream(new FileChannelRangeInputStream(channel, offset, size));
+                request.setPartSize(size);
+                request.setPartNumber(partNumber);
+                return ossClient.uploadPart(request).getPartETag();
+            } catch (Exception e) {
+                if (attempt >= maxAttempts) {
+                    throw new RuntimeException("Upload part " + partNumber + " failed after " + attempt
+                            + " attempts", e);
+                }
+                meterRegistry.counter("upload.multipart.part.retries").increment();
+                log.warn("[upload] part retry objectKey={} part={} attempt={}", objectKey, partNumber, attempt, e);
+                sleepBackoff(attempt);
+            }
+        }
+    }
+
+    private void sleepBackoff(final int attempt) {
+        try {
+            Thread.sleep(retryBackoffMs * (1L << (attempt - 1)));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting to retry part upload", e);
+        }
+    }
+
+    private void recordThroughput(final long bytes, final long elapsedNanos, final int partCount) {
+        meterRegistry.timer("upload.multipart.duration").record(elapsedNanos, TimeUnit.NANOSECONDS);
+        meterRegistry.counter("upload.multipart.bytes").increment(bytes);
+        final double seconds = Math.max(elapsedNanos, 1L) / 1_000_000_000d;
+        final double mbPerSecond = bytes / 1024d / 1024d / seconds;
+        meterRegistry.summary("upload.multipart.throughput.mbps").record(mbPerSecond);
+        log.info("[upload] multipart done bytes={} parts={} elapsedMs={} throughputMBps={}", bytes, partCount,
+                elapsedNanos / 1_000_000, String.format("%.2f", mbPerSecond));
+    }
+}
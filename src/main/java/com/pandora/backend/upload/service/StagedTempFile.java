@@ -0,0 +1,9 @@
+package com.pandora.backend.upload.service;
+
+import java.nio.file.Path;
+
+/**
+ * 已落盘的暂存文件及写入时顺带计算的 SHA-256
+ */
+public record StagedTempFile(Path path, String sha256, long size) {
+}
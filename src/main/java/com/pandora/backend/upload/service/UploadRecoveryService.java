@@ -0,0 +1,146 @@
+package com.pandora.backend.upload.service;
+
+import com.pandora.backend.upload.entity.UploadJob;
+import com.pandora.backend.upload.enums.UploadJobStatus;
+import com.pandora.backend.upload.repository.UploadJobRepository;
+import com.pandora.backend.util.RedisUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 上传任务恢复：启动时及定期扫描长时间无进展的任务，
+ * 本地文件仍在且未超过重试次数的从断点续传，否则中止 OSS 分片上传并标记失败
+ */
+@Slf4j
+@Service
+public class UploadRecoveryService {
+
+    private static final String LOCK_KEY = "upload:recovery:lock";
+    private static final long LOCK_TIMEOUT_MINUTES = 10;
+
+    private final UploadJobRepository uploadJobRepository;
+    private final AsyncOssUploadService asyncOssUploadService;
+    private final RedisUtil redisUtil;
+
+    @Value("${upload.recovery.enabled:true}")
+    private boolean enabled;
+
+    @Value("${upload.recovery.stale-minutes:10}")
+    private long staleMinutes;
+
+    @Value("${upload.recovery.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${upload.chunked.expire-hours:24}")
+    private long chunkedExpireHours;
+
+    public UploadRecoveryService(
+            final UploadJobRepository uploadJobRepository,
+            final AsyncOssUploadService asyncOssUploadService,
+            final RedisUtil redisUtil) {
+        this.uploadJobRepository = uploadJobRepository;
+        this.asyncOssUploadService = asyncOssUploadService;
+        this.redisUtil = redisUtil;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void recoverOnStartup() {
+        if (enabled) {
+            recover();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${upload.recovery.interval-ms:300000}",
+            initialDelayString = "${upload.recovery.interval-ms:300000}")
+    public void scheduledRecover() {
+        if (enabled) {
+            recover();
+        }
+    }
+
+    public void recover() {
+        final String lockValue = UUID.randomUUID().toString();
+        if (!Boolean.TRUE.equals(redisUtil.tryLock(LOCK_KEY, lockValue, LOCK_TIMEOUT_MINUTES, TimeUnit.MINUTES))) {
+            return;
+        }
+
+        try {
+            final LocalDateTime staleBefore = LocalDateTime.now().minusMinutes(staleMinutes);
+            final List<UploadJob> candidates = new ArrayList<>(uploadJobRepository.findByStatusInAndUpdatedTimeBefore(
+                    List.of(UploadJobStatus.UPLOAD_PENDING, UploadJobStatus.UPLOADING), staleBefore));
+            candidates.addAll(uploadJobRepository.findByStatusAndMultipartUploadIdIsNotNullAndUpdatedTimeBefore(
+                    UploadJobStatus.UPLOAD_FAILED, staleBefore));
+
+            expireAbandonedChunkedUploads();
+
+            int resumed = 0;
+            int abandoned = 0;
+            for (UploadJob job : candidates) {
+                try {
+                    if (recoverJob(job)) {
+                        resumed++;
+                    } else {
+                        abandoned++;
+                    }
+                } catch (Exception e) {
+                    log.warn("[upload-recovery] recover job failed uploadJobId={}", job.getId(), e);
+                }
+            }
+            if (!candidates.isEmpty()) {
+                log.info("[upload-recovery] sweep done candidates={} resumed={} abandoned={}", candidates.size(),
+                        resumed, abandoned);
+            }
+        } finally {
+            redisUtil.releaseLock(LOCK_KEY, lockValue);
+        }
+    }
+
+    /**
+     * 分块上传长时间没有新数据时视为客户端放弃，清理本地暂存文件
+     */
+    private void expireAbandonedChunkedUploads() {
+        final LocalDateTime expireBefore = LocalDateTime.now().minusHours(chunkedExpireHours);
+        for (UploadJob job : uploadJobRepository.findByStatusInAndUpdatedTimeBefore(
+                List.of(UploadJobStatus.RECEIVING), expireBefore)) {
+            try {
+                Files.deleteIfExists(Paths.get(job.getLocalPath()));
+                job.setStatus(UploadJobStatus.UPLOAD_FAILED);
+                job.setErrorMessage("Chunked upload expired before completion");
+                uploadJobRepository.save(job);
+            } catch (Exception e) {
+                log.warn("[upload-recovery] expire chunked upload failed uploadJobId={}", job.getId(), e);
+            }
+        }
+    }
+
+    private boolean recoverJob(final UploadJob job) {
+        final boolean localFileExists = job.getLocalPath() != null && Files.exists(Paths.get(job.getLocalPath()));
+        if (!localFileExists || job.getAttemptCount() >= maxAttempts) {
+            asyncOssUploadService.abortMultipart(job);
+            job.setStatus(UploadJobStatus.UPLOAD_FAILED);
+            job.setErrorMessage(localFileExists
+                    ? "Upload abandoned after " + job.getAttemptCount() + " attempts"
+                    : "Local file missing, upload cannot be resumed");
+            uploadJobRepository.save(job);
+            return false;
+        }
+
+        // 先改回待上传并刷新更新时间，避免下一轮扫描在任务开始前重复提交
+        job.setStatus(UploadJobStatus.UPLOAD_PENDING);
+        uploadJobRepository.save(job);
+        asyncOssUploadService.resumeAsync(job.getId());
+        return true;
+    }
+}
@@ -6,10 +6,7 @@ import com.pandora.backend.upload.repository.UploadJobRepository;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.io.IOException;
 import java.io.InputStream;
-import java.nio.file.Files;
-import java.nio.file.Path;
 
 @Service
 public class UploadStagingService {
@@ -32,18 +29,24 @@ public class UploadStagingService {
         this.asyncOssUploadService = asyncOssUploadService;
     }
 
+    /**
+     * 只打开一次上传流：先从流中读出文件头校验类型，再把文件头和剩余内容一起写入暂存文件
+     */
     public UploadJob stageAndSubmit(
             final Integer userId,
             final MultipartFile file) {
         try {
-            byte[] headerBytes = readHeaderBytes(file);
-            String extension = uploadValidationService.validateAndGetExtension(
-                    file.getOriginalFilename(),
-                    file.getContentType(),
-                    headerBytes);
-
-            Path localPath = saveToLocal(userId, file, extension, headerBytes);
-            UploadJob job = createJob(userId, file, localPath);
+            StagedTempFile staged;
+            String extension;
+            try (InputStream is = file.getInputStream()) {
+                byte[] headerBytes = is.readNBytes(HEADER_BYTES_LENGTH);
+                extension = uploadValidationService.validateAndGetExtension(
+                        file.getOriginalFilename(),
+                        file.getContentType(),
+                        headerBytes);
+                staged = localTempFileService.saveToTempFile(userId, is, extension, headerBytes);
+            }
+            UploadJob job = createJob(userId, file, staged);
 
             asyncOssUploadService.uploadAsync(job.getId(), extension);
             return job;
@@ -52,42 +55,17 @@ public class UploadStagingService {
         }
     }
 
-    private byte[] readHeaderBytes(final MultipartFile file) throws IOException {
-        try (InputStream is = file.getInputStream()) {
-            byte[] buffer = new byte[HEADER_BYTES_LENGTH];
-            int read = is.read(buffer);
-            if (read <= 0) {
-                return new byte[0];
-            }
-            if (read == HEADER_BYTES_LENGTH) {
-                return buffer;
-            }
-            byte[] actual = new byte[read];
-            System.arraycopy(buffer, 0, actual, 0, read);
-            return actual;
-        }
-    }
-
-    private Path saveToLocal(
-            final Integer userId,
-            final MultipartFile file,
-            final String extension,
-            final byte[] headerBytes) throws IOException {
-        try (InputStream is = file.getInputStream()) {
-            return localTempFileService.saveToTempFile(userId, is, extension, headerBytes);
-        }
-    }
-
     private UploadJob createJob(
             final Integer userId,
             final MultipartFile file,
-            final Path localPath) throws IOException {
+            final StagedTempFile staged) {
         UploadJob job = new UploadJob();
         job.setUserId(userId);
         job.setOriginalFilename(file.getOriginalFilename());
         job.setContentType(file.getContentType());
-        job.setFileSize(Files.size(localPath));
-        job.setLocalPath(localPath.toString());
+        job.setFileSize(staged.size());
+        job.setContentHash(staged.sha256());
+        job.setLocalPath(staged.path().toString());
         job.setStatus(UploadJobStatus.UPLOAD_PENDING);
         return uploadJobRepository.save(job);
     }
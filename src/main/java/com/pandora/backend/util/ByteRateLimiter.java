@@ -0,0 +1,81 @@
+package com.pandora.backend.util;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 字节速率限制（令牌桶，容量为 1 秒的配额）
+ * 多个线程共享同一实例时限制的是总速率；允许透支，透支部分由后续调用者等待偿还，长期平均速率不超过上限
+ */
+public class ByteRateLimiter {
+
+    private final long bytesPerSecond;
+    private double available;
+    private long lastRefillNanos;
+
+    /**
+     * @param bytesPerSecond 每秒字节数，小于等于 0 表示不限速
+     */
+    public ByteRateLimiter(final long bytesPerSecond) {
+        this.bytesPerSecond = bytesPerSecond;
+        this.available = bytesPerSecond;
+        this.lastRefillNanos = System.nanoTime();
+    }
+
+    public void acquire(final long bytes) throws InterruptedException {
+        if (bytesPerSecond <= 0 || bytes <= 0) {
+            return;
+        }
+        final long waitNanos;
+        synchronized (this) {
+            final long now = System.nanoTime();
+            available = Math.min(bytesPerSecond, available + (now - lastRefillNanos) / 1e9 * bytesPerSecond);
+            lastRefillNanos = now;
+            available -= bytes;
+            waitNanos = available >= 0 ? 0 : (long) (-available / bytesPerSecond * 1e9);
+        }
+        if (waitNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+    }
+
+    /**
+     * 包装输入流，每次读取后按读到的字节数限速
+     */
+    public InputStream wrap(final InputStream in) {
+        if (bytesPerSecond <= 0) {
+            return in;
+        }
+        return new FilterInputStream(in) {
+            @Override
+            public int read() throws IOException {
+                final int b = super.read();
+                if (b >= 0) {
+                    throttle(1);
+                }
+                return b;
+            }
+
+            @Override
+            public int read(final byte[] b, final int off, final int len) throws IOException {
+                final int n = super.read(b, off, len);
+                if (n > 0) {
+                    throttle(n);
+                }
+                return n;
+            }
+        };
+    }
+
+    private void throttle(final long bytes) throws InterruptedIOException {
+        try {
+            acquire(bytes);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while throttling");
+        }
+    }
+}
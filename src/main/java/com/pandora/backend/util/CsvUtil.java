@@ -0,0 +1,71 @@
+package com.pandora.backend.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 简单 CSV 读写（RFC 4180 单行：支持引号包裹、字段内逗号和双引号转义，不支持字段内换行）
+ */
+public final class CsvUtil {
+
+    private CsvUtil() {
+    }
+
+    public static List<String> parseLine(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"') {
+                    if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                        current.append('"');
+                        i++;
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        fields.add(current.toString());
+        return fields;
+    }
+
+    /**
+     * 转义单个字段；以 = + - @ 开头的值加单引号前缀，防止在 Excel 中被当作公式执行
+     */
+    public static String escape(String value) {
+        if (value == null || value.isEmpty()) {
+            return "";
+        }
+        String safe = isFormulaStart(value.charAt(0)) ? "'" + value : value;
+        if (safe.indexOf(',') >= 0 || safe.indexOf('"') >= 0 || safe.indexOf('\n') >= 0 || safe.indexOf('\r') >= 0) {
+            return '"' + safe.replace("\"", "\"\"") + '"';
+        }
+        return safe;
+    }
+
+    /**
+     * 去掉 escape 加的防公式单引号前缀，用于导入导出过的文件
+     */
+    public static String stripFormulaGuard(String value) {
+        if (value != null && value.length() > 1 && value.charAt(0) == '\'' && isFormulaStart(value.charAt(1))) {
+            return value.substring(1);
+        }
+        return value;
+    }
+
+    private static boolean isFormulaStart(char c) {
+        return c == '=' || c == '+' || c == '-' || c == '@';
+    }
+}
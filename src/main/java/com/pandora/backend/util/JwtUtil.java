@@ -1,18 +1,41 @@
 package com.pandora.backend.util;
 
+import com.pandora.backend.security.JwtPrincipal;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
 import io.jsonwebtoken.security.SignatureException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import java.security.Key;
 import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
 
+@Slf4j
 @Component
 public class JwtUtil {
     private static final String SECRET = "PandoraSuperSecretKey1234567890Pandora!"; // 固定密钥字符串
     private final Key key = Keys.hmacShaKeyFor(SECRET.getBytes());
     private final long ACCESS_TOKEN_EXPIRATION = 1000 * 60 * 60; // 1小时
     private final long REFRESH_TOKEN_EXPIRATION = 1000L * 60 * 60 * 24 * 7; // 7天
+    private static final byte DEFAULT_POSITION = 3; // 默认普通员工
+    private static final String ADMIN_WEB_AUDIENCE = "admin-web"; // 管理后台 Cookie Token，与 API Token 互不通用
+
+    // JwtParser 线程安全，复用同一个实例，避免每次解析都重新构建
+    private final JwtParser parser = Jwts.parserBuilder().setSigningKey(key).build();
+
+    // 已验签 Token 的 LRU 缓存，同一 Token 在有效期内的后续请求不再验签和解析 JSON
+    @Value("${jwt.verify-cache.max-entries:10000}")
+    private int verifyCacheMaxEntries;
+
+    private final Map<String, JwtPrincipal> verifiedCache = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, JwtPrincipal> eldest) {
+            return size() > verifyCacheMaxEntries;
+        }
+    };
 
     /**
      * 生成 Access Token（包含 userId 和 position）
@@ -28,18 +51,50 @@ public class JwtUtil {
                 .compact();
     }
 
+    public long getRefreshTokenExpirationMillis() {
+        return REFRESH_TOKEN_EXPIRATION;
+    }
+
     public String generateRefreshToken(Integer userId) {
         return Jwts.builder()
                 .setSubject(String.valueOf(userId))
+                .setId(UUID.randomUUID().toString()) // 同一秒内多次签发也不会得到相同的 Token
                 .setIssuedAt(new Date())
                 .setExpiration(new Date(System.currentTimeMillis() + REFRESH_TOKEN_EXPIRATION))
                 .signWith(key)
                 .compact();
     }
 
+    /**
+     * 生成管理后台 Web 会话 Token（放在 Cookie 中），带上页面展示用的姓名和邮箱
+     */
+    public String generateAdminWebToken(Integer adminId, String adminName, String adminEmail, long ttlMillis) {
+        return Jwts.builder()
+                .setSubject(String.valueOf(adminId))
+                .setAudience(ADMIN_WEB_AUDIENCE)
+                .claim("name", adminName)
+                .claim("email", adminEmail)
+                .setIssuedAt(new Date())
+                .setExpiration(new Date(System.currentTimeMillis() + ttlMillis))
+                .signWith(key)
+                .compact();
+    }
+
+    /**
+     * 校验管理后台 Token；无效、过期或不是管理后台 Token 时返回 null
+     */
+    public Claims verifyAdminWebToken(String token) {
+        try {
+            Claims claims = parser.parseClaimsJws(token).getBody();
+            return ADMIN_WEB_AUDIENCE.equals(claims.getAudience()) && claims.getSubject() != null ? claims : null;
+        } catch (JwtException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
     public boolean validateToken(String token) {
         try {
-            Jwts.parserBuilder().setSigningKey(key).build().parseClaimsJws(token);
+            parser.parseClaimsJws(token);
             return true;
         } catch (ExpiredJwtException e) {
             // Token 已过期
@@ -61,11 +116,7 @@ public class JwtUtil {
     }
 
     public Integer extractUserId(String token) {
-        Claims claims = Jwts.parserBuilder()
-                .setSigningKey(key)
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+        Claims claims = parser.parseClaimsJws(token).getBody();
         return Integer.valueOf(claims.getSubject());
     }
 
@@ -73,30 +124,74 @@ public class JwtUtil {
      * 从 Token 中提取 position
      */
     public Byte extractPosition(String token) {
-        Claims claims = Jwts.parserBuilder()
-                .setSigningKey(key)
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
-        Object position = claims.get("position");
-        if (position == null) {
-            return 3; // 默认普通员工
+        Claims claims = parser.parseClaimsJws(token).getBody();
+        return positionOf(claims);
+    }
+
+    /**
+     * 一次验签并解析出身份信息；Token 无效、过期或缺少 userId 时返回 null
+     * 结果按 Token 缓存到过期为止，缓存命中时不再验签
+     */
+    public JwtPrincipal verify(String token) {
+        if (verifyCacheMaxEntries > 0) {
+            JwtPrincipal cached;
+            synchronized (verifiedCache) {
+                cached = verifiedCache.get(token);
+            }
+            if (cached != null) {
+                if (!cached.isExpired()) {
+                    return cached;
+                }
+                synchronized (verifiedCache) {
+                    verifiedCache.remove(token);
+                }
+                return null;
+            }
+        }
+
+        JwtPrincipal principal = parsePrincipal(token);
+        if (principal == null) {
+            return null;
         }
+        if (verifyCacheMaxEntries > 0) {
+            synchronized (verifiedCache) {
+                verifiedCache.put(token, principal);
+            }
+        }
+        return principal;
+    }
+
+    private JwtPrincipal parsePrincipal(String token) {
+        try {
+            Claims claims = parser.parseClaimsJws(token).getBody();
+            if (claims.getSubject() == null || ADMIN_WEB_AUDIENCE.equals(claims.getAudience())) {
+                return null;
+            }
+            Date expiration = claims.getExpiration();
+            return new JwtPrincipal(Integer.valueOf(claims.getSubject()), positionOf(claims),
+                    expiration != null ? expiration.toInstant() : null);
+        } catch (ExpiredJwtException e) {
+            log.debug("Token 已过期: {}", e.getMessage());
+            return null;
+        } catch (JwtException | IllegalArgumentException e) {
+            log.debug("Token 验证失败: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private Byte positionOf(Claims claims) {
+        Object position = claims.get("position");
         // 处理不同类型：可能是 Integer 或 Byte
         if (position instanceof Number) {
             return ((Number) position).byteValue();
         }
-        return 3;
+        return DEFAULT_POSITION;
     }
 
     /**
      * 从 Token 中提取所有信息
      */
     public Claims extractAllClaims(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(key)
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+        return parser.parseClaimsJws(token).getBody();
     }
 }
@@ -1,9 +1,14 @@
 package com.pandora.backend.util;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
 import org.springframework.stereotype.Component;
 
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 
 @Component
@@ -108,4 +113,75 @@ public class RedisUtil {
     public Boolean setIfAbsent(String key, Object value, long timeout, TimeUnit unit) {
         return redisTemplate.opsForValue().setIfAbsent(key, value, timeout, unit);
     }
-}
\ No newline at end of file
+
+    /**
+     * 从列表右侧批量追加元素
+     *
+     * @return 追加后的列表长度
+     */
+    public Long rightPushAll(String key, Object... values) {
+        return redisTemplate.opsForList().rightPushAll(key, values);
+    }
+
+    /**
+     * 获取列表指定区间的元素（包含 end，支持负数下标）
+     */
+    public List<Object> listRange(String key, long start, long end) {
+        return redisTemplate.opsForList().range(key, start, end);
+    }
+
+    /**
+     * 裁剪列表，只保留指定区间的元素
+     */
+    public void listTrim(String key, long start, long end) {
+        redisTemplate.opsForList().trim(key, start, end);
+    }
+
+    /**
+     * 获取列表长度
+     */
+    public Long listSize(String key) {
+        return redisTemplate.opsForList().size(key);
+    }
+
+    /**
+     * 获取 hash 字段值
+     */
+    public Object hashGet(String key, String field) {
+        return redisTemplate.opsForHash().get(key, field);
+    }
+
+    /**
+     * 设置 hash 字段值
+     */
+    public void hashPut(String key, String field, Object value) {
+        redisTemplate.opsForHash().put(key, field, value);
+    }
+
+    /**
+     * hash 字段原子增减
+     */
+    public Long hashIncrement(String key, String field, long delta) {
+        return redisTemplate.opsForHash().increment(key, field, delta);
+    }
+
+    /**
+     * 执行 Lua 脚本（一次往返，脚本内操作原子执行）
+     * 参数和返回值按纯字符串序列化，不经过 JSON，脚本内可直接比较
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T executeScript(RedisScript<T> script, List<String> keys, String... args) {
+        return redisTemplate.execute(script, StringRedisSerializer.UTF_8,
+                (RedisSerializer<T>) StringRedisSerializer.UTF_8, keys, (Object[]) args);
+    }
+
+    /**
+     * 发布 Pub/Sub 消息，消息按纯字符串发送（不经过 JSON）
+     *
+     * @return 收到消息的订阅者数量
+     */
+    public Long publish(String channel, String message) {
+        return redisTemplate.execute((RedisCallback<Long>) connection -> connection.publish(
+                StringRedisSerializer.UTF_8.serialize(channel), StringRedisSerializer.UTF_8.serialize(message)));
+    }
+}
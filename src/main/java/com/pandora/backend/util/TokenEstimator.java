@@ -0,0 +1,28 @@
+package com.pandora.backend.util;
+
+/**
+ * 提示词 token 数粗略估算
+ * 中日韩字符按 1 字 1 token，其余字符按约 4 字符 1 token 计，用于预算控制而非计费
+ */
+public final class TokenEstimator {
+
+    private TokenEstimator() {
+    }
+
+    public static int estimate(final String text) {
+        if (text == null || text.isEmpty()) {
+            return 0;
+        }
+        int cjk = 0;
+        int other = 0;
+        for (int i = 0; i < text.length(); i++) {
+            final char c = text.charAt(i);
+            if (Character.isIdeographic(c) || (c >= '\u3000' && c <= '\u30FF') || (c >= '\uFF00' && c <= '\uFFEF')) {
+                cjk++;
+            } else {
+                other++;
+            }
+        }
+        return cjk + (other + 3) / 4;
+    }
+}
@@ -0,0 +1,11 @@
+CREATE TABLE attachment_insight (
+    insight_id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    attachment_id BIGINT NOT NULL,
+    stored_filename VARCHAR(255) NOT NULL,
+    content_hash VARCHAR(128) NULL,
+    file_type VARCHAR(100) NULL,
+    summary TEXT NOT NULL,
+    created_time DATETIME NOT NULL,
+    UNIQUE KEY uk_attachment_insight_stored_filename (stored_filename),
+    INDEX idx_attachment_insight_content_hash (content_hash)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='Attachment vision summary cache';
@@ -0,0 +1,13 @@
+CREATE TABLE ai_analysis_batch (
+    batch_id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    batch_date DATE NOT NULL,
+    status VARCHAR(20) NOT NULL COMMENT 'RUNNING/COMPLETED',
+    total_count INT NOT NULL DEFAULT 0,
+    success_count INT NOT NULL DEFAULT 0,
+    skipped_count INT NOT NULL DEFAULT 0,
+    failed_count INT NOT NULL DEFAULT 0,
+    started_time DATETIME NOT NULL,
+    updated_time DATETIME NOT NULL,
+    finished_time DATETIME NULL,
+    UNIQUE KEY uk_ai_analysis_batch_date (batch_date)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='AI 分析离线批处理进度表';
@@ -0,0 +1,17 @@
+ALTER TABLE upload_job
+    ADD COLUMN extension VARCHAR(32) NULL AFTER content_type,
+    ADD COLUMN multipart_upload_id VARCHAR(255) NULL AFTER oss_object_key,
+    ADD COLUMN attempt_count INT NOT NULL DEFAULT 0 AFTER status,
+    ADD INDEX idx_upload_job_status_updated (status, updated_time);
+
+CREATE TABLE upload_job_part (
+    upload_job_part_id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    upload_job_id BIGINT NOT NULL,
+    part_number INT NOT NULL,
+    etag VARCHAR(255) NOT NULL,
+    part_size BIGINT NOT NULL,
+    created_time DATETIME NOT NULL,
+    UNIQUE KEY uk_upload_job_part (upload_job_id, part_number),
+    CONSTRAINT fk_upload_job_part_job FOREIGN KEY (upload_job_id)
+        REFERENCES upload_job(upload_job_id) ON DELETE CASCADE
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='分片上传断点：已完成分片的 ETag';
@@ -0,0 +1,14 @@
+CREATE TABLE attachment_content (
+    content_id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    content_hash CHAR(64) NOT NULL COMMENT 'SHA-256 hex',
+    object_key VARCHAR(1024) NOT NULL,
+    file_size BIGINT NOT NULL,
+    ref_count INT NOT NULL DEFAULT 1,
+    created_time DATETIME NOT NULL,
+    updated_time DATETIME NOT NULL,
+    UNIQUE KEY uk_attachment_content_hash (content_hash),
+    INDEX idx_attachment_content_object_key (object_key(255))
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='附件内容去重索引：内容哈希 -> OSS 对象及引用计数';
+
+ALTER TABLE upload_job
+    ADD COLUMN content_hash CHAR(64) NULL AFTER file_size;
@@ -0,0 +1,13 @@
+CREATE TABLE oss_migration_progress (
+    attachment_type VARCHAR(16) NOT NULL PRIMARY KEY COMMENT 'LOG/TASK',
+    status VARCHAR(20) NOT NULL COMMENT 'RUNNING/COMPLETED',
+    last_attachment_id BIGINT NOT NULL DEFAULT 0 COMMENT '已处理到的附件 ID（断点）',
+    migrated_count INT NOT NULL DEFAULT 0,
+    skipped_count INT NOT NULL DEFAULT 0,
+    failed_count INT NOT NULL DEFAULT 0,
+    migrated_bytes BIGINT NOT NULL DEFAULT 0,
+    last_error VARCHAR(1000) NULL,
+    started_time DATETIME NOT NULL,
+    updated_time DATETIME NOT NULL,
+    finished_time DATETIME NULL
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='本地附件迁移 OSS 进度表';
@@ -0,0 +1,61 @@
+package com.pandora.backend.security;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * PhoneSecurityService 复用 Mac/Cipher 与批量解密单元测试
+ */
+@DisplayName("手机号加解密测试")
+class PhoneSecurityServiceTest {
+
+    private PhoneSecurityService phoneSecurityService;
+
+    @BeforeEach
+    void setUp() {
+        byte[] key = new byte[32];
+        Arrays.fill(key, (byte) 7);
+        phoneSecurityService = new PhoneSecurityService(Base64.getEncoder().encodeToString(key), "pepper");
+    }
+
+    @Test
+    @DisplayName("同一线程多次加解密结果正确，每次密文不同")
+    void encryptDecrypt_roundTripWithReusedCipher() {
+        String first = phoneSecurityService.encryptPhone("13800138000");
+        String second = phoneSecurityService.encryptPhone("13800138000");
+
+        assertThat(first).isNotEqualTo(second);
+        assertThat(phoneSecurityService.decryptPhone(first)).isEqualTo("13800138000");
+        assertThat(phoneSecurityService.decryptPhone(second)).isEqualTo("13800138000");
+    }
+
+    @Test
+    @DisplayName("批量解密与逐个解密结果一致，兼容明文和空值")
+    void decryptPhones_matchesSingleDecrypt() {
+        List<String> encrypted = Arrays.asList(
+                phoneSecurityService.encryptPhone("13800138000"),
+                "13900139000",
+                null,
+                phoneSecurityService.encryptPhone("13700137000"));
+
+        List<String> plains = phoneSecurityService.decryptPhones(encrypted);
+
+        assertThat(plains).containsExactly("13800138000", "13900139000", null, "13700137000");
+    }
+
+    @Test
+    @DisplayName("哈希结果为 64 位小写十六进制且稳定")
+    void hashPhone_isStableLowerHex() {
+        String hash = phoneSecurityService.hashPhone("13800138000");
+
+        assertThat(hash).hasSize(64).matches("[0-9a-f]+");
+        assertThat(phoneSecurityService.hashPhone(" 13800138000 ")).isEqualTo(hash);
+    }
+}
@@ -0,0 +1,164 @@
+package com.pandora.backend.service;
+
+import com.aliyun.oss.model.ObjectMetadata;
+import com.pandora.backend.entity.Employee;
+import com.pandora.backend.entity.Log;
+import com.pandora.backend.entity.LogAttachment;
+import com.pandora.backend.repository.LogAttachmentRepository;
+import com.pandora.backend.security.JwtPrincipal;
+import com.pandora.backend.service.OssObjectCacheService.ObjectInfo;
+import com.pandora.backend.util.JwtUtil;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.io.InputStreamResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.io.ByteArrayInputStream;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * AttachmentService 代理下载的 Range / If-Range 处理单元测试
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("附件代理下载测试")
+class AttachmentServiceTest {
+
+    private static final String OBJECT_KEY = "attachments/sha256/ab/abc.txt";
+    private static final byte[] CONTENT = "0123456789".getBytes(StandardCharsets.UTF_8);
+
+    @Mock
+    private LogAttachmentRepository logAttachmentRepository;
+
+    @Mock
+    private OssService ossService;
+
+    @Mock
+    private JwtUtil jwtUtil;
+
+    @Mock
+    private OssObjectCacheService ossObjectCacheService;
+
+    @InjectMocks
+    private AttachmentService attachmentService;
+
+    @TempDir
+    Path tempDir;
+
+    @BeforeEach
+    void setUp() {
+        Employee employee = new Employee();
+        employee.setEmployeeId(1);
+        Log log = new Log();
+        log.setEmployee(employee);
+        LogAttachment attachment = new LogAttachment();
+        attachment.setLog(log);
+        attachment.setStoredFilename(OBJECT_KEY);
+        attachment.setOriginalFilename("a.txt");
+        attachment.setFileType("text/plain");
+
+        when(jwtUtil.verify("token")).thenReturn(new JwtPrincipal(1, (byte) 1, null));
+        when(logAttachmentRepository.findById(1L)).thenReturn(Optional.of(attachment));
+
+        ObjectMetadata metadata = mock(ObjectMetadata.class);
+        lenient().when(metadata.getETag()).thenReturn("v2");
+        lenient().when(metadata.getContentLength()).thenReturn((long) CONTENT.length);
+        lenient().when(ossService.getObjectMetadata(OBJECT_KEY)).thenReturn(metadata);
+    }
+
+    @Test
+    @DisplayName("If-Range 与当前 ETag 不一致时忽略 Range，返回 200 完整内容")
+    void ifRangeMismatchReturnsFullBody() throws Exception {
+        Path cached = Files.write(tempDir.resolve("cached"), CONTENT);
+        when(ossObjectCacheService.resolve(OBJECT_KEY, new ObjectInfo("v2", CONTENT.length, -1)))
+                .thenReturn(Optional.of(FileChannel.open(cached, StandardOpenOption.READ)));
+
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader(HttpHeaders.RANGE, "bytes=2-5");
+        request.addHeader(HttpHeaders.IF_RANGE, "\"v1\"");
+
+        ResponseEntity<Resource> response = attachmentService.downloadLogAttachment(1L, "token", request);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getHeaders().getFirst(HttpHeaders.CONTENT_RANGE)).isNull();
+        assertThat(response.getHeaders().getContentLength()).isEqualTo(CONTENT.length);
+        // 必须是 InputStreamResource 本身，Spring MVC 才不会再按请求的 Range 切分
+        assertThat(response.getBody()).isExactlyInstanceOf(InputStreamResource.class);
+        assertThat(response.getBody().getInputStream().readAllBytes()).isEqualTo(CONTENT);
+        verify(ossService, never()).getObjectRange(anyString(), anyLong(), anyLong());
+    }
+
+    @Test
+    @DisplayName("If-Range 与当前 ETag 一致时返回 206 区间内容")
+    void ifRangeMatchReturnsPartialContent() throws Exception {
+        when(ossObjectCacheService.find(OBJECT_KEY, "v2")).thenReturn(Optional.empty());
+        when(ossService.getObjectRange(OBJECT_KEY, 2, 5))
+                .thenReturn(new ByteArrayInputStream("2345".getBytes(StandardCharsets.UTF_8)));
+
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader(HttpHeaders.RANGE, "bytes=2-5");
+        request.addHeader(HttpHeaders.IF_RANGE, "\"v2\"");
+
+        ResponseEntity<Resource> response = attachmentService.downloadLogAttachment(1L, "token", request);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.PARTIAL_CONTENT);
+        assertThat(response.getHeaders().getFirst(HttpHeaders.CONTENT_RANGE)).isEqualTo("bytes 2-5/10");
+        assertThat(response.getHeaders().getContentLength()).isEqualTo(4);
+    }
+
+    @Test
+    @DisplayName("磁盘缓存命中的 Range 请求只读取对应区间，文件删除后已打开的句柄仍可读取")
+    void cachedRangeReadsOpenedFile() throws Exception {
+        Path cached = Files.write(tempDir.resolve("cached"), CONTENT);
+        when(ossObjectCacheService.find(OBJECT_KEY, "v2"))
+                .thenReturn(Optional.of(FileChannel.open(cached, StandardOpenOption.READ)));
+
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader(HttpHeaders.RANGE, "bytes=2-5");
+
+        ResponseEntity<Resource> response = attachmentService.downloadLogAttachment(1L, "token", request);
+        // 模拟响应返回后条目被淘汰
+        Files.delete(cached);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.PARTIAL_CONTENT);
+        assertThat(response.getBody().getInputStream().readAllBytes())
+                .isEqualTo("2345".getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    @DisplayName("磁盘缓存近期确认过的对象直接用索引中的 ETag 返回 304，不请求 OSS")
+    void verifiedCacheEntrySkipsHead() {
+        when(ossObjectCacheService.findVerified(OBJECT_KEY)).thenReturn(Optional.of(new ObjectInfo("v2", 10, -1)));
+
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, "\"v2\"");
+
+        ResponseEntity<Resource> response = attachmentService.downloadLogAttachment(1L, "token", request);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        verify(ossService, never()).getObjectMetadata(anyString());
+    }
+}
@@ -0,0 +1,51 @@
+package com.pandora.backend.service;
+
+import com.pandora.backend.dto.ChatMessageDTO;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * GlmResponseCacheService 缓存键单元测试
+ */
+@DisplayName("GLM 响应缓存键测试")
+class GlmResponseCacheServiceTest {
+
+    @Test
+    @DisplayName("仅空白差异的提示词生成相同哈希")
+    void hashMessages_ignoresWhitespaceDifferences() {
+        List<ChatMessageDTO> a = List.of(
+                new ChatMessageDTO("system", "你是一个智能工作助手"),
+                new ChatMessageDTO("user", "帮我分析一下  最近的工作\n"));
+        List<ChatMessageDTO> b = List.of(
+                new ChatMessageDTO("system", "  你是一个智能工作助手"),
+                new ChatMessageDTO("user", "帮我分析一下 最近的工作"));
+
+        assertThat(GlmResponseCacheService.hashMessages("glm-4", a))
+                .isEqualTo(GlmResponseCacheService.hashMessages("glm-4", b));
+    }
+
+    @Test
+    @DisplayName("角色、内容或模型不同生成不同哈希")
+    void hashMessages_distinguishesRoleContentAndModel() {
+        List<ChatMessageDTO> base = List.of(new ChatMessageDTO("user", "你好"));
+
+        String hash = GlmResponseCacheService.hashMessages("glm-4", base);
+
+        assertThat(GlmResponseCacheService.hashMessages("glm-4", List.of(new ChatMessageDTO("system", "你好"))))
+                .isNotEqualTo(hash);
+        assertThat(GlmResponseCacheService.hashMessages("glm-4", List.of(new ChatMessageDTO("user", "你好吗"))))
+                .isNotEqualTo(hash);
+        assertThat(GlmResponseCacheService.hashMessages("glm-4-plus", base)).isNotEqualTo(hash);
+    }
+
+    @Test
+    @DisplayName("规范化折叠连续空白并去除首尾空白")
+    void normalize_collapsesWhitespace() {
+        assertThat(GlmResponseCacheService.normalize("  a \t b\n\nc  ")).isEqualTo("a b c");
+        assertThat(GlmResponseCacheService.normalize(null)).isEmpty();
+    }
+}
@@ -0,0 +1,123 @@
+package com.pandora.backend.service;
+
+import com.pandora.backend.repository.DepartmentRepository;
+import com.pandora.backend.repository.EmployeeRepository;
+import com.pandora.backend.repository.EmployeeTeamRepository;
+import com.pandora.backend.repository.TeamRepository;
+import com.pandora.backend.util.RedisUtil;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * PermissionService 基于组织关系快照的授权判断单元测试
+ */
+@DisplayName("权限判断测试")
+class PermissionServiceTest {
+
+    private EmployeeRepository employeeRepository;
+    private RedisUtil redisUtil;
+    private OrgGraphService orgGraphService;
+    private PermissionService permissionService;
+
+    @BeforeEach
+    void setUp() {
+        employeeRepository = mock(EmployeeRepository.class);
+        TeamRepository teamRepository = mock(TeamRepository.class);
+        DepartmentRepository departmentRepository = mock(DepartmentRepository.class);
+        EmployeeTeamRepository employeeTeamRepository = mock(EmployeeTeamRepository.class);
+        redisUtil = mock(RedisUtil.class);
+
+        // 部门 10: 经理 1，团队长 2（团队 100），员工 3（团队 100）、4（团队 200）；部门 20: 员工 5
+        when(employeeRepository.findOrgGraphRows()).thenReturn(List.of(
+                new Object[] { 1, (byte) 1, 10, "经理", "m@example.com" },
+                new Object[] { 2, (byte) 2, 10, "团队长", "l@example.com" },
+                new Object[] { 3, (byte) 3, 10, "员工A", "a@example.com" },
+                new Object[] { 4, (byte) 3, 10, "员工B", "b@example.com" },
+                new Object[] { 5, (byte) 3, 20, "员工C", "c@example.com" }));
+        when(teamRepository.findOrgGraphRows()).thenReturn(List.of(
+                new Object[] { 100, 10, "研发一组" },
+                new Object[] { 200, 10, "研发二组" }));
+        when(departmentRepository.findOrgGraphRows()).thenReturn(List.of(
+                new Object[] { 10, "研发部" },
+                new Object[] { 20, "市场部" }));
+        when(employeeTeamRepository.findOrgGraphRows()).thenReturn(List.of(
+                new Object[] { 100, 2, (byte) 1 },
+                new Object[] { 100, 3, (byte) 0 },
+                new Object[] { 200, 4, (byte) 0 }));
+
+        orgGraphService = new OrgGraphService(employeeRepository, teamRepository, departmentRepository,
+                employeeTeamRepository, redisUtil, mock(RedisMessageListenerContainer.class),
+                new SimpleMeterRegistry());
+        permissionService = new PermissionService(orgGraphService);
+    }
+
+    @Test
+    @DisplayName("部门经理只能分配给本部门的团队长和员工")
+    void canAssignTask_manager() {
+        assertThat(permissionService.canAssignTask(1, (byte) 1, 2)).isTrue();
+        assertThat(permissionService.canAssignTask(1, (byte) 1, 3)).isTrue();
+        assertThat(permissionService.canAssignTask(1, (byte) 1, 5)).isFalse();
+        assertThat(permissionService.canAssignTask(1, (byte) 1, 1)).isFalse();
+    }
+
+    @Test
+    @DisplayName("团队长只能分配给自己团队的员工")
+    void canAssignTask_teamLeader() {
+        assertThat(permissionService.canAssignTask(2, (byte) 2, 3)).isTrue();
+        assertThat(permissionService.canAssignTask(2, (byte) 2, 4)).isFalse();
+        assertThat(permissionService.canAssignTask(2, (byte) 2, 999)).isFalse();
+        assertThat(permissionService.teamLeaderOf(100)).isEqualTo(2);
+        assertThat(permissionService.leadsTeam(2, 200)).isFalse();
+    }
+
+    @Test
+    @DisplayName("快照只加载一次，本节点变更后递增版本、重建并广播")
+    void snapshot_rebuildsOnLocalChange() {
+        permissionService.departmentOf(1);
+        permissionService.departmentOf(2);
+        verify(employeeRepository, times(1)).findOrgGraphRows();
+
+        when(redisUtil.increment(OrgGraphService.VERSION_KEY)).thenReturn(7L);
+        orgGraphService.onOrgGraphChanged(new OrgGraphChangedEvent("test"));
+        verify(employeeRepository, times(2)).findOrgGraphRows();
+        verify(redisUtil).publish(eq(OrgGraphService.CHANNEL), eq("7"));
+
+        OrgGraph graph = orgGraphService.current();
+        assertThat(graph.version()).isEqualTo(7);
+        assertThat(graph.departmentName(graph.employee(3).orgId())).isEqualTo("研发部");
+        assertThat(graph.membersOf(100)).containsExactly(2, 3);
+    }
+
+    @Test
+    @DisplayName("其它节点广播更高版本时重建，旧版本或相同版本忽略")
+    void snapshot_rebuildsOnNewerRemoteVersion() {
+        when(redisUtil.get(OrgGraphService.VERSION_KEY)).thenReturn(3);
+        assertThat(orgGraphService.current().version()).isEqualTo(3);
+
+        orgGraphService.onMessage(message("3"), null);
+        verify(employeeRepository, times(1)).findOrgGraphRows();
+
+        orgGraphService.onMessage(message("4"), null);
+        verify(employeeRepository, times(2)).findOrgGraphRows();
+        assertThat(orgGraphService.current().version()).isEqualTo(4);
+    }
+
+    private static DefaultMessage message(String body) {
+        return new DefaultMessage(OrgGraphService.CHANNEL.getBytes(StandardCharsets.UTF_8),
+                body.getBytes(StandardCharsets.UTF_8));
+    }
+}
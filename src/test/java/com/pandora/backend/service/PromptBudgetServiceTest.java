@@ -0,0 +1,68 @@
+package com.pandora.backend.service;
+
+import com.pandora.backend.dto.ChatMessageDTO;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * PromptBudgetService 预算分配单元测试
+ */
+@DisplayName("提示词预算组装测试")
+class PromptBudgetServiceTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private PromptBudgetService promptBudgetService;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        promptBudgetService = new PromptBudgetService(meterRegistry);
+        ReflectionTestUtils.setField(promptBudgetService, "maxItemChars", 300);
+    }
+
+    @Test
+    @DisplayName("预算充足时保留全部条目和固定消息")
+    void assemble_keepsEverythingWithinBudget() {
+        ReflectionTestUtils.setField(promptBudgetService, "maxTokens", 1000);
+
+        List<ChatMessageDTO> result = promptBudgetService.assemble("test",
+                List.of(new ChatMessageDTO("system", "系统提示")),
+                List.of(new PromptBudgetService.Section("logs", 1, "日志：", List.of("- 日志一", "- 日志二"))),
+                List.of(new ChatMessageDTO("user", "提问")));
+
+        assertThat(result).hasSize(3);
+        assertThat(result.get(1).getContent()).isEqualTo("日志：\n- 日志一\n- 日志二");
+        assertThat(result.get(2).getRole()).isEqualTo("user");
+    }
+
+    @Test
+    @DisplayName("超出预算时按优先级轮流分配并注明省略数量")
+    void assemble_truncatesByPriorityRoundRobin() {
+        ReflectionTestUtils.setField(promptBudgetService, "maxTokens", 60);
+
+        List<String> logs = new ArrayList<>();
+        List<String> tasks = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            logs.add("- 日志" + i);
+            tasks.add("- 任务" + i);
+        }
+
+        List<ChatMessageDTO> result = promptBudgetService.assemble("test", List.of(),
+                List.of(new PromptBudgetService.Section("tasks", 2, "任务：", tasks),
+                        new PromptBudgetService.Section("logs", 1, "日志：", logs)),
+                List.of());
+
+        assertThat(result).hasSize(2);
+        assertThat(result.get(0).getContent()).startsWith("任务：\n- 任务0").contains("因长度限制省略");
+        assertThat(result.get(1).getContent()).startsWith("日志：\n- 日志0").contains("因长度限制省略");
+        assertThat(meterRegistry.find("agent.prompt.section.dropped").counters()).isNotEmpty();
+    }
+}
@@ -0,0 +1,74 @@
+package com.pandora.backend.service;
+
+import com.pandora.backend.config.RateLimitConfig;
+import com.pandora.backend.util.RedisUtil;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.RedisConnectionFailureException;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * RateLimitService 令牌桶判定单元测试
+ */
+@DisplayName("接口限流测试")
+class RateLimitServiceTest {
+
+    private RedisUtil redisUtil;
+    private SimpleMeterRegistry meterRegistry;
+    private RateLimitService rateLimitService;
+
+    @BeforeEach
+    void setUp() {
+        redisUtil = mock(RedisUtil.class);
+        meterRegistry = new SimpleMeterRegistry();
+        rateLimitService = new RateLimitService(redisUtil, meterRegistry, new RateLimitConfig());
+    }
+
+    @Test
+    @DisplayName("Redis 返回的判定结果原样转换为 Decision")
+    void tryAcquire_usesRedisResult() {
+        when(redisUtil.executeScript(any(), anyList(), any(String[].class))).thenReturn(List.of(0L, 0L, 1500L));
+
+        RateLimitService.Decision decision = rateLimitService.tryAcquire("u1",
+                List.of(new RateLimitConfig.Rule("global", "/**", 5, 1)));
+
+        assertThat(decision.allowed()).isFalse();
+        assertThat(decision.limit()).isEqualTo(5);
+        assertThat(decision.retryAfterMillis()).isEqualTo(1500);
+        assertThat(meterRegistry.counter("rate-limit.requests", "rule", "global", "outcome", "rejected").count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Redis 不可用时退化为本地桶，任一桶耗尽即拒绝且不扣减其它桶")
+    void tryAcquire_fallsBackToLocalBuckets() {
+        when(redisUtil.executeScript(any(), anyList(), any(String[].class)))
+                .thenThrow(new RedisConnectionFailureException("down"));
+        List<RateLimitConfig.Rule> rules = List.of(
+                new RateLimitConfig.Rule("global", "/**", 10, 0.001),
+                new RateLimitConfig.Rule("search", "/*/search", 2, 0.001));
+
+        assertThat(rateLimitService.tryAcquire("u1", rules).allowed()).isTrue();
+        assertThat(rateLimitService.tryAcquire("u1", rules).allowed()).isTrue();
+        RateLimitService.Decision rejected = rateLimitService.tryAcquire("u1", rules);
+
+        assertThat(rejected.allowed()).isFalse();
+        assertThat(rejected.limit()).isEqualTo(2);
+        assertThat(rejected.retryAfterMillis()).isPositive();
+        // 全局桶只扣了两次
+        RateLimitService.Decision other = rateLimitService.tryAcquire("u1",
+                List.of(new RateLimitConfig.Rule("global", "/**", 10, 0.001)));
+        assertThat(other.allowed()).isTrue();
+        assertThat(other.remaining()).isEqualTo(7);
+        assertThat(meterRegistry.counter("rate-limit.fallback").count()).isEqualTo(4);
+    }
+}
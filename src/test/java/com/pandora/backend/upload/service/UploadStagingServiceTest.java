@@ -0,0 +1,117 @@
+package com.pandora.backend.upload.service;
+
+import com.pandora.backend.upload.entity.UploadJob;
+import com.pandora.backend.upload.repository.UploadJobRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * UploadStagingService 暂存单元测试：统计上传流的打开次数和读取字节数，确认整个文件只读一遍
+ */
+@DisplayName("上传暂存单遍读取测试")
+class UploadStagingServiceTest {
+
+    private static final byte[] PNG_HEADER = { (byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n' };
+
+    @TempDir
+    Path tempDir;
+
+    private UploadStagingService uploadStagingService;
+
+    @BeforeEach
+    void setUp() {
+        LocalTempFileService localTempFileService = new LocalTempFileService();
+        ReflectionTestUtils.setField(localTempFileService, "uploadDir", tempDir.toString());
+
+        UploadJobRepository uploadJobRepository = mock(UploadJobRepository.class);
+        when(uploadJobRepository.save(any(UploadJob.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        uploadStagingService = new UploadStagingService(new UploadValidationService(), localTempFileService,
+                uploadJobRepository, mock(AsyncOssUploadService.class));
+    }
+
+    @Test
+    @DisplayName("上传流只打开一次，读取字节数等于文件大小，暂存内容与原文件一致")
+    void stageAndSubmit_readsUploadOnce() throws IOException {
+        byte[] content = new byte[5 * 1024 * 1024 + 123];
+        Arrays.fill(content, (byte) 7);
+        System.arraycopy(PNG_HEADER, 0, content, 0, PNG_HEADER.length);
+        CountingMultipartFile file = new CountingMultipartFile(content);
+
+        UploadJob job = uploadStagingService.stageAndSubmit(1, file);
+
+        assertThat(file.opens.get()).isEqualTo(1);
+        assertThat(file.bytesRead.get()).isEqualTo(content.length);
+        assertThat(job.getFileSize()).isEqualTo(content.length);
+        assertThat(job.getContentHash()).hasSize(64);
+        assertThat(Files.readAllBytes(Path.of(job.getLocalPath()))).isEqualTo(content);
+    }
+
+    private static final class CountingMultipartFile extends MockMultipartFile {
+
+        private final AtomicInteger opens = new AtomicInteger();
+        private final AtomicLong bytesRead = new AtomicLong();
+
+        CountingMultipartFile(final byte[] content) {
+            super("file", "image.png", "image/png", content);
+        }
+
+        @Override
+        public InputStream getInputStream() {
+            opens.incrementAndGet();
+            return new FilterInputStream(new ByteArrayInputStream(getBytesUnchecked())) {
+                @Override
+                public int read() throws IOException {
+                    int b = super.read();
+                    if (b >= 0) {
+                        bytesRead.incrementAndGet();
+                    }
+                    return b;
+                }
+
+                @Override
+                public int read(final byte[] b, final int off, final int len) throws IOException {
+                    int n = super.read(b, off, len);
+                    if (n > 0) {
+                        bytesRead.addAndGet(n);
+                    }
+                    return n;
+                }
+
+                @Override
+                public long skip(final long n) throws IOException {
+                    long skipped = super.skip(n);
+                    bytesRead.addAndGet(skipped);
+                    return skipped;
+                }
+            };
+        }
+
+        private byte[] getBytesUnchecked() {
+            try {
+                return getBytes();
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.pandora.backend.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * CsvUtil 解析与转义单元测试
+ */
+@DisplayName("CSV 工具测试")
+class CsvUtilTest {
+
+    @Test
+    @DisplayName("引号内的逗号和转义双引号按一个字段解析，空字段保留")
+    void parseLine_handlesQuotedFields() {
+        assertThat(CsvUtil.parseLine("张三,\"研发部,一组\",\"说\"\"你好\"\"\",,"))
+                .containsExactly("张三", "研发部,一组", "说\"你好\"", "", "");
+    }
+
+    @Test
+    @DisplayName("转义后的字段可以原样解析回来，公式前缀被中和")
+    void escape_roundTripsAndNeutralizesFormulas() {
+        String line = CsvUtil.escape("a,\"b\"") + "," + CsvUtil.escape("=SUM(A1)") + "," + CsvUtil.escape(null);
+
+        assertThat(CsvUtil.parseLine(line)).containsExactly("a,\"b\"", "'=SUM(A1)", "");
+    }
+
+    @Test
+    @DisplayName("导入时去掉防公式前缀，普通单引号开头的值保留")
+    void stripFormulaGuard_restoresExportedValues() {
+        String exported = CsvUtil.parseLine(CsvUtil.escape("+8613800000000")).get(0);
+
+        assertThat(CsvUtil.stripFormulaGuard(exported)).isEqualTo("+8613800000000");
+        assertThat(CsvUtil.stripFormulaGuard("'abc")).isEqualTo("'abc");
+        assertThat(CsvUtil.stripFormulaGuard("13800000000")).isEqualTo("13800000000");
+    }
+}
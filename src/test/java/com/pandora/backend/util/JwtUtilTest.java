@@ -0,0 +1,59 @@
+package com.pandora.backend.util;
+
+import com.pandora.backend.security.JwtPrincipal;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * JwtUtil 一次验签与验签缓存单元测试
+ */
+@DisplayName("JWT 验签测试")
+class JwtUtilTest {
+
+    private JwtUtil jwtUtil;
+
+    @BeforeEach
+    void setUp() {
+        jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "verifyCacheMaxEntries", 2);
+    }
+
+    @Test
+    @DisplayName("一次验签即可得到 userId、position 和过期时间，缓存命中返回同一对象")
+    void verify_returnsPrincipalAndCachesIt() {
+        String token = jwtUtil.generateAccessToken(42, (byte) 1);
+
+        JwtPrincipal principal = jwtUtil.verify(token);
+
+        assertThat(principal).isNotNull();
+        assertThat(principal.userId()).isEqualTo(42);
+        assertThat(principal.position()).isEqualTo((byte) 1);
+        assertThat(principal.isExpired()).isFalse();
+        assertThat(jwtUtil.verify(token)).isSameAs(principal);
+    }
+
+    @Test
+    @DisplayName("签名被篡改的 Token 验签失败")
+    void verify_rejectsTamperedToken() {
+        String token = jwtUtil.generateAccessToken(42, (byte) 1);
+        String tampered = token.substring(0, token.length() - 2)
+                + (token.endsWith("AA") ? "BB" : "AA");
+
+        assertThat(jwtUtil.verify(tampered)).isNull();
+    }
+
+    @Test
+    @DisplayName("管理后台 Cookie Token 与 API Token 互不通用")
+    void adminWebToken_isNotAcceptedAsAccessToken() {
+        String adminToken = jwtUtil.generateAdminWebToken(1, "管理员", "admin@example.com", 60_000);
+        String accessToken = jwtUtil.generateAccessToken(1, (byte) 0);
+
+        assertThat(jwtUtil.verify(adminToken)).isNull();
+        assertThat(jwtUtil.verifyAdminWebToken(adminToken).get("name", String.class)).isEqualTo("管理员");
+        assertThat(jwtUtil.verifyAdminWebToken(accessToken)).isNull();
+    }
+}